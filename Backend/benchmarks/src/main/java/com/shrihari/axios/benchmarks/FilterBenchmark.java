@@ -0,0 +1,88 @@
+package com.shrihari.axios.benchmarks;
+
+import com.shrihari.axios.security.FilterClass;
+import com.shrihari.axios.security.JwtGenerator;
+import com.shrihari.axios.security.RouteTable;
+import com.shrihari.axios.utils.roles;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Base64;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * One pass through FilterClass.doFilter for a public route and a route that needs a
+ * token and an owner check. The token is verified once in setup, so the protected case
+ * measures the route lookup plus a claims cache hit, not signature checks (see
+ * JwtBenchmark for those). The table holds the rules the controllers declare for
+ * these paths, next to a few neighbours so the lookup has siblings to pass.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterBenchmark {
+
+    private static final FilterChain PASS = (request, response) -> {
+    };
+
+    @Param({"/healthdesk/auth/check/phone", "/healthdesk/read/data/patient-details"})
+    public String uri;
+
+    private FilterClass filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() throws Exception {
+        byte[] key = new byte[32];
+        new Random(Seeds.SEED).nextBytes(key);
+        JwtGenerator generator = new JwtGenerator(Base64.getEncoder().encodeToString(key));
+        String token = generator.generate("doctor@healthdesk.test", roles.ROLES.Doctor);
+        generator.verify(token);
+
+        RouteTable routes = new RouteTable();
+        routes.add("GET", "/healthdesk/auth/check/phone", RouteTable.Rule.OPEN);
+        routes.add("GET", "/healthdesk/auth/check/email", RouteTable.Rule.OPEN);
+        Set<roles.ROLES> patientOrDoctor = Set.of(roles.ROLES.Patient, roles.ROLES.Doctor);
+        routes.add("GET", "/healthdesk/read/data/patient-details",
+                new RouteTable.Rule(false, patientOrDoctor, "phonenumber", -1, Set.of(roles.ROLES.Doctor)));
+        routes.add("GET", "/healthdesk/read/data/patient/conversation",
+                new RouteTable.Rule(false, patientOrDoctor, "patient_phnumber", -1, Set.of(roles.ROLES.Doctor)));
+        routes.add("GET", "/healthdesk/read/video/{uuid}", new RouteTable.Rule(false, patientOrDoctor, null, -1, Set.of()));
+
+        filter = new FilterClass();
+        filter.setJwtGenerator(generator);
+        filter.setRouteTable(routes);
+        request = new MockHttpServletRequest("GET", uri);
+        request.addHeader("token", token);
+        request.addParameter("phonenumber", "9876543210");
+        response = new MockHttpServletResponse();
+        filter.doFilter(request, response, PASS);
+        if (response.getStatus() != 200) {
+            throw new IllegalStateException(uri + " was rejected with " + response.getStatus());
+        }
+    }
+
+    @Benchmark
+    public MockHttpServletRequest doFilter() {
+        filter.doFilter(request, response, PASS);
+        return request;
+    }
+}
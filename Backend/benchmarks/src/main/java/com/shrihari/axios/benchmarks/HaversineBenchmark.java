@@ -0,0 +1,97 @@
+package com.shrihari.axios.benchmarks;
+
+import com.shrihari.axios.Pharma.model.Pharmacy;
+import com.shrihari.axios.Pharma.service.PharmacyGeoIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Pharmacies spread uniformly over a 300 x 300 km region, queried from points inside
+ * it with the 20 km radius the medicine search uses. scan is one haversine per pharmacy,
+ * as the search did before the grid index; grid is the index the search uses now.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HaversineBenchmark {
+
+    private static final double MIN_LAT = 12.80, MIN_LON = 80.00, SPAN = 2.7;
+    private static final double RADIUS_KM = 20.0;
+    private static final int QUERIES = 256;
+
+    @Param({"100", "1000", "10000"})
+    public int pharmacies;
+
+    private double[] latitudes;
+    private double[] longitudes;
+    private double[][] queries;
+    private PharmacyGeoIndex index;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(Seeds.SEED);
+        latitudes = new double[pharmacies];
+        longitudes = new double[pharmacies];
+        index = new PharmacyGeoIndex();
+        for (int i = 0; i < pharmacies; i++) {
+            latitudes[i] = MIN_LAT + random.nextDouble() * SPAN;
+            longitudes[i] = MIN_LON + random.nextDouble() * SPAN;
+            Pharmacy pharmacy = new Pharmacy();
+            pharmacy.setId((long) i + 1);
+            pharmacy.setLatitude(latitudes[i]);
+            pharmacy.setLongitude(longitudes[i]);
+            index.put(pharmacy);
+        }
+        queries = new double[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = new double[]{MIN_LAT + random.nextDouble() * SPAN, MIN_LON + random.nextDouble() * SPAN};
+        }
+    }
+
+    private double[] nextQuery() {
+        double[] query = queries[next];
+        next = (next + 1) % QUERIES;
+        return query;
+    }
+
+    @Benchmark
+    public double single() {
+        double[] query = nextQuery();
+        return PharmacyGeoIndex.haversine(query[0], query[1], latitudes[0], longitudes[0]);
+    }
+
+    @Benchmark
+    public void scan(Blackhole blackhole) {
+        double[] query = nextQuery();
+        for (int i = 0; i < pharmacies; i++) {
+            double distance = PharmacyGeoIndex.haversine(query[0], query[1], latitudes[i], longitudes[i]);
+            if (distance <= RADIUS_KM) {
+                blackhole.consume(distance);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<PharmacyGeoIndex.Hit> grid() {
+        double[] query = nextQuery();
+        return index.withinRadius(query[0], query[1], RADIUS_KM);
+    }
+}
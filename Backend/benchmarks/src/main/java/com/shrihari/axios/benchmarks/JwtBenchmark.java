@@ -0,0 +1,72 @@
+package com.shrihari.axios.benchmarks;
+
+import com.shrihari.axios.security.JwtGenerator;
+import com.shrihari.axios.security.VerifiedClaims;
+import com.shrihari.axios.utils.roles;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * tokens=1 verifies the same token every time, so it measures the verified-claims cache.
+ * tokens=20000 cycles through more tokens than the cache holds, so every verify parses
+ * and checks the signature.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    @Param({"1", "20000"})
+    public int tokens;
+
+    private String secret;
+    private JwtGenerator generator;
+    private String[] issued;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        byte[] key = new byte[32];
+        new Random(Seeds.SEED).nextBytes(key);
+        secret = Base64.getEncoder().encodeToString(key);
+        generator = new JwtGenerator(secret);
+        issued = new String[tokens];
+        for (int i = 0; i < tokens; i++) {
+            issued[i] = generator.generate("doctor" + i + "@healthdesk.test", roles.ROLES.Doctor);
+        }
+    }
+
+    // decodes the secret and builds the signing key and parser
+    @Benchmark
+    public JwtGenerator keyDerivation() {
+        return new JwtGenerator(secret);
+    }
+
+    @Benchmark
+    public String generate() {
+        return generator.generate("doctor@healthdesk.test", roles.ROLES.Doctor);
+    }
+
+    @Benchmark
+    public VerifiedClaims verify() {
+        String token = issued[next];
+        next = next + 1 == issued.length ? 0 : next + 1;
+        return generator.verify(token);
+    }
+}
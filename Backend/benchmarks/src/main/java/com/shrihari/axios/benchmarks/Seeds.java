@@ -0,0 +1,10 @@
+package com.shrihari.axios.benchmarks;
+
+/* every generated input comes from this seed, so runs compare like with like */
+final class Seeds {
+
+    static final long SEED = 42;
+
+    private Seeds() {
+    }
+}
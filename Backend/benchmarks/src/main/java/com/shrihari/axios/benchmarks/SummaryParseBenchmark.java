@@ -0,0 +1,87 @@
+package com.shrihari.axios.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.shrihari.axios.config.GsonConfig;
+import com.shrihari.axios.getData.summaryStructure;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Summaries shaped like the ones Gemini returns: every field a list of short sentences.
+ * items is the number of entries per field; 3 is a typical consultation, 20 a long one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SummaryParseBenchmark {
+
+    private static final String[] WORDS = {"fever", "mild", "cough", "twice", "daily", "after", "food", "paracetamol",
+            "500mg", "blood", "pressure", "review", "in", "two", "weeks", "avoid", "oily", "sleep", "hydration", "x-ray"};
+
+    @Param({"3", "20"})
+    public int items;
+
+    private Gson gson;
+    private TypeAdapter<summaryStructure> adapter;
+    private String json;
+
+    @Setup
+    public void setUp() {
+        gson = new GsonConfig().gson();
+        adapter = gson.getAdapter(summaryStructure.class);
+        Random random = new Random(Seeds.SEED);
+        summaryStructure summary = new summaryStructure();
+        summary.symptoms = sentences(random);
+        summary.diagnosis = sentences(random);
+        summary.prescription = sentences(random);
+        summary.vitals = sentences(random);
+        summary.lifestyle_advice = sentences(random);
+        summary.tests_recommended = sentences(random);
+        summary.follow_up_plan = sentences(random);
+        json = gson.toJson(summary);
+    }
+
+    private List<String> sentences(Random random) {
+        List<String> sentences = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            StringBuilder sentence = new StringBuilder();
+            int words = 4 + random.nextInt(8);
+            for (int w = 0; w < words; w++) {
+                sentence.append(w == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            sentences.add(sentence.toString());
+        }
+        return sentences;
+    }
+
+    // what the services do: gson.fromJson(json, summaryStructure.class)
+    @Benchmark
+    public summaryStructure fromJson() {
+        return gson.fromJson(json, summaryStructure.class);
+    }
+
+    // same parse with the adapter looked up once
+    @Benchmark
+    public summaryStructure adapter() throws IOException {
+        return adapter.fromJson(json);
+    }
+}
@@ -0,0 +1,58 @@
+package com.shrihari.axios.benchmarks;
+
+import com.shrihari.axios.getData.PatientVideoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * The id addInitialDetailsToPatientVideos gives a new video: SHA-256 of phone and time,
+ * hex encoded one Integer.toHexString at a time. digest alone and HexFormat over the same
+ * digest are there to split the cost between hashing and encoding.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VideoUuidBenchmark {
+
+    private static final String PHONE = "9876543210";
+    private static final String DATETIME = "2025-01-15 10:42:07.123456789";
+
+    private byte[] input;
+
+    @Setup
+    public void setUp() {
+        input = (PHONE + DATETIME).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String videoUuid() {
+        return PatientVideoService.videoUuid(PHONE, DATETIME);
+    }
+
+    @Benchmark
+    public byte[] digest() throws NoSuchAlgorithmException {
+        return MessageDigest.getInstance("SHA-256").digest(input);
+    }
+
+    @Benchmark
+    public String hexFormat() throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(input));
+    }
+}
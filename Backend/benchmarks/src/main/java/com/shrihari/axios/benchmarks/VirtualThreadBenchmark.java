@@ -0,0 +1,122 @@
+package com.shrihari.axios.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * One op is a burst of concurrent requests shaped like a consultation backend: two or
+ * three short queries (2-10 ms), a Redis round trip (1 ms), a bit of hashing, and for one
+ * request in ten a slow upstream call (AssemblyAI or Gemini, 100-400 ms). Blocking is
+ * simulated with sleeps, so only the threading model is measured.
+ *
+ * platform is a fixed pool of 200 threads, Tomcat's default. virtual is a thread per
+ * request. pinnedShare is the share of queries that block inside a synchronized block,
+ * as JDBC drivers that guard the connection with a monitor do; on JDK 21 those pin the
+ * carrier, so the virtual case shows how much a pinning driver costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class VirtualThreadBenchmark {
+
+    private static final int PLATFORM_THREADS = 200;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    @Param({"2000"})
+    public int requests;
+
+    @Param({"0", "0.1"})
+    public double pinnedShare;
+
+    private ExecutorService executor;
+    private int[][] queryMillis;
+    private boolean[][] pinnedQuery;
+    private int[] upstreamMillis;
+    private Object[] connections;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(Seeds.SEED);
+        queryMillis = new int[requests][];
+        pinnedQuery = new boolean[requests][];
+        upstreamMillis = new int[requests];
+        connections = new Object[requests];
+        for (int i = 0; i < requests; i++) {
+            int queries = 2 + random.nextInt(2);
+            queryMillis[i] = new int[queries];
+            pinnedQuery[i] = new boolean[queries];
+            for (int q = 0; q < queries; q++) {
+                queryMillis[i][q] = 2 + random.nextInt(9);
+                pinnedQuery[i][q] = random.nextDouble() < pinnedShare;
+            }
+            upstreamMillis[i] = random.nextInt(10) == 0 ? 100 + random.nextInt(301) : 0;
+            connections[i] = new Object();
+        }
+        executor = threads.equals("virtual") ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(PLATFORM_THREADS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public int burst() throws Exception {
+        List<Future<Integer>> responses = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            int request = i;
+            responses.add(executor.submit(() -> handle(request)));
+        }
+        int checksum = 0;
+        for (Future<Integer> response : responses) {
+            checksum += response.get();
+        }
+        return checksum;
+    }
+
+    private int handle(int request) throws Exception {
+        for (int q = 0; q < queryMillis[request].length; q++) {
+            if (pinnedQuery[request][q]) {
+                // one monitor per request: no contention, only the pinning
+                synchronized (connections[request]) {
+                    Thread.sleep(queryMillis[request][q]);
+                }
+            } else {
+                Thread.sleep(queryMillis[request][q]);
+            }
+        }
+        Thread.sleep(1);
+        if (upstreamMillis[request] > 0) {
+            Thread.sleep(upstreamMillis[request]);
+        }
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(("request-" + request).getBytes(StandardCharsets.UTF_8));
+        return digest[0];
+    }
+}
@@ -4,9 +4,12 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface PatientDocumentRepo extends JpaRepository<PatientDocument, Long> {
 
     List<PatientDocument> findAllByPatientPhoneNumber(String phoneNumber);
+
+    Optional<PatientDocument> findByUuid(String uuid);
 }
\ No newline at end of file
@@ -2,12 +2,14 @@ package com.shrihari.axios.Document;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
 import java.util.UUID;
@@ -19,6 +21,9 @@ public class PatientDocumentService {
     @Autowired
     private PatientDocumentRepo repo;
 
+    @Value("${assets.base-url:https://cdn.codequantum.in/healthdesk/read/}")
+    private String assetsBaseUrl;
+
     private static final String BASE_DIR =
             System.getProperty("user.home") + File.separator + "healthdesk" + File.separator + "assets" + File.separator + "documents" + File.separator;
 
@@ -27,16 +32,32 @@ public class PatientDocumentService {
 
         // Generate UUID for this file
         String uuid = UUID.randomUUID().toString();
-        String filePath = BASE_DIR + File.separator + uuid + ".pdf";
+        file.transferTo(documentPath(uuid));
+
+        return register(phoneNumber, uuid, file.getOriginalFilename(), file.getContentType());
+    }
+
+    // for files that already arrived through the chunked upload API
+    public PatientDocument saveDocument(String phoneNumber, Path uploadedFile, String fileName, String contentType) throws IOException {
+        Files.createDirectories(Paths.get(BASE_DIR));
+
+        String uuid = UUID.randomUUID().toString();
+        Files.move(uploadedFile, documentPath(uuid));
 
-        Files.write(Paths.get(filePath), file.getBytes());
+        return register(phoneNumber, uuid, fileName, contentType);
+    }
+
+    public Path documentPath(String uuid) {
+        return Paths.get(BASE_DIR, uuid + ".pdf");
+    }
 
+    private PatientDocument register(String phoneNumber, String uuid, String fileName, String contentType) {
         PatientDocument doc = new PatientDocument();
         doc.setPatientPhoneNumber(phoneNumber);
         doc.setUuid(uuid);
-        doc.setFileName(file.getOriginalFilename());
-        doc.setFileType(file.getContentType());
-        doc.setFileUrl("https://cdn.codequantum.in/healthdesk/read/document/" + uuid);
+        doc.setFileName(fileName);
+        doc.setFileType(contentType);
+        doc.setFileUrl(assetsBaseUrl + "document/" + uuid);
 
         return repo.save(doc);
     }
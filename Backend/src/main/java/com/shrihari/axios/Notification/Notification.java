@@ -34,6 +34,10 @@ public class Notification {
     private LocalDateTime createdAt;
 
     private boolean readStatus = false;
+
+    /*patient requests this notification stands for, coalesced over one window*/
+    @Column(nullable = false)
+    private int demand = 1;
 }
 
 
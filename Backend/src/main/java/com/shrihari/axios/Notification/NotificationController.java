@@ -1,11 +1,24 @@
 package com.shrihari.axios.Notification;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shrihari.axios.Pharma.model.Pharmacy;
+import com.shrihari.axios.Pharma.service.PharmacyService;
+import com.shrihari.axios.security.RouteAccess;
+import com.shrihari.axios.security.VerifiedClaims;
+import com.shrihari.axios.utils.CursorPage;
+import com.shrihari.axios.utils.JsonArrayStreamer;
+import com.shrihari.axios.utils.roles;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/healthdesk/notification")
@@ -15,6 +28,12 @@ public class NotificationController {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private PharmacyService pharmacyService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @PostMapping("/request")
     public ResponseEntity<String> requestMedicine(
             @RequestParam String medicineName,
@@ -25,7 +44,57 @@ public class NotificationController {
     }
 
     @GetMapping("/{pharmacyId}")
-    public ResponseEntity<List<Notification>> getNotifications(@PathVariable Long pharmacyId) {
+    public ResponseEntity<?> getNotifications(@PathVariable Long pharmacyId,
+                                              @RequestParam(required = false) String after,
+                                              @RequestParam(required = false) Integer limit,
+                                              @RequestParam(defaultValue = "false") boolean stream,
+                                              @RequestParam(defaultValue = "false") boolean unread,
+                                              HttpServletResponse response) throws IOException {
+        if (stream) {
+            JsonArrayStreamer.writeAll(objectMapper, response, sink -> notificationService.forEachNotification(pharmacyId, sink));
+            return null;
+        }
+        if (after != null || limit != null || unread) {
+            try {
+                return ResponseEntity.ok(notificationService.getNotificationsPage(pharmacyId, after, limit == null ? CursorPage.MAX_LIMIT : limit, unread));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        }
         return ResponseEntity.ok(notificationService.getAllNotifications(pharmacyId));
     }
+
+    @GetMapping("/{pharmacyId}/unread")
+    @RouteAccess(roles.ROLES.Pharmacist)
+    public ResponseEntity<Map<String, Long>> getUnreadCount(@PathVariable Long pharmacyId,
+                                                            @RequestAttribute(VerifiedClaims.ATTRIBUTE) VerifiedClaims claims) {
+        HttpStatus denied = denied(claims, pharmacyId);
+        if (denied != null) {
+            return ResponseEntity.status(denied).build();
+        }
+        return ResponseEntity.ok(Map.of("unread", notificationService.unreadCount(pharmacyId)));
+    }
+
+    /* body: ids to mark read; upTo: also every notification with id <= upTo */
+    @PostMapping("/{pharmacyId}/read")
+    @RouteAccess(roles.ROLES.Pharmacist)
+    public ResponseEntity<Map<String, Long>> markRead(@PathVariable Long pharmacyId,
+                                                      @RequestBody(required = false) List<Long> ids,
+                                                      @RequestParam(required = false) Long upTo,
+                                                      @RequestAttribute(VerifiedClaims.ATTRIBUTE) VerifiedClaims claims) {
+        HttpStatus denied = denied(claims, pharmacyId);
+        if (denied != null) {
+            return ResponseEntity.status(denied).build();
+        }
+        return ResponseEntity.ok(Map.of("unread", notificationService.markRead(pharmacyId, ids, upTo)));
+    }
+
+    // the route table checks the role; only the pharmacy's own account may read or clear its count
+    private HttpStatus denied(VerifiedClaims claims, Long pharmacyId) {
+        Optional<Pharmacy> pharmacy = pharmacyService.getPharmacyById(pharmacyId);
+        if (pharmacy.isEmpty()) {
+            return HttpStatus.NOT_FOUND;
+        }
+        return claims.isSubject(pharmacy.get().getEmail()) ? null : HttpStatus.UNAUTHORIZED;
+    }
 }
@@ -0,0 +1,13 @@
+package com.shrihari.axios.Notification;
+
+import java.time.LocalDateTime;
+
+/* what a pharmacy dashboard receives on /user/queue/notifications */
+public record NotificationEvent(Long id, Long pharmacyId, Long medicineId, String medicineName, String message,
+                                int demand, LocalDateTime createdAt, long unread) {
+
+    public static NotificationEvent of(Notification notification, long unread) {
+        return new NotificationEvent(notification.getId(), notification.getPharmacy().getId(), notification.getMedicine().getId(),
+                notification.getMedicine().getName(), notification.getMessage(), notification.getDemand(), notification.getCreatedAt(), unread);
+    }
+}
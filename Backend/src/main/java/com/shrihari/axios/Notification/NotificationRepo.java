@@ -1,9 +1,26 @@
 package com.shrihari.axios.Notification;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface NotificationRepo extends JpaRepository<Notification, Long> {
     List<Notification> findByPharmacy_IdEquals(Long pharmacyId);
+    List<Notification> findByPharmacy_IdEqualsAndIdGreaterThanOrderByIdAsc(Long pharmacyId, Long id, Limit limit);
+    List<Notification> findByPharmacy_IdEqualsAndReadStatusFalseAndIdGreaterThanOrderByIdAsc(Long pharmacyId, Long id, Limit limit);
+    long countByPharmacy_IdEqualsAndReadStatusFalse(Long pharmacyId);
+
+    /* the number of rows that were unread, so the unread counter moves by exactly that */
+    @Modifying
+    @Query("update Notification n set n.readStatus = true where n.pharmacy.id = :pharmacyId and n.readStatus = false and n.id in :ids")
+    int markRead(@Param("pharmacyId") Long pharmacyId, @Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("update Notification n set n.readStatus = true where n.pharmacy.id = :pharmacyId and n.readStatus = false and n.id <= :upTo")
+    int markReadUpTo(@Param("pharmacyId") Long pharmacyId, @Param("upTo") Long upTo);
 }
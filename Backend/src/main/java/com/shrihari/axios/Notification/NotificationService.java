@@ -6,12 +6,25 @@ import com.shrihari.axios.Pharma.model.Pharmacy;
 import com.shrihari.axios.Pharma.repo.MedicineRepo;
 import com.shrihari.axios.Pharma.repo.PharmaRepo;
 import com.shrihari.axios.Pharma.service.PharmaInventoryService;
+import com.shrihari.axios.Pharma.service.PharmacyGeoIndex;
+import com.shrihari.axios.utils.Coalescer;
+import com.shrihari.axios.utils.Cursor;
+import com.shrihari.axios.utils.CursorPage;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
@@ -25,42 +38,149 @@ public class NotificationService {
     private PharmaRepo pharmacyRepo;
     @Autowired
     private PharmaInventoryService pharmaInventoryService;
+    @Autowired
+    private PharmacyGeoIndex geoIndex;
+    @Autowired
+    private UnreadCounter unreadCounter;
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    static final String DESTINATION = "/queue/notifications";
+
+    record DemandKey(Long pharmacyId, Long medicineId) {
+    }
+
+    record Demand(Pharmacy pharmacy, Medicine medicine) {
+    }
+
+    private final Coalescer<DemandKey, Demand> requests = new Coalescer<>();
 
     public void createNotification(Pharmacy pharmacy, Medicine medicine, String message) {
+        publish(List.of(notificationRepo.save(build(pharmacy, medicine, message))));
+    }
+
+    private static Notification build(Pharmacy pharmacy, Medicine medicine, String message) {
         Notification notification = new Notification();
         notification.setPharmacy(pharmacy);
         notification.setMedicine(medicine);
         notification.setMessage(message);
         notification.setReadStatus(false);
         notification.setCreatedAt(LocalDateTime.now());
+        return notification;
+    }
 
-        System.out.println("done");
-        notificationRepo.save(notification);
+    /* after the rows are saved: bump each pharmacy's unread count and push the row to its dashboard */
+    private void publish(List<Notification> saved) {
+        for (Notification notification : saved) {
+            Pharmacy pharmacy = notification.getPharmacy();
+            long unread = unreadCounter.adjust(pharmacy.getId(), 1);
+            if (unread < 0) {
+                unread = unreadCount(pharmacy.getId());
+            }
+            try {
+                messagingTemplate.convertAndSendToUser(pharmacy.getEmail(), DESTINATION, NotificationEvent.of(notification, unread));
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
     }
 
+    /*
+     * Requests are only counted here. flushRequests writes one notification per pharmacy
+     * and medicine per window, carrying how many requests it stands for.
+     */
     public String notifyPharmaciesAboutMedicine(String medicineName, double lat, double lon) {
         Medicine medicine = medicineRepo.findByNameEqualsIgnoreCaseOrGenericNameEqualsIgnoreCase(medicineName, medicineName)
                 .stream().findFirst()
                 .orElseThrow(() -> new RuntimeException("Medicine not found"));
 
-        List<Pharmacy> nearbyPharmacies = pharmacyRepo.findAll().stream()
-                .peek(p -> p.setDistanceKm(pharmaInventoryService.haversine(lat, lon, p.getLatitude(), p.getLongitude())))
-                .filter(p -> p.getDistanceKm() <= 20.0)
+        List<Long> nearbyIds = geoIndex.withinRadius(lat, lon, 20.0).stream()
+                .map(PharmacyGeoIndex.Hit::pharmacyId)
                 .toList();
-
-        for (Pharmacy p : nearbyPharmacies) {
-            createNotification(
-                    p,
-                    medicine,
-                    "Patient requested " + medicine.getName() + " in your area, please update stock if available."
-            );
+        for (Pharmacy p : pharmacyRepo.findAllById(nearbyIds)) {
+            requests.add(new DemandKey(p.getId(), medicine.getId()), new Demand(p, medicine));
         }
 
         return "Nearby pharmacies have been notified about this request.";
     }
 
+    @Scheduled(fixedDelayString = "${notification.coalesce-window:PT30S}")
+    @PreDestroy
+    public void flushRequests() {
+        List<Coalescer.Entry<DemandKey, Demand>> window = requests.drain();
+        if (window.isEmpty()) {
+            return;
+        }
+        List<Notification> saved;
+        try {
+            saved = notificationRepo.saveAll(window.stream().map(entry -> {
+                Notification notification = build(entry.value().pharmacy(), entry.value().medicine(), requestMessage(entry.value().medicine(), entry.count()));
+                notification.setDemand(entry.count());
+                return notification;
+            }).toList());
+        } catch (Exception e) {
+            e.printStackTrace();
+            // nothing was written, so the requests are counted again with the next window
+            requests.putBack(window);
+            return;
+        }
+        publish(saved);
+    }
+
+    static String requestMessage(Medicine medicine, int count) {
+        return count == 1
+                ? "Patient requested " + medicine.getName() + " in your area, please update stock if available."
+                : count + " patients requested " + medicine.getName() + " in your area, please update stock if available.";
+    }
+
+    public Coalescer.Stats requestStats() {
+        return requests.stats();
+    }
+
+    public long unreadCount(Long pharmacyId) {
+        return unreadCounter.get(pharmacyId, () -> notificationRepo.countByPharmacy_IdEqualsAndReadStatusFalse(pharmacyId));
+    }
+
+    /* marks the given ids, or every notification up to and including upTo; returns the unread count left */
+    @Transactional
+    public long markRead(Long pharmacyId, Collection<Long> ids, Long upTo) {
+        int marked = 0;
+        if (ids != null && !ids.isEmpty()) {
+            marked += notificationRepo.markRead(pharmacyId, ids);
+        }
+        if (upTo != null) {
+            marked += notificationRepo.markReadUpTo(pharmacyId, upTo);
+        }
+        long unread = marked == 0 ? -1 : unreadCounter.adjust(pharmacyId, -marked);
+        return unread < 0 ? notificationRepo.countByPharmacy_IdEqualsAndReadStatusFalse(pharmacyId) : unread;
+    }
+
     public List<Notification> getAllNotifications(Long pharmacyId) {
         return notificationRepo.findByPharmacy_IdEquals(pharmacyId);
     }
+
+    public CursorPage<List<Notification>> getNotificationsPage(Long pharmacyId, String after, int limit, boolean unreadOnly) {
+        int size = CursorPage.clamp(limit);
+        List<Notification> rows = unreadOnly
+                ? notificationRepo.findByPharmacy_IdEqualsAndReadStatusFalseAndIdGreaterThanOrderByIdAsc(pharmacyId, Cursor.decodeId(after), Limit.of(size + 1))
+                : notificationRepo.findByPharmacy_IdEqualsAndIdGreaterThanOrderByIdAsc(pharmacyId, Cursor.decodeId(after), Limit.of(size + 1));
+        return CursorPage.of(rows, size, notification -> Cursor.encode(String.valueOf(notification.getId())));
+    }
+
+    @Transactional(readOnly = true)
+    public void forEachNotification(Long pharmacyId, Consumer<? super Notification> sink) {
+        long after = 0;
+        List<Notification> rows;
+        do {
+            rows = notificationRepo.findByPharmacy_IdEqualsAndIdGreaterThanOrderByIdAsc(pharmacyId, after, Limit.of(CursorPage.MAX_LIMIT));
+            rows.forEach(sink);
+            if (!rows.isEmpty()) {
+                after = rows.get(rows.size() - 1).getId();
+            }
+            entityManager.clear();
+        } while (rows.size() == CursorPage.MAX_LIMIT);
+    }
 }
 
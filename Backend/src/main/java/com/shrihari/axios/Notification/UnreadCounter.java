@@ -0,0 +1,60 @@
+package com.shrihari.axios.Notification;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/*
+ * Unread notifications per pharmacy in notification:unread:{pharmacyId}. Creating and
+ * marking read only adjust a counter that already exists; a missing one is seeded from
+ * the database on the next read. The key expires, so a count that drifted (a seed racing
+ * an insert, or Redis being unreachable during a write) is recounted within the hour.
+ */
+@Component
+public class UnreadCounter {
+
+    static final String KEY_PREFIX = "notification:unread:";
+    static final Duration TTL = Duration.ofHours(1);
+
+    // adds ARGV[1] to an existing counter, never below zero; nil when there is none
+    private static final DefaultRedisScript<Long> ADJUST = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then return nil end "
+                    + "local value = redis.call('incrby', KEYS[1], ARGV[1]) "
+                    + "if value < 0 then redis.call('set', KEYS[1], 0, 'KEEPTTL') return 0 end "
+                    + "return value", Long.class);
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    /* the new count, or -1 when it is not known without a database count */
+    public long adjust(Long pharmacyId, long delta) {
+        try {
+            Long value = redisTemplate.execute(ADJUST, List.of(KEY_PREFIX + pharmacyId), String.valueOf(delta));
+            return value == null ? -1 : value;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    public long get(Long pharmacyId, LongSupplier count) {
+        String key = KEY_PREFIX + pharmacyId;
+        try {
+            String value = redisTemplate.opsForValue().get(key);
+            if (value != null) {
+                return Long.parseLong(value);
+            }
+            long counted = count.getAsLong();
+            redisTemplate.opsForValue().setIfAbsent(key, String.valueOf(counted), TTL);
+            return counted;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return count.getAsLong();
+        }
+    }
+}
@@ -1,11 +1,17 @@
 package com.shrihari.axios.Pharma.controller;
 
 import com.shrihari.axios.Pharma.model.Medicine;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shrihari.axios.Pharma.service.MedicineSearchIndex;
 import com.shrihari.axios.Pharma.service.MedicineService;
+import com.shrihari.axios.utils.CursorPage;
+import com.shrihari.axios.utils.JsonArrayStreamer;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -16,8 +22,25 @@ public class MedicineController {
     @Autowired
     private MedicineService medicineService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping("getAll")
-    public ResponseEntity<List<Medicine>> getAll(){
+    public ResponseEntity<?> getAll(@RequestParam(required = false) String after,
+                                    @RequestParam(required = false) Integer limit,
+                                    @RequestParam(defaultValue = "false") boolean stream,
+                                    HttpServletResponse response) throws IOException {
+        if (stream) {
+            JsonArrayStreamer.writeAll(objectMapper, response, medicineService::forEachMedicine);
+            return null;
+        }
+        if (after != null || limit != null) {
+            try {
+                return ResponseEntity.ok(medicineService.getMedicinesPage(after, limit == null ? CursorPage.MAX_LIMIT : limit));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        }
         return ResponseEntity.ok(medicineService.getAllMedicines());
     }
 
@@ -52,4 +75,9 @@ public class MedicineController {
     public ResponseEntity<List<Medicine>> searchByName(@RequestParam String q) {
         return ResponseEntity.ok(medicineService.searchByName(q));
     }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<MedicineSearchIndex.Suggestion>> suggest(@RequestParam String q, @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(medicineService.suggest(q, limit));
+    }
 }
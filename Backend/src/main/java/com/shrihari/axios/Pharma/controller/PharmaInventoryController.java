@@ -1,17 +1,25 @@
 package com.shrihari.axios.Pharma.controller;
 
 
-import com.shrihari.axios.Pharma.model.Medicine;
+import com.shrihari.axios.Pharma.model.InventoryRow;
 import com.shrihari.axios.Pharma.model.Pharmacy;
-import com.shrihari.axios.Pharma.model.PharmacyInventory;
+import com.shrihari.axios.Pharma.model.StockReservation;
+import com.shrihari.axios.Pharma.service.InventoryStockService;
 import com.shrihari.axios.Pharma.service.MedicineService;
 import com.shrihari.axios.Pharma.service.PharmaInventoryService;
 import com.shrihari.axios.Pharma.service.PharmacyService;
+import com.shrihari.axios.security.RouteAccess;
+import com.shrihari.axios.security.VerifiedClaims;
+import com.shrihari.axios.utils.roles;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("healthdesk/inventory")
@@ -21,60 +29,127 @@ public class PharmaInventoryController {
     @Autowired
     private PharmaInventoryService inventoryService;
 
+    @Autowired
+    private InventoryStockService stockService;
+
     @Autowired
     private PharmacyService pharmacyService;
 
     @Autowired
     private MedicineService medicineService;
 
+    /* absolute stock count; busy counters should send deltas instead */
     @PostMapping("/alterStock")
-    public ResponseEntity<PharmacyInventory> addOrUpdateInventory(
+    public ResponseEntity<InventoryRow> addOrUpdateInventory(
             @RequestParam String email,
             @RequestParam Long medicineId,
             @RequestParam int stock) {
 
-        Pharmacy pharmacy = pharmacyService.getPharmacyByEmail(email)
-                .orElseThrow(() -> new RuntimeException("Pharmacy not found"));
-        Medicine medicine = medicineService.getMedicineById(medicineId)
-                .orElseThrow(() -> new RuntimeException("Medicine not found"));
+        Long pharmacyId = pharmacyId(email);
+        medicineService.getMedicineById(medicineId)
+                .orElseThrow(() -> new IllegalArgumentException("Medicine not found"));
+
+        stockService.setStock(pharmacyId, medicineId, stock);
+        return ResponseEntity.of(inventoryService.getInventoryRow(pharmacyId, medicineId));
+    }
+
+    /* positive delta adds stock, negative takes it if that much is unreserved (409 otherwise) */
+    @PostMapping("/adjust")
+    @RouteAccess(value = roles.ROLES.Pharmacist, owner = "email")
+    public ResponseEntity<InventoryRow> adjustStock(
+            @RequestParam String email,
+            @RequestParam Long medicineId,
+            @RequestParam int delta) {
+
+        Long pharmacyId = pharmacyId(email);
+        stockService.adjust(pharmacyId, medicineId, delta);
+        return ResponseEntity.of(inventoryService.getInventoryRow(pharmacyId, medicineId));
+    }
+
+    /* one transaction: if any delta would take more than is available, none is applied */
+    @PostMapping("/deltas")
+    @RouteAccess(value = roles.ROLES.Pharmacist, owner = "email")
+    public ResponseEntity<Map<String, Integer>> applyDeltas(
+            @RequestParam String email,
+            @RequestBody List<InventoryStockService.Delta> deltas) {
+
+        int applied = stockService.applyBatch(pharmacyId(email), deltas);
+        return ResponseEntity.ok(Map.of("applied", applied));
+    }
 
-        PharmacyInventory inventory = PharmacyInventory.builder()
-                .pharmacy(pharmacy)
-                .medicine(medicine)
-                .stock(stock)
-                .build();
+    @PostMapping("/reserve")
+    @RouteAccess(value = roles.ROLES.Pharmacist, owner = "email")
+    public ResponseEntity<StockReservation> reserve(
+            @RequestParam String email,
+            @RequestParam Long medicineId,
+            @RequestParam int quantity,
+            @RequestParam(required = false) Long ttlSeconds) {
+
+        return ResponseEntity.ok(stockService.reserve(pharmacyId(email), medicineId, quantity,
+                ttlSeconds == null ? null : Duration.ofSeconds(ttlSeconds)));
+    }
+
+    /* a reservation of another pharmacy is reported as not found, like one that is gone */
+    @PostMapping("/reservations/{id}/release")
+    @RouteAccess(roles.ROLES.Pharmacist)
+    public ResponseEntity<Void> releaseReservation(@PathVariable Long id, @RequestAttribute(VerifiedClaims.ATTRIBUTE) VerifiedClaims claims) {
+        return stockService.release(id, pharmacyId(claims.subject())) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
+    @PostMapping("/reservations/{id}/commit")
+    @RouteAccess(roles.ROLES.Pharmacist)
+    public ResponseEntity<Void> commitReservation(@PathVariable Long id, @RequestAttribute(VerifiedClaims.ATTRIBUTE) VerifiedClaims claims) {
+        return stockService.commit(id, pharmacyId(claims.subject())) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
+    private Long pharmacyId(String email) {
+        return pharmacyService.getPharmacyByEmail(email).map(Pharmacy::getId)
+                .orElseThrow(() -> new IllegalArgumentException("Pharmacy not found"));
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<String> conflict(IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
 
-        return ResponseEntity.ok(inventoryService.addOrUpdateInventory(inventory));
+    @ExceptionHandler({IllegalArgumentException.class, DataIntegrityViolationException.class})
+    public ResponseEntity<String> badRequest(Exception e) {
+        return ResponseEntity.badRequest().body(e instanceof DataIntegrityViolationException ? "Unknown medicine" : e.getMessage());
     }
 
 
+    /* the existence check only runs when the join found nothing */
     @GetMapping("/pharmacy/{email}")
-    public ResponseEntity<List<PharmacyInventory>> getInventoryByPharmacy(@PathVariable String email) {
-        Pharmacy pharmacy = pharmacyService.getPharmacyByEmail(email)
-                .orElseThrow(() -> new RuntimeException("Pharmacy not found"));
-        return ResponseEntity.ok(inventoryService.getInventoryByPharmacy(pharmacy));
+    public ResponseEntity<List<InventoryRow>> getInventoryByPharmacy(@PathVariable String email) {
+        List<InventoryRow> rows = inventoryService.getInventoryByPharmacyEmail(email);
+        if (rows.isEmpty() && pharmacyService.getPharmacyByEmail(email).isEmpty()) {
+            throw new RuntimeException("Pharmacy not found");
+        }
+        return ResponseEntity.ok(rows);
     }
 
 
     @GetMapping("/medicine/{medicineId}")
-    public ResponseEntity<List<PharmacyInventory>> getInventoryByMedicine(@PathVariable Long medicineId) {
-        Medicine medicine = medicineService.getMedicineById(medicineId)
-                .orElseThrow(() -> new RuntimeException("Medicine not found"));
-        return ResponseEntity.ok(inventoryService.getInventoryByMedicine(medicine));
+    public ResponseEntity<List<InventoryRow>> getInventoryByMedicine(@PathVariable Long medicineId) {
+        List<InventoryRow> rows = inventoryService.getInventoryByMedicineId(medicineId);
+        if (rows.isEmpty() && medicineService.getMedicineById(medicineId).isEmpty()) {
+            throw new RuntimeException("Medicine not found");
+        }
+        return ResponseEntity.ok(rows);
     }
 
     @GetMapping("/medicine")
-    public ResponseEntity<List<PharmacyInventory>> getInventoryByMedicineName(@RequestParam String name){
+    public ResponseEntity<List<InventoryRow>> getInventoryByMedicineName(@RequestParam String name){
         return ResponseEntity.ok(inventoryService.getInventoryByMedicineName(name));
     }
 
     @GetMapping("/pharmacy")
-    public ResponseEntity<List<PharmacyInventory>> getInventoryByPharmacyName(@RequestParam String name){
+    public ResponseEntity<List<InventoryRow>> getInventoryByPharmacyName(@RequestParam String name){
         return ResponseEntity.ok(inventoryService.getInventoryByPharmacyName(name));
     }
 
     @GetMapping("/nearest")
-    public ResponseEntity<List<PharmacyInventory>> getNearestPharmacies(
+    public ResponseEntity<List<InventoryRow>> getNearestPharmacies(
             @RequestParam String medicineName,
             @RequestParam double lat,
             @RequestParam double lon) {
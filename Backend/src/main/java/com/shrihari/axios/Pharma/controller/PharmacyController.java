@@ -1,12 +1,17 @@
 package com.shrihari.axios.Pharma.controller;
 
 import com.shrihari.axios.Pharma.model.Pharmacy;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.shrihari.axios.Pharma.service.PharmacyService;
+import com.shrihari.axios.utils.CursorPage;
+import com.shrihari.axios.utils.JsonArrayStreamer;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -17,6 +22,9 @@ public class PharmacyController {
     @Autowired
     private PharmacyService pharmacyService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @PostMapping("/add")
     public ResponseEntity<?> addPharmacy(@RequestBody Pharmacy pharmacy) {
         try {
@@ -30,7 +38,21 @@ public class PharmacyController {
     }
 
     @GetMapping("getAll")
-    public ResponseEntity<List<Pharmacy>> getAllPharmacies() {
+    public ResponseEntity<?> getAllPharmacies(@RequestParam(required = false) String after,
+                                              @RequestParam(required = false) Integer limit,
+                                              @RequestParam(defaultValue = "false") boolean stream,
+                                              HttpServletResponse response) throws IOException {
+        if (stream) {
+            JsonArrayStreamer.writeAll(objectMapper, response, pharmacyService::forEachPharmacy);
+            return null;
+        }
+        if (after != null || limit != null) {
+            try {
+                return ResponseEntity.ok(pharmacyService.getPharmaciesPage(after, limit == null ? CursorPage.MAX_LIMIT : limit));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        }
         return ResponseEntity.ok(pharmacyService.getAllPharmacies());
     }
 
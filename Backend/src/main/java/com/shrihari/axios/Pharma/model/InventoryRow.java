@@ -0,0 +1,22 @@
+package com.shrihari.axios.Pharma.model;
+
+import java.time.LocalDateTime;
+
+/*
+ * One inventory line as the inventory endpoints return it: the ids and names a client
+ * needs instead of the full pharmacy and medicine entities. Built directly by the JPQL
+ * constructor expressions in PharmaInventoryRepo.
+ */
+public record InventoryRow(Long inventoryId, Long pharmacyId, String pharmacyName, Long medicineId, String medicineName,
+                           String genericName, String strength, String form, int stock, LocalDateTime updatedAt,
+                           Double distanceKm) {
+
+    public InventoryRow(Long inventoryId, Long pharmacyId, String pharmacyName, Long medicineId, String medicineName,
+                        String genericName, String strength, String form, int stock, LocalDateTime updatedAt) {
+        this(inventoryId, pharmacyId, pharmacyName, medicineId, medicineName, genericName, strength, form, stock, updatedAt, null);
+    }
+
+    public InventoryRow withDistance(double km) {
+        return new InventoryRow(inventoryId, pharmacyId, pharmacyName, medicineId, medicineName, genericName, strength, form, stock, updatedAt, km);
+    }
+}
@@ -1,5 +1,6 @@
 package com.shrihari.axios.Pharma.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -12,6 +13,7 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Table(name = "pharmacies")
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Pharmacy {
 
     @Id
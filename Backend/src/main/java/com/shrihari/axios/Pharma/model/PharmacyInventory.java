@@ -13,24 +13,31 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Table(name = "pharmacy_inventory")
+/*one row per pharmacy and medicine; stock changes are applied in place by InventoryStockService*/
+@Table(name = "pharmacy_inventory", uniqueConstraints =
+        @UniqueConstraint(name = "uk_inventory_pharmacy_medicine", columnNames = {"pharmacy_id", "medicine_id"}))
 public class PharmacyInventory {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    /*lazy: list endpoints read InventoryRow projections and never load these*/
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "pharmacy_id", nullable = false)
     private Pharmacy pharmacy;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "medicine_id", nullable = false)
     private Medicine medicine;
 
     @Column(nullable = false)
     private int stock;
 
+    /*units held by open reservations; stock - reserved can be sold or reserved*/
+    @Column(nullable = false)
+    private int reserved;
+
     @Builder.Default
     @Column(name = "updatedat")
     private LocalDateTime updatedAt = LocalDateTime.now();
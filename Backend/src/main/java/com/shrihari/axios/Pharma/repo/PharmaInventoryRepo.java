@@ -1,20 +1,42 @@
 package com.shrihari.axios.Pharma.repo;
 
-import com.shrihari.axios.Pharma.model.Medicine;
-import com.shrihari.axios.Pharma.model.Pharmacy;
+import com.shrihari.axios.Pharma.model.InventoryRow;
 import com.shrihari.axios.Pharma.model.PharmacyInventory;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+/*
+ * The read queries select InventoryRow straight from one join of inventory, pharmacy and
+ * medicine: a single statement per call, however many rows or distinct pharmacies and
+ * medicines they touch, and no entities left in the persistence context.
+ */
 @Repository
 public interface PharmaInventoryRepo extends JpaRepository<PharmacyInventory,Long> {
-    List<PharmacyInventory> findByPharmacy(Pharmacy pharmacy);
 
-    List<PharmacyInventory> findByMedicine(Medicine medicine);
+    String ROW = "select new com.shrihari.axios.Pharma.model.InventoryRow(i.id, p.id, p.pharmaName, m.id, m.name, m.genericName, m.strength, m.form, i.stock, i.updatedAt)"
+            + " from PharmacyInventory i join i.pharmacy p join i.medicine m ";
 
-    List<PharmacyInventory> findByMedicine_NameOrMedicine_GenericNameContainingIgnoreCase(String name, String name1);
+    @Query(ROW + "where upper(p.email) = upper(:email) order by m.name, i.id")
+    List<InventoryRow> findRowsByPharmacyEmail(@Param("email") String email);
 
-    List<PharmacyInventory> findByPharmacy_PharmaNameContainingIgnoreCase(String name);
+    @Query(ROW + "where m.id = :medicineId order by p.pharmaName, i.id")
+    List<InventoryRow> findRowsByMedicineId(@Param("medicineId") Long medicineId);
+
+    @Query(ROW + "where m.id in :medicineIds order by m.name, p.pharmaName, i.id")
+    List<InventoryRow> findRowsByMedicineIds(@Param("medicineIds") Collection<Long> medicineIds);
+
+    @Query(ROW + "where upper(p.pharmaName) like upper(concat('%', :name, '%')) order by p.pharmaName, m.name, i.id")
+    List<InventoryRow> findRowsByPharmacyName(@Param("name") String name);
+
+    @Query(ROW + "where p.id = :pharmacyId and m.id = :medicineId")
+    Optional<InventoryRow> findRow(@Param("pharmacyId") Long pharmacyId, @Param("medicineId") Long medicineId);
+
+    @Query(ROW + "where m.id = :medicineId and p.id in :pharmacyIds and i.stock > i.reserved")
+    List<InventoryRow> findInStockRows(@Param("medicineId") Long medicineId, @Param("pharmacyIds") Collection<Long> pharmacyIds);
 }
@@ -2,6 +2,7 @@ package com.shrihari.axios.Pharma.repo;
 
 
 import com.shrihari.axios.Pharma.model.Pharmacy;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -14,4 +15,5 @@ public interface PharmaRepo extends JpaRepository<Pharmacy,Long> {
     boolean existsByEmailIgnoreCase(String email);
     List<Pharmacy> findByPharmaNameContainingIgnoreCase(String name);
     Optional<Pharmacy> findByEmailIgnoreCase(String email);
+    List<Pharmacy> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
 }
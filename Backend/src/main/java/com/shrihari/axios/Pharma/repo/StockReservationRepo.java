@@ -0,0 +1,23 @@
+package com.shrihari.axios.Pharma.repo;
+
+import com.shrihari.axios.Pharma.model.StockReservation;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StockReservationRepo extends JpaRepository<StockReservation, Long> {
+
+    List<StockReservation> findByExpiresAtBeforeOrderByExpiresAtAsc(LocalDateTime now, Limit limit);
+
+    /* 1 for exactly one of any concurrent callers, so a reservation is given back once */
+    @Modifying
+    @Query("delete from StockReservation r where r.id = :id")
+    int deleteReservation(@Param("id") Long id);
+}
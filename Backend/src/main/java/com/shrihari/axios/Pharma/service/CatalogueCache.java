@@ -0,0 +1,165 @@
+package com.shrihari.axios.Pharma.service;
+
+import com.google.gson.Gson;
+import com.shrihari.axios.Pharma.model.Medicine;
+import com.shrihari.axios.Pharma.model.Pharmacy;
+import com.shrihari.axios.utils.LruCache;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/*
+ * In-process caches for medicine and pharmacy lookups. A write evicts the changed entry
+ * here and publishes it on catalogue:invalidate, so the other nodes evict it too and
+ * refresh their search and geo indexes through the listeners the services register.
+ * Pub/sub is fire-and-forget: the ttl bounds how long a node that missed a message can
+ * serve the old row.
+ */
+@Component
+public class CatalogueCache {
+
+    static final String CHANNEL = "catalogue:invalidate";
+
+    public enum Kind {
+        MEDICINE, PHARMACY
+    }
+
+    record Invalidation(String origin, Kind kind, Long id) {
+    }
+
+    public record Stats(LruCache.Stats medicines, LruCache.Stats pharmaciesById, LruCache.Stats pharmaciesByEmail,
+                        LruCache.Stats pharmacyList, long published, long received, long publishErrors) {
+    }
+
+    private final String origin = UUID.randomUUID().toString();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong publishErrors = new AtomicLong();
+    private final List<Consumer<Long>> medicineListeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<Long>> pharmacyListeners = new CopyOnWriteArrayList<>();
+
+    private final LruCache<Long, Optional<Medicine>> medicines;
+    private final LruCache<Long, Optional<Pharmacy>> pharmaciesById;
+    private final LruCache<String, Optional<Pharmacy>> pharmaciesByEmail;
+    private final LruCache<Boolean, List<Pharmacy>> pharmacyList;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+    @Autowired
+    private Gson gson;
+
+    public CatalogueCache(@Value("${catalogue-cache.max-entries:10000}") int maxEntries,
+                          @Value("${catalogue-cache.ttl:PT10M}") Duration ttl) {
+        this.medicines = new LruCache<>(maxEntries, ttl);
+        this.pharmaciesById = new LruCache<>(maxEntries, ttl);
+        this.pharmaciesByEmail = new LruCache<>(maxEntries, ttl);
+        this.pharmacyList = new LruCache<>(1, ttl);
+    }
+
+    @PostConstruct
+    void subscribe() {
+        listenerContainer.addMessageListener((message, pattern) -> receive(message.getBody()), new ChannelTopic(CHANNEL));
+    }
+
+    public Optional<Medicine> medicine(Long id, Function<Long, Optional<Medicine>> loader) {
+        return id == null ? Optional.empty() : medicines.get(id, loader);
+    }
+
+    public Optional<Pharmacy> pharmacy(Long id, Function<Long, Optional<Pharmacy>> loader) {
+        return id == null ? Optional.empty() : pharmaciesById.get(id, loader);
+    }
+
+    public Optional<Pharmacy> pharmacyByEmail(String email, Function<String, Optional<Pharmacy>> loader) {
+        return email == null ? Optional.empty() : pharmaciesByEmail.get(email.toLowerCase(Locale.ROOT), loader);
+    }
+
+    public List<Pharmacy> allPharmacies(Supplier<List<Pharmacy>> loader) {
+        return pharmacyList.get(Boolean.TRUE, all -> List.copyOf(loader.get()));
+    }
+
+    /* called after the write is committed */
+    public void medicineChanged(Long id) {
+        evict(Kind.MEDICINE, id);
+        publish(new Invalidation(origin, Kind.MEDICINE, id));
+    }
+
+    public void pharmacyChanged(Long id) {
+        evict(Kind.PHARMACY, id);
+        publish(new Invalidation(origin, Kind.PHARMACY, id));
+    }
+
+    // run when another node changed a row, after its cache entries are gone
+    public void onRemoteMedicineChange(Consumer<Long> listener) {
+        medicineListeners.add(listener);
+    }
+
+    public void onRemotePharmacyChange(Consumer<Long> listener) {
+        pharmacyListeners.add(listener);
+    }
+
+    private void evict(Kind kind, Long id) {
+        if (kind == Kind.MEDICINE) {
+            medicines.invalidate(id);
+        } else {
+            // pharmacies are looked up by id, email and as a list; writes are rare enough to drop them all
+            pharmaciesById.invalidateAll();
+            pharmaciesByEmail.invalidateAll();
+            pharmacyList.invalidateAll();
+        }
+    }
+
+    private void publish(Invalidation invalidation) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, gson.toJson(invalidation));
+            published.incrementAndGet();
+        } catch (Exception e) {
+            publishErrors.incrementAndGet();
+            e.printStackTrace();
+        }
+    }
+
+    void receive(byte[] body) {
+        Invalidation invalidation;
+        try {
+            invalidation = gson.fromJson(new String(body, StandardCharsets.UTF_8), Invalidation.class);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return;
+        }
+        if (invalidation == null || invalidation.kind() == null || origin.equals(invalidation.origin())) {
+            return;
+        }
+        received.incrementAndGet();
+        evict(invalidation.kind(), invalidation.id());
+        for (Consumer<Long> listener : invalidation.kind() == Kind.MEDICINE ? medicineListeners : pharmacyListeners) {
+            try {
+                listener.accept(invalidation.id());
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(medicines.stats(), pharmaciesById.stats(), pharmaciesByEmail.stats(), pharmacyList.stats(),
+                published.get(), received.get(), publishErrors.get());
+    }
+}
@@ -0,0 +1,208 @@
+package com.shrihari.axios.Pharma.service;
+
+import com.shrihari.axios.Pharma.model.StockReservation;
+import com.shrihari.axios.Pharma.repo.StockReservationRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Stock changes as single statements on the (pharmacy_id, medicine_id) row, so
+ * concurrent callers never read, modify and write back a count. Increments and absolute
+ * sets are upserts on the unique key. Decrements and reservations are updates guarded by
+ * "stock - reserved >= quantity": when the guard fails no row changes and the caller gets
+ * an IllegalStateException. A reservation holds units in the reserved column until it is
+ * released, committed as a sale, or expires and is swept back.
+ */
+@Service
+public class InventoryStockService {
+
+    static final int MAX_BATCH = 1000;
+    static final int SWEEP_BATCH = 500;
+
+    private static final String ADD = "insert into pharmacy_inventory (pharmacy_id, medicine_id, stock, reserved, updatedat) values (?, ?, ?, 0, ?)"
+            + " on duplicate key update stock = stock + ?, updatedat = ?";
+    // never below what open reservations already hold
+    private static final String SET = "insert into pharmacy_inventory (pharmacy_id, medicine_id, stock, reserved, updatedat) values (?, ?, ?, 0, ?)"
+            + " on duplicate key update stock = greatest(?, reserved), updatedat = ?";
+    private static final String TAKE = "update pharmacy_inventory set stock = stock - ?, updatedat = ?"
+            + " where pharmacy_id = ? and medicine_id = ? and stock - reserved >= ?";
+    private static final String RESERVE = "update pharmacy_inventory set reserved = reserved + ?, updatedat = ?"
+            + " where pharmacy_id = ? and medicine_id = ? and stock - reserved >= ?";
+    private static final String UNRESERVE = "update pharmacy_inventory set reserved = reserved - ?"
+            + " where pharmacy_id = ? and medicine_id = ?";
+    private static final String CONSUME = "update pharmacy_inventory set stock = stock - ?, reserved = reserved - ?, updatedat = ?"
+            + " where pharmacy_id = ? and medicine_id = ?";
+
+    public record Delta(Long medicineId, int delta) {
+    }
+
+    public record Stats(long deltas, long batches, long conflicts, long reservations, long released, long committed, long expired) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StockReservationRepo reservationRepo;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${inventory.reservation.ttl:PT15M}")
+    private Duration reservationTtl;
+    @Value("${inventory.reservation.max-ttl:PT2H}")
+    private Duration maxReservationTtl;
+
+    private final AtomicLong deltas = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+    private final AtomicLong reservations = new AtomicLong();
+    private final AtomicLong released = new AtomicLong();
+    private final AtomicLong committed = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+
+    @Transactional
+    public void setStock(Long pharmacyId, Long medicineId, int stock) {
+        if (stock < 0) {
+            throw new IllegalArgumentException("Stock cannot be negative");
+        }
+        Timestamp now = now();
+        jdbcTemplate.update(SET, pharmacyId, medicineId, stock, now, stock, now);
+    }
+
+    @Transactional
+    public void adjust(Long pharmacyId, Long medicineId, int delta) {
+        apply(pharmacyId, medicineId, delta, now());
+    }
+
+    /*
+     * All deltas or none. Deltas for the same medicine are summed, and rows are touched in
+     * medicine id order so two batches for one pharmacy cannot deadlock on each other.
+     */
+    @Transactional
+    public int applyBatch(Long pharmacyId, List<Delta> batch) {
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+        if (batch.size() > MAX_BATCH) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH + " deltas per batch");
+        }
+        Map<Long, Integer> merged = new TreeMap<>();
+        for (Delta delta : batch) {
+            if (delta == null || delta.medicineId() == null) {
+                throw new IllegalArgumentException("Every delta needs a medicineId");
+            }
+            merged.merge(delta.medicineId(), delta.delta(), Math::addExact);
+        }
+        Timestamp now = now();
+        merged.forEach((medicineId, delta) -> apply(pharmacyId, medicineId, delta, now));
+        batches.incrementAndGet();
+        return merged.size();
+    }
+
+    private void apply(Long pharmacyId, Long medicineId, int delta, Timestamp now) {
+        if (delta > 0) {
+            jdbcTemplate.update(ADD, pharmacyId, medicineId, delta, now, delta, now);
+        } else if (delta < 0 && jdbcTemplate.update(TAKE, -delta, now, pharmacyId, medicineId, -delta) == 0) {
+            conflicts.incrementAndGet();
+            throw new IllegalStateException("Insufficient stock for medicine " + medicineId);
+        }
+        deltas.incrementAndGet();
+    }
+
+    @Transactional
+    public StockReservation reserve(Long pharmacyId, Long medicineId, int quantity, Duration ttl) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        if (ttl != null && (ttl.isNegative() || ttl.isZero())) {
+            throw new IllegalArgumentException("Reservation ttl must be positive");
+        }
+        Duration hold = ttl == null ? reservationTtl : ttl.compareTo(maxReservationTtl) > 0 ? maxReservationTtl : ttl;
+        if (jdbcTemplate.update(RESERVE, quantity, now(), pharmacyId, medicineId, quantity) == 0) {
+            conflicts.incrementAndGet();
+            throw new IllegalStateException("Insufficient stock for medicine " + medicineId);
+        }
+        reservations.incrementAndGet();
+        return reservationRepo.save(StockReservation.builder()
+                .pharmacyId(pharmacyId)
+                .medicineId(medicineId)
+                .quantity(quantity)
+                .expiresAt(LocalDateTime.now().plus(hold))
+                .build());
+    }
+
+    /* false when the reservation was already released, committed or swept, or belongs to another pharmacy */
+    @Transactional
+    public boolean release(Long reservationId, Long pharmacyId) {
+        StockReservation reservation = reservationRepo.findById(reservationId).orElse(null);
+        if (!heldBy(reservation, pharmacyId) || reservationRepo.deleteReservation(reservationId) == 0) {
+            return false;
+        }
+        jdbcTemplate.update(UNRESERVE, reservation.getQuantity(), reservation.getPharmacyId(), reservation.getMedicineId());
+        released.incrementAndGet();
+        return true;
+    }
+
+    /* the reserved units were sold: they leave both stock and reserved */
+    @Transactional
+    public boolean commit(Long reservationId, Long pharmacyId) {
+        StockReservation reservation = reservationRepo.findById(reservationId).orElse(null);
+        if (!heldBy(reservation, pharmacyId) || reservationRepo.deleteReservation(reservationId) == 0) {
+            return false;
+        }
+        jdbcTemplate.update(CONSUME, reservation.getQuantity(), reservation.getQuantity(), now(),
+                reservation.getPharmacyId(), reservation.getMedicineId());
+        committed.incrementAndGet();
+        return true;
+    }
+
+    private static boolean heldBy(StockReservation reservation, Long pharmacyId) {
+        return reservation != null && reservation.getPharmacyId().equals(pharmacyId);
+    }
+
+    // each expired reservation is given back in its own transaction
+    @Scheduled(fixedDelayString = "${inventory.reservation.sweep-interval:PT30S}")
+    public void releaseExpired() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            for (StockReservation reservation : reservationRepo.findByExpiresAtBeforeOrderByExpiresAtAsc(LocalDateTime.now(), Limit.of(SWEEP_BATCH))) {
+                boolean swept = Boolean.TRUE.equals(transaction.execute(status -> {
+                    if (reservationRepo.deleteReservation(reservation.getId()) == 0) {
+                        return false;
+                    }
+                    jdbcTemplate.update(UNRESERVE, reservation.getQuantity(), reservation.getPharmacyId(), reservation.getMedicineId());
+                    return true;
+                }));
+                if (swept) {
+                    expired.incrementAndGet();
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(deltas.get(), batches.get(), conflicts.get(), reservations.get(), released.get(), committed.get(), expired.get());
+    }
+
+    private static Timestamp now() {
+        return Timestamp.valueOf(LocalDateTime.now());
+    }
+}
@@ -0,0 +1,291 @@
+package com.shrihari.axios.Pharma.service;
+
+import com.shrihari.axios.Pharma.model.Medicine;
+import com.shrihari.axios.Pharma.repo.MedicineRepo;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/*
+ * In-memory index over brand and generic names. Every word of a name, and the whole
+ * name, is a key of a sorted map, so a prefix lookup is a range scan over the matching
+ * keys only. Trigrams of each word ("^am", "amo", "mox", ...) find substring matches
+ * and typo candidates; at most MAX_CANDIDATES of those are ranked by edit distance
+ * against word prefixes, so no lookup compares the query with the whole catalogue.
+ * MedicineService keeps it in step with add, update and delete.
+ */
+@Component
+public class MedicineSearchIndex {
+
+    static final int MAX_CANDIDATES = 256;
+    static final int MAX_LIMIT = 50;
+
+    public record Suggestion(Long id, String name, String genericName, String strength, String form, int distance) {
+    }
+
+    private record Entry(Medicine medicine, String name, String genericName, Set<String> words) {
+
+        Set<String> keys() {
+            Set<String> keys = new LinkedHashSet<>(words);
+            keys.add(name);
+            if (!genericName.isEmpty()) {
+                keys.add(genericName);
+            }
+            return keys;
+        }
+    }
+
+    private record Ranked(Entry entry, int score, int distance) {
+    }
+
+    private static final Comparator<Ranked> RANKING = Comparator.comparingInt(Ranked::score)
+            .thenComparingInt(r -> r.entry().name().length())
+            .thenComparing(r -> r.entry().name());
+
+    @Autowired
+    private MedicineRepo medicineRepo;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, Set<Long>> keys = new ConcurrentSkipListMap<>();
+    private final Map<String, Set<Long>> trigrams = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void load() {
+        medicineRepo.findAll().forEach(this::put);
+    }
+
+    public void put(Medicine medicine) {
+        if (medicine == null || medicine.getId() == null) {
+            return;
+        }
+        remove(medicine.getId());
+        String name = normalize(medicine.getName());
+        String genericName = normalize(medicine.getGenericName());
+        Set<String> words = new LinkedHashSet<>();
+        for (String text : List.of(name, genericName)) {
+            for (String word : text.split(" ")) {
+                if (!word.isEmpty()) {
+                    words.add(word);
+                }
+            }
+        }
+        Entry entry = new Entry(medicine, name, genericName, words);
+        entries.put(medicine.getId(), entry);
+        for (String key : entry.keys()) {
+            keys.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(medicine.getId());
+        }
+        for (String word : words) {
+            for (String trigram : trigrams(word)) {
+                trigrams.computeIfAbsent(trigram, k -> ConcurrentHashMap.newKeySet()).add(medicine.getId());
+            }
+        }
+    }
+
+    public void remove(Long id) {
+        Entry previous = entries.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String key : previous.keys()) {
+            Set<Long> ids = keys.get(key);
+            if (ids != null) {
+                ids.remove(id);
+            }
+        }
+        for (String word : previous.words()) {
+            for (String trigram : trigrams(word)) {
+                Set<Long> ids = trigrams.get(trigram);
+                if (ids != null) {
+                    ids.remove(id);
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /*
+     * Autocomplete: names with a word starting with query first (whole-word matches before
+     * longer words), then names whose words are within a small edit distance of it.
+     */
+    public List<Suggestion> suggest(String query, int limit) {
+        String q = normalize(query);
+        int size = Math.max(1, Math.min(limit, MAX_LIMIT));
+        if (q.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Ranked> ranked = new HashMap<>();
+        for (Map.Entry<String, Set<Long>> match : keys.subMap(q, true, q + Character.MAX_VALUE, false).entrySet()) {
+            int score = match.getKey().equals(q) ? 0 : 1;
+            for (Long id : match.getValue()) {
+                Entry entry = entries.get(id);
+                if (entry != null) {
+                    ranked.merge(id, new Ranked(entry, score, 0), (a, b) -> a.score() <= b.score() ? a : b);
+                }
+            }
+            if (ranked.size() >= MAX_CANDIDATES) {
+                break;
+            }
+        }
+        int maxDistance = maxDistance(q);
+        if (ranked.size() < size && maxDistance > 0) {
+            for (Long id : closestByTrigrams(q)) {
+                Entry entry = entries.get(id);
+                if (entry == null || ranked.containsKey(id)) {
+                    continue;
+                }
+                int best = maxDistance + 1;
+                for (String word : entry.words()) {
+                    best = Math.min(best, prefixDistance(q, word, maxDistance));
+                }
+                if (best <= maxDistance) {
+                    ranked.put(id, new Ranked(entry, 1 + 2 * best, best));
+                }
+            }
+        }
+        return ranked.values().stream()
+                .sorted(RANKING)
+                .limit(size)
+                .map(r -> new Suggestion(r.entry().medicine().getId(), r.entry().medicine().getName(), r.entry().medicine().getGenericName(),
+                        r.entry().medicine().getStrength(), r.entry().medicine().getForm(), r.distance()))
+                .toList();
+    }
+
+    /* medicines whose brand or generic name contains query, exact and prefix matches first */
+    public List<Medicine> search(String query) {
+        String q = normalize(query);
+        List<Ranked> ranked = new ArrayList<>();
+        for (Entry entry : containing(q)) {
+            int score;
+            if (entry.name().equals(q) || entry.genericName().equals(q)) {
+                score = 0;
+            } else if (entry.name().startsWith(q) || entry.genericName().startsWith(q)) {
+                score = 1;
+            } else if (entry.name().contains(q) || entry.genericName().contains(q)) {
+                score = entry.words().stream().anyMatch(word -> word.startsWith(q)) ? 2 : 3;
+            } else {
+                continue;
+            }
+            ranked.add(new Ranked(entry, score, 0));
+        }
+        ranked.sort(RANKING);
+        return ranked.stream().map(r -> r.entry().medicine()).toList();
+    }
+
+    // candidates for a substring match: intersection of the postings of every query trigram
+    private Iterable<Entry> containing(String q) {
+        List<Set<Long>> postings = new ArrayList<>();
+        for (String word : q.split(" ")) {
+            for (String trigram : infixTrigrams(word)) {
+                Set<Long> ids = trigrams.get(trigram);
+                if (ids == null) {
+                    return List.of();
+                }
+                postings.add(ids);
+            }
+        }
+        if (postings.isEmpty()) {
+            // too short for trigrams: every name is a candidate
+            return entries.values();
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+        List<Entry> found = new ArrayList<>();
+        for (Long id : postings.get(0)) {
+            boolean inAll = true;
+            for (int i = 1; i < postings.size() && inAll; i++) {
+                inAll = postings.get(i).contains(id);
+            }
+            Entry entry = inAll ? entries.get(id) : null;
+            if (entry != null) {
+                found.add(entry);
+            }
+        }
+        return found;
+    }
+
+    // ids sharing the most trigrams with q, at most MAX_CANDIDATES of them
+    private List<Long> closestByTrigrams(String q) {
+        Map<Long, Integer> shared = new HashMap<>();
+        for (String word : q.split(" ")) {
+            for (String trigram : trigrams(word)) {
+                Set<Long> ids = trigrams.get(trigram);
+                if (ids != null) {
+                    for (Long id : ids) {
+                        shared.merge(id, 1, Integer::sum);
+                    }
+                }
+            }
+        }
+        return shared.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed())
+                .limit(MAX_CANDIDATES)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+
+    // "^" marks the start of a word so prefixes weigh more than matches further in
+    static List<String> trigrams(String word) {
+        return infixTrigrams("^" + word);
+    }
+
+    private static List<String> infixTrigrams(String word) {
+        List<String> grams = new ArrayList<>();
+        for (int i = 0; i + 3 <= word.length(); i++) {
+            grams.add(word.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    static int maxDistance(String q) {
+        return q.length() <= 3 ? 0 : q.length() <= 6 ? 1 : 2;
+    }
+
+    /*
+     * Levenshtein distance between q and the closest prefix of word, or max + 1 once it
+     * is certain to exceed max. Lets "paracetmo" match "paracetamol" while typing.
+     */
+    static int prefixDistance(String q, String word, int max) {
+        int[] previous = new int[word.length() + 1];
+        int[] current = new int[word.length() + 1];
+        for (int j = 0; j <= word.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= q.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= word.length(); j++) {
+                int cost = q.charAt(i - 1) == word.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        int best = max + 1;
+        for (int distance : previous) {
+            best = Math.min(best, distance);
+        }
+        return best;
+    }
+}
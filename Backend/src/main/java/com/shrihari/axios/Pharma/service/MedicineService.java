@@ -3,27 +3,73 @@ package com.shrihari.axios.Pharma.service;
 
 import com.shrihari.axios.Pharma.model.Medicine;
 import com.shrihari.axios.Pharma.repo.MedicineRepo;
+import com.shrihari.axios.utils.Cursor;
+import com.shrihari.axios.utils.CursorPage;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Service
 public class MedicineService {
     @Autowired
     private MedicineRepo medicineRepo;
+    @Autowired
+    private MedicineSearchIndex searchIndex;
+    @Autowired
+    private CatalogueCache catalogueCache;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /* keep this node's search index in step with writes made on other nodes */
+    @PostConstruct
+    void followRemoteWrites() {
+        catalogueCache.onRemoteMedicineChange(id -> medicineRepo.findById(id)
+                .ifPresentOrElse(searchIndex::put, () -> searchIndex.remove(id)));
+    }
 
     public Medicine addMedicine(Medicine medicine) {
-        return medicineRepo.save(medicine);
+        Medicine saved = medicineRepo.save(medicine);
+        searchIndex.put(saved);
+        catalogueCache.medicineChanged(saved.getId());
+        return saved;
     }
 
     public List<Medicine> getAllMedicines() {
         return medicineRepo.findAll();
     }
 
+    public CursorPage<List<Medicine>> getMedicinesPage(String after, int limit) {
+        int size = CursorPage.clamp(limit);
+        List<Medicine> rows = medicineRepo.findByIdGreaterThanOrderByIdAsc(Cursor.decodeId(after), Limit.of(size + 1));
+        return CursorPage.of(rows, size, medicine -> Cursor.encode(String.valueOf(medicine.getId())));
+    }
+
+    // walks the table in id order one page at a time, detaching each page once it is written;
+    // the transaction keeps every page in one persistence context, so clear() has something to detach
+    @Transactional(readOnly = true)
+    public void forEachMedicine(Consumer<? super Medicine> sink) {
+        long after = 0;
+        List<Medicine> rows;
+        do {
+            rows = medicineRepo.findByIdGreaterThanOrderByIdAsc(after, Limit.of(CursorPage.MAX_LIMIT));
+            rows.forEach(sink);
+            if (!rows.isEmpty()) {
+                after = rows.get(rows.size() - 1).getId();
+            }
+            entityManager.clear();
+        } while (rows.size() == CursorPage.MAX_LIMIT);
+    }
+
     public Optional<Medicine> getMedicineById(Long id) {
-        return medicineRepo.findById(id);
+        return catalogueCache.medicine(id, medicineRepo::findById);
     }
 
     public Medicine updateMedicine(Long id, Medicine updatedMedicine) {
@@ -35,15 +81,24 @@ public class MedicineService {
             medicine.setPrice(updatedMedicine.getPrice());
             medicine.setExpiryDate(updatedMedicine.getExpiryDate());
             medicine.setManufactureDate(updatedMedicine.getManufactureDate());
-            return medicineRepo.save(medicine);
+            Medicine saved = medicineRepo.save(medicine);
+            searchIndex.put(saved);
+            catalogueCache.medicineChanged(id);
+            return saved;
         }).orElseThrow(() -> new RuntimeException("Medicine not found with id: " + id));
     }
 
     public void deleteMedicine(Long id) {
         medicineRepo.deleteById(id);
+        searchIndex.remove(id);
+        catalogueCache.medicineChanged(id);
     }
 
     public List<Medicine> searchByName(String name) {
-        return medicineRepo.findByNameContainingIgnoreCaseOrGenericNameContainingIgnoreCase(name,name);
+        return searchIndex.search(name);
+    }
+
+    public List<MedicineSearchIndex.Suggestion> suggest(String query, int limit) {
+        return searchIndex.suggest(query, limit);
     }
 }
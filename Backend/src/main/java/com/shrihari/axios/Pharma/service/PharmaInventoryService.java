@@ -1,15 +1,16 @@
 package com.shrihari.axios.Pharma.service;
 
+import com.shrihari.axios.Pharma.model.InventoryRow;
 import com.shrihari.axios.Pharma.model.Medicine;
-import com.shrihari.axios.Pharma.model.Pharmacy;
-import com.shrihari.axios.Pharma.model.PharmacyInventory;
-import com.shrihari.axios.Pharma.repo.MedicineRepo;
 import com.shrihari.axios.Pharma.repo.PharmaInventoryRepo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Service
 public class PharmaInventoryService {
@@ -18,62 +19,57 @@ public class PharmaInventoryService {
     private PharmaInventoryRepo inventoryRepo;
 
     @Autowired
-    private MedicineRepo medicineRepo;
+    private PharmacyGeoIndex geoIndex;
 
-    public PharmacyInventory addOrUpdateInventory(PharmacyInventory inventory) {
-        inventory.setUpdatedAt(java.time.LocalDateTime.now());
-        return inventoryRepo.save(inventory);
+    @Autowired
+    private MedicineSearchIndex searchIndex;
+
+    static final double SEARCH_RADIUS_KM = 20.0;
+
+    public Optional<InventoryRow> getInventoryRow(Long pharmacyId, Long medicineId) {
+        return inventoryRepo.findRow(pharmacyId, medicineId);
     }
 
-    public List<PharmacyInventory> getInventoryByPharmacy(Pharmacy pharmacy) {
-        return inventoryRepo.findByPharmacy(pharmacy);
+    public List<InventoryRow> getInventoryByPharmacyEmail(String email) {
+        return inventoryRepo.findRowsByPharmacyEmail(email);
     }
 
-    public List<PharmacyInventory> getInventoryByMedicine(Medicine medicine) {
-        return inventoryRepo.findByMedicine(medicine);
+    public List<InventoryRow> getInventoryByMedicineId(Long medicineId) {
+        return inventoryRepo.findRowsByMedicineId(medicineId);
     }
 
-    public List<PharmacyInventory> findNearestPharmaciesWithMedicine(String medicineName, double lat, double lon) {
-        Medicine medicine = (Medicine) medicineRepo.findByNameContainingIgnoreCaseOrGenericNameIgnoreCase(medicineName, medicineName)
-                .stream().findFirst()
+    public List<InventoryRow> findNearestPharmaciesWithMedicine(String medicineName, double lat, double lon) {
+        // best-ranked match, exact names first
+        Medicine medicine = searchIndex.search(medicineName).stream().findFirst()
                 .orElseThrow(() -> new RuntimeException("Medicine not found"));
 
-        // check stock
-        List<PharmacyInventory> inventories = inventoryRepo.findByMedicine(medicine)
-                .stream()
-                .filter(inv -> inv.getStock() > 0)
-                .toList();
-
-        inventories.forEach(inv -> {
-            double dist = haversine(lat, lon, inv.getPharmacy().getLatitude(), inv.getPharmacy().getLongitude());
-            inv.getPharmacy().setDistanceKm(dist);
-        });
+        // only pharmacies inside the search radius, already sorted by distance
+        Map<Long, Double> distances = new LinkedHashMap<>();
+        geoIndex.withinRadius(lat, lon, SEARCH_RADIUS_KM)
+                .forEach(hit -> distances.put(hit.pharmacyId(), hit.distanceKm()));
+        if (distances.isEmpty()) {
+            return List.of();
+        }
 
-        //filter range and sort
-        return inventories.stream()
-                .filter(inv -> inv.getPharmacy().getDistanceKm() <= 20.0)
-                .sorted(Comparator.comparingDouble(inv -> inv.getPharmacy().getDistanceKm()))
+        // check stock
+        return inventoryRepo.findInStockRows(medicine.getId(), distances.keySet()).stream()
+                .map(row -> row.withDistance(distances.get(row.pharmacyId())))
+                .sorted(Comparator.comparingDouble(InventoryRow::distanceKm))
                 .toList();
     }
 
 
     // (Haversine Formula)
     public double haversine(double lat1, double lon1, double lat2, double lon2) {
-        final int R = 6371; // Earth radius in km
-        double dLat = Math.toRadians(lat2 - lat1);
-        double dLon = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(dLat/2) * Math.sin(dLat/2) +
-                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
-                        Math.sin(dLon/2) * Math.sin(dLon/2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1-a));
-        return R * c;
+        return PharmacyGeoIndex.haversine(lat1, lon1, lat2, lon2);
     }
 
-    public List<PharmacyInventory> getInventoryByMedicineName(String name) {
-        return inventoryRepo.findByMedicine_NameOrMedicine_GenericNameContainingIgnoreCase(name,name);
+    public List<InventoryRow> getInventoryByMedicineName(String name) {
+        List<Long> medicineIds = searchIndex.search(name).stream().map(Medicine::getId).toList();
+        return medicineIds.isEmpty() ? List.of() : inventoryRepo.findRowsByMedicineIds(medicineIds);
     }
 
-    public List<PharmacyInventory> getInventoryByPharmacyName(String name) {
-        return inventoryRepo.findByPharmacy_PharmaNameContainingIgnoreCase(name);
+    public List<InventoryRow> getInventoryByPharmacyName(String name) {
+        return inventoryRepo.findRowsByPharmacyName(name);
     }
 }
@@ -0,0 +1,153 @@
+package com.shrihari.axios.Pharma.service;
+
+import com.shrihari.axios.Pharma.model.Pharmacy;
+import com.shrihari.axios.Pharma.repo.PharmaRepo;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Fixed-size lat/lon grid over pharmacy locations. A radius query only visits the
+ * cells overlapping the search box, so its cost follows local density instead of
+ * the total number of pharmacies.
+ */
+@Component
+public class PharmacyGeoIndex {
+
+    static final double CELL_DEGREES = 0.1; // ~11 km of latitude
+    private static final double KM_PER_DEGREE = 111.32;
+    private static final int EARTH_RADIUS_KM = 6371;
+
+    public record Location(Long pharmacyId, double latitude, double longitude) {
+    }
+
+    public record Hit(Long pharmacyId, double distanceKm) {
+    }
+
+    @Autowired
+    private PharmaRepo pharmacyRepo;
+
+    private final Map<Long, Set<Long>> cells = new ConcurrentHashMap<>();
+    private final Map<Long, Location> locations = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void load() {
+        pharmacyRepo.findAll().forEach(this::put);
+    }
+
+    public void put(Pharmacy pharmacy) {
+        if (pharmacy == null || pharmacy.getId() == null) {
+            return;
+        }
+        Location location = new Location(pharmacy.getId(), pharmacy.getLatitude(), pharmacy.getLongitude());
+        Location previous = locations.put(location.pharmacyId(), location);
+        if (previous != null) {
+            Set<Long> cell = cells.get(cellKey(previous.latitude(), previous.longitude()));
+            if (cell != null) {
+                cell.remove(previous.pharmacyId());
+            }
+        }
+        cells.computeIfAbsent(cellKey(location.latitude(), location.longitude()), k -> ConcurrentHashMap.newKeySet())
+                .add(location.pharmacyId());
+    }
+
+    public void remove(Long pharmacyId) {
+        Location previous = locations.remove(pharmacyId);
+        if (previous != null) {
+            Set<Long> cell = cells.get(cellKey(previous.latitude(), previous.longitude()));
+            if (cell != null) {
+                cell.remove(pharmacyId);
+            }
+        }
+    }
+
+    public int size() {
+        return locations.size();
+    }
+
+    public List<Hit> withinRadius(double lat, double lon, double radiusKm) {
+        double latSpan = radiusKm / KM_PER_DEGREE;
+        double cosLat = Math.cos(Math.toRadians(lat));
+        double lonSpan = cosLat < 1e-6 ? 180 : Math.min(180, radiusKm / (KM_PER_DEGREE * cosLat));
+
+        long minLatCell = cellIndex(Math.max(-90, lat - latSpan));
+        long maxLatCell = cellIndex(Math.min(90, lat + latSpan));
+        long minLonCell = cellIndex(lon - lonSpan);
+        long maxLonCell = cellIndex(lon + lonSpan);
+        long lonCells = Math.round(360 / CELL_DEGREES);
+
+        List<Hit> hits = new ArrayList<>();
+        for (long latCell = minLatCell; latCell <= maxLatCell; latCell++) {
+            // wrap across the antimeridian without visiting a column twice
+            long span = Math.min(maxLonCell - minLonCell, lonCells - 1);
+            for (long lonCell = minLonCell; lonCell <= minLonCell + span; lonCell++) {
+                Set<Long> cell = cells.get(key(latCell, wrapLon(lonCell, lonCells)));
+                if (cell == null) {
+                    continue;
+                }
+                for (Long id : cell) {
+                    Location location = locations.get(id);
+                    if (location == null) {
+                        continue;
+                    }
+                    double distance = haversine(lat, lon, location.latitude(), location.longitude());
+                    if (distance <= radiusKm) {
+                        hits.add(new Hit(id, distance));
+                    }
+                }
+            }
+        }
+        hits.sort(Comparator.comparingDouble(Hit::distanceKm));
+        return hits;
+    }
+
+    public List<Hit> nearest(double lat, double lon, int k, double maxRadiusKm) {
+        if (k <= 0 || locations.isEmpty()) {
+            return Collections.emptyList();
+        }
+        double radius = Math.min(CELL_DEGREES * KM_PER_DEGREE, maxRadiusKm);
+        while (true) {
+            List<Hit> hits = withinRadius(lat, lon, radius);
+            if (hits.size() >= k || radius >= maxRadiusKm) {
+                return hits.size() > k ? hits.subList(0, k) : hits;
+            }
+            radius = Math.min(radius * 2, maxRadiusKm);
+        }
+    }
+
+    // (Haversine Formula)
+    public static double haversine(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
+                        Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        return EARTH_RADIUS_KM * c;
+    }
+
+    private static long cellIndex(double degrees) {
+        return (long) Math.floor(degrees / CELL_DEGREES);
+    }
+
+    private static long wrapLon(long lonCell, long lonCells) {
+        long offset = Math.round(180 / CELL_DEGREES);
+        return Math.floorMod(lonCell + offset, lonCells) - offset;
+    }
+
+    private static long cellKey(double lat, double lon) {
+        return key(cellIndex(lat), wrapLon(cellIndex(lon), Math.round(360 / CELL_DEGREES)));
+    }
+
+    private static long key(long latCell, long lonCell) {
+        return (latCell << 32) ^ (lonCell & 0xffffffffL);
+    }
+}
@@ -2,11 +2,19 @@ package com.shrihari.axios.Pharma.service;
 
 import com.shrihari.axios.Pharma.model.Pharmacy;
 import com.shrihari.axios.Pharma.repo.PharmaRepo;
+import com.shrihari.axios.utils.Cursor;
+import com.shrihari.axios.utils.CursorPage;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Service
 public class PharmacyService {
@@ -14,6 +22,22 @@ public class PharmacyService {
     @Autowired
     private PharmaRepo pharmacyRepo;
 
+    @Autowired
+    private PharmacyGeoIndex geoIndex;
+
+    @Autowired
+    private CatalogueCache catalogueCache;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /* keep this node's geo index in step with pharmacies added on other nodes */
+    @PostConstruct
+    void followRemoteWrites() {
+        catalogueCache.onRemotePharmacyChange(id -> pharmacyRepo.findById(id)
+                .ifPresentOrElse(geoIndex::put, () -> geoIndex.remove(id)));
+    }
+
     public Pharmacy addPharmacy(Pharmacy pharmacy) {
         if (pharmacy == null || pharmacy.getEmail() == null) {
             throw new IllegalArgumentException("Pharmacy or email cannot be null");
@@ -21,15 +45,38 @@ public class PharmacyService {
         if (pharmacyRepo.existsByEmailIgnoreCase(pharmacy.getEmail())) {
             throw new IllegalArgumentException("Pharmacy already exists with email: " + pharmacy.getEmail());
         }
-        return pharmacyRepo.save(pharmacy);
+        Pharmacy saved = pharmacyRepo.save(pharmacy);
+        geoIndex.put(saved);
+        catalogueCache.pharmacyChanged(saved.getId());
+        return saved;
     }
 
     public List<Pharmacy> getAllPharmacies() {
-        return pharmacyRepo.findAll();
+        return catalogueCache.allPharmacies(pharmacyRepo::findAll);
+    }
+
+    public CursorPage<List<Pharmacy>> getPharmaciesPage(String after, int limit) {
+        int size = CursorPage.clamp(limit);
+        List<Pharmacy> rows = pharmacyRepo.findByIdGreaterThanOrderByIdAsc(Cursor.decodeId(after), Limit.of(size + 1));
+        return CursorPage.of(rows, size, pharmacy -> Cursor.encode(String.valueOf(pharmacy.getId())));
+    }
+
+    @Transactional(readOnly = true)
+    public void forEachPharmacy(Consumer<? super Pharmacy> sink) {
+        long after = 0;
+        List<Pharmacy> rows;
+        do {
+            rows = pharmacyRepo.findByIdGreaterThanOrderByIdAsc(after, Limit.of(CursorPage.MAX_LIMIT));
+            rows.forEach(sink);
+            if (!rows.isEmpty()) {
+                after = rows.get(rows.size() - 1).getId();
+            }
+            entityManager.clear();
+        } while (rows.size() == CursorPage.MAX_LIMIT);
     }
 
     public Optional<Pharmacy> getPharmacyById(Long id) {
-        return pharmacyRepo.findById(id);
+        return catalogueCache.pharmacy(id, pharmacyRepo::findById);
     }
 
     public List<Pharmacy> searchPharmaciesByName(String name) {
@@ -37,7 +84,7 @@ public class PharmacyService {
     }
 
     public Optional<Pharmacy> getPharmacyByEmail(String email){
-        return pharmacyRepo.findByEmailIgnoreCase(email);
+        return catalogueCache.pharmacyByEmail(email, pharmacyRepo::findByEmailIgnoreCase);
     }
 
 }
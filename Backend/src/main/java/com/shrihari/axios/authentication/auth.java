@@ -2,8 +2,11 @@ package com.shrihari.axios.authentication;
 
 
 import com.shrihari.axios.dto.LogEntry;
+import com.shrihari.axios.metrics.Timings;
 import com.shrihari.axios.security.JwtGenerator;
+import com.shrihari.axios.security.RouteAccess;
 import com.shrihari.axios.services.LoggingService;
+import com.shrihari.axios.utils.PlatformOffload;
 import com.shrihari.axios.utils.roles;
 import jakarta.mail.Message;
 import jakarta.mail.PasswordAuthentication;
@@ -11,6 +14,7 @@ import jakarta.mail.Session;
 import jakarta.mail.Transport;
 import jakarta.mail.internet.InternetAddress;
 import jakarta.mail.internet.MimeMessage;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.web.bind.annotation.*;
@@ -20,6 +24,7 @@ import java.util.Properties;
 @CrossOrigin("*")
 @RestController
 @RequestMapping("/healthdesk/auth")
+@RouteAccess(open = true)
 public class auth {
     @Autowired
     private JdbcTemplate jdbcTemplate;
@@ -29,6 +34,8 @@ public class auth {
     String finalToken;
     @Autowired
     private LoggingService loggingService;
+    @Autowired
+    private PlatformOffload platformOffload;
 
     @Autowired
     public void setJwtGenerator(JwtGenerator jwtGenerator) {
@@ -115,7 +122,17 @@ public class auth {
                 message.setSubject(title);
                 //    message.setText(body+"\n\n<b>"+otp+"</b>\nTHIS IS AUTOGENERATED DO NOT RESPOND BACK");
                 message.setContent(html, "text/html; charset=utf-8");
-                Transport.send(message);
+                Timer.Sample sample = Timings.start();
+                boolean sent = false;
+                try {
+                    platformOffload.call(() -> {
+                        Transport.send(message);
+                        return null;
+                    });
+                    sent = true;
+                } finally {
+                    Timings.stop(sample, "mail.sends", sent);
+                }
     
                 System.out.println("Done");
                 return true;
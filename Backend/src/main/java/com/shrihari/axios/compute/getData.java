@@ -1,16 +1,14 @@
 package com.shrihari.axios.compute;
 
 
-import com.shrihari.axios.security.JwtGenerator;
+import com.shrihari.axios.presence.PresenceService;
+import com.shrihari.axios.security.RouteAccess;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.Duration;
-
 @RestController
 @RequestMapping("/healthdesk/send/data")
 @Transactional
@@ -19,21 +17,12 @@ public class getData {
     @Autowired
     private JdbcTemplate jdbcTemplate;
     @Autowired
-    private StringRedisTemplate redisTemplate;
-    @Autowired
-    JwtGenerator JwtGenerator;
-    @Autowired
-    public void setJwtGenerator(JwtGenerator JwtGenerator){
-        this.JwtGenerator = JwtGenerator;
-    }
+    private PresenceService presenceService;
 
 
-    void setKeyValue(String key,String value){
-        redisTemplate.opsForValue().set(key,value,Duration.ofMinutes(60));
-    }
     void extendTTL(String key){
         try {
-            redisTemplate.expire(key, Duration.ofMinutes(60));
+            presenceService.extend(key);
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -41,7 +30,7 @@ public class getData {
     void removeKeyValue(String key){
 
         try {
-            redisTemplate.delete(key);
+            presenceService.setUnavailable(key);
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -50,17 +39,12 @@ public class getData {
 
 
 
-    boolean valid = false;
     @PostMapping("/set-doctor-availability")
-    Object setkeyvalue(@RequestParam String key,@RequestHeader String token){
+    @RouteAccess(owner = "key")
+    Object setkeyvalue(@RequestParam String key,@RequestParam(required = false) String speciality){
         try{
-            if(JwtGenerator.getJwtUsername(token).equals(key)) {
-                setKeyValue(key, "Available");
-                return HttpServletResponse.SC_FOUND;
-            }
-            else {
-                 return HttpServletResponse.SC_UNAUTHORIZED;
-            }
+            presenceService.setAvailable(key, speciality);
+            return HttpServletResponse.SC_FOUND;
         } catch (Exception e) {
             e.printStackTrace();
             return HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
@@ -68,24 +52,16 @@ public class getData {
 
     }
     @PatchMapping("/update-doctor-availability")
-    Object updatedoctoravailability(@RequestParam String key,@RequestHeader String token){
-        if(JwtGenerator.getJwtUsername(token).equals(key)){
-            extendTTL(key);
-            return null;
-        }
-        else{
-            return HttpServletResponse.SC_UNAUTHORIZED;
-        }
+    @RouteAccess(owner = "key")
+    Object updatedoctoravailability(@RequestParam String key){
+        extendTTL(key);
+        return null;
     }
     @PostMapping("/unset-doctor-availability")
-    Object unsetdoctoravailability(@RequestParam String key,@RequestHeader String token){
-        if(JwtGenerator.getJwtUsername(token).equals(key)){
-            removeKeyValue(key);
-            return null;
-        }
-        else{
-            return HttpServletResponse.SC_UNAUTHORIZED;
-        }
+    @RouteAccess(owner = "key")
+    Object unsetdoctoravailability(@RequestParam String key){
+        removeKeyValue(key);
+        return null;
     }
 
 
@@ -1,23 +1,45 @@
 package com.shrihari.axios.config;
 
 
+import com.shrihari.axios.messaging.StompRelayInterceptor;
 import com.shrihari.axios.security.WebSocketFilter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+
+import java.time.Duration;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+    public static final String ENDPOINT = "/healthdesk-ws";
+
     @Autowired
     private WebSocketFilter webSocketFilter;
+    @Autowired
+    private StompRelayInterceptor stompRelayInterceptor;
+
+    @Value("${stomp.outbound.threads:8}")
+    private int outboundThreads;
+    @Value("${stomp.outbound.queue-capacity:10000}")
+    private int outboundQueueCapacity;
+    @Value("${stomp.session.send-time-limit:PT10S}")
+    private Duration sendTimeLimit;
+    @Value("${stomp.session.send-buffer-limit:512KB}")
+    private DataSize sendBufferLimit;
+    @Value("${stomp.session.message-size-limit:64KB}")
+    private DataSize messageSizeLimit;
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
-        registry.addEndpoint("/healthdesk-ws").setAllowedOriginPatterns("*");
+        registry.addEndpoint(ENDPOINT).setAllowedOriginPatterns("*");
     }
 
     @Override
@@ -25,10 +47,32 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.setApplicationDestinationPrefixes("/app");
         registry.enableSimpleBroker("/queue");
         registry.setUserDestinationPrefix("/user");
-
+        /* copies every /queue and /user message to the other nodes before the local broker sees it */
+        registry.configureBrokerChannel().interceptors(stompRelayInterceptor);
     }
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
         registration.interceptors(webSocketFilter);
     }
-}
\ No newline at end of file
+
+    /*
+     * Shared queue in front of all sessions; when it is full, sends fail fast instead of
+     * piling up. Messages relayed from other nodes are dropped and counted in that case.
+     */
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor().corePoolSize(outboundThreads).maxPoolSize(outboundThreads).queueCapacity(outboundQueueCapacity);
+    }
+
+    /*
+     * Per session: a client that keeps more than send-buffer-limit unsent, or blocks a
+     * single send for longer than send-time-limit, is disconnected so it cannot hold
+     * outbound threads hostage. It reconnects and re-subscribes like after a network drop.
+     */
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registry) {
+        registry.setSendTimeLimit((int) sendTimeLimit.toMillis())
+                .setSendBufferSizeLimit((int) sendBufferLimit.toBytes())
+                .setMessageSizeLimit((int) messageSizeLimit.toBytes());
+    }
+}
@@ -0,0 +1,56 @@
+package com.shrihari.axios.files;
+
+/*
+ * One satisfiable byte range of a file, inclusive on both ends.
+ */
+public record ByteRange(long start, long end) {
+
+    public long length() {
+        return end - start + 1;
+    }
+
+    /*
+     * Parses a single-range "bytes=" header against a file of the given length.
+     * Returns null when the header should be ignored (absent, malformed or
+     * multi-range) and the whole file served; throws IllegalArgumentException when
+     * the range cannot be satisfied.
+     */
+    public static ByteRange parse(String header, long fileLength) {
+        if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start, end;
+            if (first.isEmpty()) {
+                if (last.isEmpty()) {
+                    return null;
+                }
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || fileLength == 0) {
+                    throw new IllegalArgumentException("Unsatisfiable range " + header);
+                }
+                start = Math.max(0, fileLength - suffix);
+                end = fileLength - 1;
+            } else {
+                start = Long.parseLong(first);
+                if (start >= fileLength) {
+                    throw new IllegalArgumentException("Unsatisfiable range " + header);
+                }
+                end = last.isEmpty() ? fileLength - 1 : Math.min(Long.parseLong(last), fileLength - 1);
+                if (end < start) {
+                    return null;
+                }
+            }
+            return new ByteRange(start, end);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.shrihari.axios.files;
+
+import com.shrihari.axios.Document.PatientDocument;
+import com.shrihari.axios.Document.PatientDocumentRepo;
+import com.shrihari.axios.Document.PatientDocumentService;
+import com.shrihari.axios.getData.PatientVideoService;
+import com.shrihari.axios.security.RouteAccess;
+import com.shrihari.axios.security.VerifiedClaims;
+import com.shrihari.axios.transcription.TranscriptionJob;
+import com.shrihari.axios.transcription.TranscriptionJobRepo;
+import com.shrihari.axios.transcription.TranscriptionJobService;
+import com.shrihari.axios.utils.roles;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/*
+ * Serves stored consultation videos, conversation audio and patient documents with
+ * Range support. Same rule as readData: a patient may read their own files, a doctor
+ * may read any patient's files. The route table only lets those two roles in; the owner
+ * comes from the stored file, so it is checked here.
+ */
+@RestController
+@RequestMapping("/healthdesk/read")
+@CrossOrigin(origins = "*")
+@RouteAccess({roles.ROLES.Patient, roles.ROLES.Doctor})
+public class FileServingController {
+
+    public static final Pattern ASSET_ID = Pattern.compile("[A-Za-z0-9-]{1,128}");
+
+    @Autowired
+    private RangeFileSender fileSender;
+    @Autowired
+    private PatientVideoService patientVideoService;
+    @Autowired
+    private PatientDocumentService documentService;
+    @Autowired
+    private PatientDocumentRepo documentRepo;
+    @Autowired
+    private TranscriptionJobService transcriptionJobService;
+    @Autowired
+    private TranscriptionJobRepo transcriptionJobRepo;
+
+    @RequestMapping(value = "/video/{uuid}", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void video(@PathVariable String uuid, @RequestAttribute(VerifiedClaims.ATTRIBUTE) VerifiedClaims claims,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!ASSET_ID.matcher(uuid).matches()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        Optional<String> owner = patientVideoService.patientPhoneForVideo(uuid);
+        if (owner.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+        } else if (!mayRead(claims, owner.get())) {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        } else {
+            fileSender.send(patientVideoService.videoPath(uuid), "video/mp4", request, response);
+        }
+    }
+
+    @RequestMapping(value = "/document/{uuid}", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void document(@PathVariable String uuid, @RequestAttribute(VerifiedClaims.ATTRIBUTE) VerifiedClaims claims,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!ASSET_ID.matcher(uuid).matches()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        Optional<PatientDocument> document = documentRepo.findByUuid(uuid);
+        if (document.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+        } else if (!mayRead(claims, document.get().getPatientPhoneNumber())) {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        } else {
+            String contentType = document.get().getFileType() == null ? "application/pdf" : document.get().getFileType();
+            fileSender.send(documentService.documentPath(uuid), contentType, request, response);
+        }
+    }
+
+    @RequestMapping(value = "/audio/{meetingUuid}", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void audio(@PathVariable String meetingUuid, @RequestAttribute(VerifiedClaims.ATTRIBUTE) VerifiedClaims claims,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!ASSET_ID.matcher(meetingUuid).matches()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        Optional<TranscriptionJob> job = transcriptionJobRepo.findFirstByMeetingUuidOrderByCreatedAtDesc(meetingUuid);
+        if (job.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+        } else if (!mayRead(claims, job.get().getPatientPhone())) {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        } else {
+            fileSender.send(transcriptionJobService.audioPath(meetingUuid), "audio/wav", request, response);
+        }
+    }
+
+    private static boolean mayRead(VerifiedClaims claims, String patientPhone) {
+        return claims.hasRole(roles.ROLES.Doctor) || claims.isSubject(patientPhone);
+    }
+}
@@ -1,6 +1,17 @@
 package com.shrihari.axios.getData;
 
+import java.util.List;
+
 public class AssemblyAiTranscriptResponseBody {
    public String status;
     public String text;
+    public String error;
+    public List<Word> words;
+
+    /*start and end in milliseconds from the beginning of the submitted audio*/
+    public static class Word {
+        public String text;
+        public long start;
+        public long end;
+    }
 }
@@ -0,0 +1,5 @@
+package com.shrihari.axios.getData;
+
+public class AssemblyAiUploadResponseBody {
+   public String upload_url;
+}
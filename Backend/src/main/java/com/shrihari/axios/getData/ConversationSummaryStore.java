@@ -0,0 +1,41 @@
+package com.shrihari.axios.getData;
+
+import com.shrihari.axios.readData.LatestConsultationProjection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+
+@Repository
+public class ConversationSummaryStore {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private LatestConsultationProjection latestConsultations;
+
+    @Transactional
+    public long insert(String context, String patientPhone, String doctorEmail, summaryStructure summary, String summaryJson) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement("insert into conversation_summary (context,patient_phonenumber,doctor_email_id,summary_data) values (?,?,?,?)", Statement.RETURN_GENERATED_KEYS);
+            statement.setString(1, context);
+            statement.setString(2, patientPhone);
+            statement.setString(3, doctorEmail);
+            statement.setString(4, summaryJson);
+            return statement;
+        }, keyHolder);
+        long id = keyHolder.getKey().longValue();
+
+        // keep the projection on the database's own timestamp for this row
+        Timestamp datetime = jdbcTemplate.queryForObject("select datetime from conversation_summary where id = ?", Timestamp.class, id);
+        latestConsultations.record(doctorEmail, patientPhone, summary.diagnosis, datetime);
+        return id;
+    }
+}
@@ -0,0 +1,96 @@
+package com.shrihari.axios.getData;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Optional;
+
+@Service
+public class PatientVideoService {
+
+    static final String VIDEO_DIR = System.getProperty("user.home") + File.separator + "healthdesk" + File.separator + "assets";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public String addInitialDetailsToPatientVideos(String patient_phone, String video_transcribed_text, String transcribed_text_summary, String severity, String doctor_speciality, boolean has_video) {
+        try {
+            String datetime = now();
+            String uuid = videoUuid(patient_phone, datetime);
+            insert(patient_phone, video_transcribed_text, transcribed_text_summary, severity, doctor_speciality, has_video, uuid, datetime);
+            return uuid;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /*
+     * The file is moved into place before the row is written, so a listed video always
+     * has its file; if the insert fails the moved file is deleted again.
+     */
+    public String addPatientVideo(String patient_phone, String video_transcribed_text, String transcribed_text_summary, String severity, String doctor_speciality, Path video) throws IOException {
+        String datetime = now();
+        String uuid = videoUuid(patient_phone, datetime);
+        Path path = videoPath(uuid);
+        Files.createDirectories(path.getParent());
+        Files.move(video, path);
+        try {
+            insert(patient_phone, video_transcribed_text, transcribed_text_summary, severity, doctor_speciality, true, uuid, datetime);
+        } catch (RuntimeException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+        return uuid;
+    }
+
+    private void insert(String patient_phone, String video_transcribed_text, String transcribed_text_summary, String severity, String doctor_speciality, boolean has_video, String uuid, String datetime) {
+        jdbcTemplate.update("insert into patient_videos (patient_phone,video_transcribed_text,transcribed_text_summary,severity,doctor_speciality,has_video,uuid,datetime) values (?,?,?,?,?,?,?,?)", patient_phone, video_transcribed_text, transcribed_text_summary, severity, doctor_speciality, (has_video) ? "" : null, uuid, datetime);
+    }
+
+    private static String now() {
+        ZoneId indiaZone = ZoneId.of("Asia/Kolkata");
+        ZonedDateTime nowInIndia = ZonedDateTime.now(indiaZone);
+        LocalDateTime localDateTimeInIndia = nowInIndia.toLocalDateTime();
+        return localDateTimeInIndia.toString().replace("T", " ");
+    }
+
+    // hex SHA-256 of phone and time; public so the benchmarks module can measure it
+    public static String videoUuid(String patientPhone, String datetime) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((patientPhone + datetime).getBytes(StandardCharsets.UTF_8));
+            final StringBuilder hexString = new StringBuilder();
+            for (byte b : hash) {
+                final String hex = Integer.toHexString(0xff & b);
+                if (hex.length() == 1)
+                    hexString.append('0');
+                hexString.append(hex);
+            }
+            return hexString.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public Optional<String> patientPhoneForVideo(String uuid) {
+        return jdbcTemplate.queryForList("select patient_phone from patient_videos where uuid = ?", String.class, uuid)
+                .stream().findFirst();
+    }
+
+    public Path videoPath(String uuid) {
+        return Paths.get(VIDEO_DIR, uuid + ".mp4");
+    }
+}
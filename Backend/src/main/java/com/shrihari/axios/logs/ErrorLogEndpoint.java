@@ -0,0 +1,41 @@
+package com.shrihari.axios.logs;
+
+import com.shrihari.axios.utils.CursorPage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/*
+ * Error log queries for operators. The entries carry endpoints, messages and user
+ * identifiers, so they are served at /actuator/errorlogs on the management port rather
+ * than next to the public API.
+ */
+@Component
+@Endpoint(id = "errorlogs")
+public class ErrorLogEndpoint {
+
+    @Autowired
+    private LogStore logStore;
+
+    @ReadOperation
+    public CursorPage<List<LogStore.LogRecord>> query(@Nullable String from, @Nullable String to, @Nullable String endpoint,
+                                                      @Nullable String q, @Nullable String after, @Nullable Integer limit) throws IOException {
+        try {
+            return logStore.query(time(from), time(to), endpoint, q, after, limit == null ? 100 : limit);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+    }
+
+    private static LocalDateTime time(String value) {
+        return value == null ? null : LocalDateTime.parse(value);
+    }
+}
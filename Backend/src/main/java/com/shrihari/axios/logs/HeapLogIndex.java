@@ -0,0 +1,80 @@
+package com.shrihari.axios.logs;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Sorted in-memory index, built from the active segment's appends.
+ */
+final class HeapLogIndex extends LogIndex {
+
+    final long[] times;
+    final long[] offsets;
+    final int[] lengths;
+    final int[] endpointIds;
+    final List<String> endpoints;
+    private final Map<String, Integer> ids = new HashMap<>();
+
+    private HeapLogIndex(long[] times, long[] offsets, int[] lengths, int[] endpointIds, List<String> endpoints) {
+        this.times = times;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.endpointIds = endpointIds;
+        this.endpoints = endpoints;
+        for (int i = 0; i < endpoints.size(); i++) {
+            ids.put(endpoints.get(i), i);
+        }
+    }
+
+    // appends arrive almost in time order, which TimSort handles in close to linear time
+    static HeapLogIndex sorted(int size, long[] times, long[] offsets, int[] lengths, int[] endpointIds, List<String> endpoints) {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> times[a] != times[b] ? Long.compare(times[a], times[b]) : Long.compare(offsets[a], offsets[b]));
+
+        long[] sortedTimes = new long[size], sortedOffsets = new long[size];
+        int[] sortedLengths = new int[size], sortedEndpoints = new int[size];
+        for (int i = 0; i < size; i++) {
+            int from = order[i];
+            sortedTimes[i] = times[from];
+            sortedOffsets[i] = offsets[from];
+            sortedLengths[i] = lengths[from];
+            sortedEndpoints[i] = endpointIds[from];
+        }
+        return new HeapLogIndex(sortedTimes, sortedOffsets, sortedLengths, sortedEndpoints, List.copyOf(endpoints));
+    }
+
+    @Override
+    int size() {
+        return times.length;
+    }
+
+    @Override
+    long time(int i) {
+        return times[i];
+    }
+
+    @Override
+    long offset(int i) {
+        return offsets[i];
+    }
+
+    @Override
+    int length(int i) {
+        return lengths[i];
+    }
+
+    @Override
+    int endpointId(int i) {
+        return endpointIds[i];
+    }
+
+    @Override
+    int endpointId(String endpoint) {
+        return ids.getOrDefault(endpoint, -1);
+    }
+}
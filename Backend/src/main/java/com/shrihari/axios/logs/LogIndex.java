@@ -0,0 +1,45 @@
+package com.shrihari.axios.logs;
+
+/*
+ * Per-segment index: one record per log line, ordered by (time, offset), plus a small
+ * dictionary of the endpoints that occur in the segment. Queries binary search the
+ * time range and compare endpoint ids instead of reading lines.
+ */
+abstract class LogIndex {
+
+    abstract int size();
+
+    abstract long time(int i);
+
+    abstract long offset(int i);
+
+    abstract int length(int i);
+
+    abstract int endpointId(int i);
+
+    // -1 when the endpoint does not occur in this segment
+    abstract int endpointId(String endpoint);
+
+    long minTime() {
+        return size() == 0 ? Long.MAX_VALUE : time(0);
+    }
+
+    long maxTime() {
+        return size() == 0 ? Long.MIN_VALUE : time(size() - 1);
+    }
+
+    // first record at or after (time, offset)
+    int lowerBound(long time, long offset) {
+        int low = 0, high = size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            long t = time(mid);
+            if (t < time || (t == time && offset(mid) < offset)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,152 @@
+package com.shrihari.axios.logs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * One errors-<openedAt>.jsonl file. While it is being written, LoggingService appends
+ * index records here and publishes them once the lines are on disk; after sealing the
+ * segment is served from its mapped index and a single mapping of the data file.
+ */
+public final class LogSegment {
+
+    private static final int MAX_ENDPOINT_LENGTH = 512;
+
+    private final Path path;
+    private final long openedAt;
+
+    private volatile LogIndex sealedIndex;
+    private volatile MappedByteBuffer sealedData;
+
+    // active segment only, guarded by this
+    private long[] times = new long[1024];
+    private long[] offsets = new long[1024];
+    private int[] lengths = new int[1024];
+    private int[] endpointIds = new int[1024];
+    private final List<String> endpoints = new ArrayList<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private int appended;
+    private int published;
+    private long publishedBytes;
+    private HeapLogIndex snapshot;
+
+    LogSegment(Path path, long openedAt) {
+        this.path = path;
+        this.openedAt = openedAt;
+    }
+
+    LogSegment(Path path, long openedAt, LogIndex index) {
+        this(path, openedAt);
+        this.sealedIndex = index;
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public long openedAt() {
+        return openedAt;
+    }
+
+    public synchronized void append(long time, long offset, int length, String endpoint) {
+        if (appended == times.length) {
+            int capacity = appended * 2;
+            times = Arrays.copyOf(times, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            endpointIds = Arrays.copyOf(endpointIds, capacity);
+        }
+        String key = endpoint == null ? "" : endpoint.length() > MAX_ENDPOINT_LENGTH ? endpoint.substring(0, MAX_ENDPOINT_LENGTH) : endpoint;
+        Integer id = ids.get(key);
+        if (id == null) {
+            id = endpoints.size();
+            endpoints.add(key);
+            ids.put(key, id);
+        }
+        times[appended] = time;
+        offsets[appended] = offset;
+        lengths[appended] = length;
+        endpointIds[appended] = id;
+        appended++;
+    }
+
+    // everything appended so far has reached the file
+    public synchronized void publish() {
+        if (published != appended) {
+            published = appended;
+            publishedBytes = offsets[appended - 1] + lengths[appended - 1];
+            snapshot = null;
+        }
+    }
+
+    LogIndex index() {
+        LogIndex index = sealedIndex;
+        if (index != null) {
+            return index;
+        }
+        synchronized (this) {
+            if (sealedIndex != null) {
+                return sealedIndex;
+            }
+            if (snapshot == null) {
+                snapshot = HeapLogIndex.sorted(published, times, offsets, lengths, endpointIds, endpoints);
+            }
+            return snapshot;
+        }
+    }
+
+    // lines that never made it to the file are left out
+    synchronized HeapLogIndex sortedIndex() {
+        return HeapLogIndex.sorted(published, times, offsets, lengths, endpointIds, endpoints);
+    }
+
+    // called by the store once the index file exists; drops the heap copy
+    synchronized void seal(LogIndex index) {
+        sealedIndex = index;
+        times = offsets = null;
+        lengths = endpointIds = null;
+        snapshot = null;
+    }
+
+    ByteBuffer data() throws IOException {
+        if (sealedIndex != null) {
+            MappedByteBuffer data = sealedData;
+            if (data == null) {
+                data = map(-1);
+                sealedData = data;
+            }
+            return data;
+        }
+        long bytes;
+        synchronized (this) {
+            bytes = publishedBytes;
+        }
+        return map(bytes);
+    }
+
+    private MappedByteBuffer map(long bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, bytes < 0 ? channel.size() : Math.min(bytes, channel.size()));
+        }
+    }
+
+    static String line(ByteBuffer data, long offset, int length) {
+        if (offset + length > data.limit()) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        data.get((int) offset, bytes);
+        int end = length > 0 && bytes[length - 1] == '\n' ? length - 1 : length;
+        return new String(bytes, 0, end, StandardCharsets.UTF_8);
+    }
+}
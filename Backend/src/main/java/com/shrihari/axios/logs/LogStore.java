@@ -0,0 +1,276 @@
+package com.shrihari.axios.logs;
+
+import com.google.gson.Gson;
+import com.shrihari.axios.dto.LogEntry;
+import com.shrihari.axios.utils.Cursor;
+import com.shrihari.axios.utils.CursorPage;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/*
+ * Append-only, segmented store behind the error log. Segments are written by
+ * LoggingService; this class names them, keeps their indexes and answers queries
+ * newest first. Sealed segments are only touched through memory mappings, and a
+ * segment whose time range or endpoint dictionary cannot match is skipped without
+ * reading its data at all. Sealed segments older than error-log.retention, and the
+ * oldest ones beyond error-log.max-total-size, are deleted with their indexes.
+ */
+@Component
+public class LogStore {
+
+    static final String SEGMENT_PREFIX = "errors-";
+    static final String SEGMENT_SUFFIX = ".jsonl";
+    static final String INDEX_SUFFIX = ".idx";
+
+    public record LogRecord(LocalDateTime time, String endpoint, String error) {
+    }
+
+    private record Hit(LogRecord record, long segment, long time, long offset) {
+    }
+
+    private final Gson gson;
+    private final Path directory;
+    private final long retentionMillis;
+    private final long maxTotalBytes;
+    private final ConcurrentSkipListMap<Long, LogSegment> segments = new ConcurrentSkipListMap<>();
+
+    @Autowired
+    public LogStore(Gson gson,
+                    @Value("${error-log.dir:${user.home}/healthdesk/logs}") String directory,
+                    @Value("${error-log.retention:P30D}") Duration retention,
+                    @Value("${error-log.max-total-size:1GB}") DataSize maxTotalSize) {
+        this.gson = gson;
+        this.directory = Paths.get(directory);
+        this.retentionMillis = retention.toMillis();
+        this.maxTotalBytes = maxTotalSize.toBytes();
+    }
+
+    @PostConstruct
+    void load() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.filter(LogStore::isSegment).toList()) {
+                try {
+                    loadSegment(path);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        prune(System.currentTimeMillis());
+    }
+
+    private void loadSegment(Path path) throws IOException {
+        long openedAt = Long.parseLong(path.getFileName().toString().substring(SEGMENT_PREFIX.length(), path.getFileName().toString().length() - SEGMENT_SUFFIX.length()));
+        Path indexPath = indexPath(path);
+        if (!Files.exists(indexPath)) {
+            // left behind by a crash before it was sealed: index it from its lines once
+            LogSegment segment = new LogSegment(path, openedAt);
+            long offset = 0;
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int length = line.getBytes(StandardCharsets.UTF_8).length + 1;
+                    LogEntry entry = parse(line);
+                    if (entry != null) {
+                        segment.append(epochMillis(entry.getTime(), openedAt), offset, length, entry.getEndpoint());
+                    }
+                    offset += length;
+                }
+            }
+            segment.publish();
+            MappedLogIndex.write(indexPath, segment.sortedIndex());
+        }
+        segments.put(openedAt, new LogSegment(path, openedAt, MappedLogIndex.open(indexPath)));
+    }
+
+    /*
+     * Writer side, called from the single LoggingService writer thread.
+     */
+    public LogSegment newSegment(long now) {
+        long openedAt = segments.isEmpty() ? now : Math.max(now, segments.lastKey() + 1);
+        Path path = directory.resolve(SEGMENT_PREFIX + openedAt + SEGMENT_SUFFIX);
+        while (Files.exists(path)) {
+            openedAt++;
+            path = directory.resolve(SEGMENT_PREFIX + openedAt + SEGMENT_SUFFIX);
+        }
+        LogSegment segment = new LogSegment(path, openedAt);
+        segments.put(openedAt, segment);
+        return segment;
+    }
+
+    public void seal(LogSegment segment) {
+        HeapLogIndex index = segment.sortedIndex();
+        try {
+            Path indexPath = indexPath(segment.path());
+            MappedLogIndex.write(indexPath, index);
+            segment.seal(MappedLogIndex.open(indexPath));
+        } catch (IOException e) {
+            e.printStackTrace();
+            segment.seal(index);
+        }
+        prune(System.currentTimeMillis());
+    }
+
+    /*
+     * A sealed segment stopped being written when the next one was opened, so that is its
+     * age. The newest segment is never deleted. Queries already reading a deleted segment
+     * keep their mapping; later ones no longer see it.
+     */
+    void prune(long now) {
+        List<LogSegment> newestFirst = new ArrayList<>(segments.descendingMap().values());
+        long total = 0;
+        for (int i = 0; i < newestFirst.size(); i++) {
+            LogSegment segment = newestFirst.get(i);
+            long bytes = size(segment.path()) + size(indexPath(segment.path()));
+            total += bytes;
+            if (i == 0) {
+                continue;
+            }
+            long closedAt = newestFirst.get(i - 1).openedAt();
+            if (now - closedAt > retentionMillis || total > maxTotalBytes) {
+                segments.remove(segment.openedAt());
+                try {
+                    Files.deleteIfExists(segment.path());
+                    Files.deleteIfExists(indexPath(segment.path()));
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                total -= bytes;
+            }
+        }
+    }
+
+    private static long size(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    public static long epochMillis(LocalDateTime time, long fallback) {
+        return time == null ? fallback : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /*
+     * Newest entries first. The cursor is the (segment, time, offset) of the last row
+     * returned, so paging stays stable while new entries are being appended.
+     */
+    public CursorPage<List<LogRecord>> query(LocalDateTime from, LocalDateTime to, String endpoint, String contains, String after, int limit) throws IOException {
+        int size = CursorPage.clamp(limit);
+        long fromMillis = from == null ? Long.MIN_VALUE : epochMillis(from, 0);
+        long toMillis = to == null ? Long.MAX_VALUE : epochMillis(to, 0);
+        String needle = contains == null || contains.isEmpty() ? null : contains.toLowerCase(Locale.ROOT);
+
+        long afterSegment = Long.MAX_VALUE, afterTime = 0, afterOffset = 0;
+        if (after != null) {
+            String[] key = Cursor.decode(after, 3);
+            try {
+                afterSegment = Long.parseLong(key[0]);
+                afterTime = Long.parseLong(key[1]);
+                afterOffset = Long.parseLong(key[2]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor", e);
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(size + 1);
+        for (Map.Entry<Long, LogSegment> entry : segments.headMap(afterSegment, true).descendingMap().entrySet()) {
+            LogSegment segment = entry.getValue();
+            LogIndex index = segment.index();
+            if (index.size() == 0 || index.maxTime() < fromMillis || index.minTime() > toMillis) {
+                continue;
+            }
+            int endpointId = endpoint == null ? -1 : index.endpointId(endpoint);
+            if (endpoint != null && endpointId < 0) {
+                continue;
+            }
+
+            int i = index.lowerBound(toMillis, Long.MAX_VALUE) - 1;
+            if (segment.openedAt() == afterSegment) {
+                i = Math.min(i, index.lowerBound(afterTime, afterOffset) - 1);
+            }
+            ByteBuffer data = null;
+            for (; i >= 0 && index.time(i) >= fromMillis; i--) {
+                if (endpointId >= 0 && index.endpointId(i) != endpointId) {
+                    continue;
+                }
+                if (data == null) {
+                    try {
+                        data = segment.data();
+                    } catch (NoSuchFileException e) {
+                        // deleted by retention since the query started
+                        break;
+                    }
+                }
+                LogEntry logEntry = parse(LogSegment.line(data, index.offset(i), index.length(i)));
+                if (logEntry == null || (needle != null && (logEntry.getError() == null || !logEntry.getError().toLowerCase(Locale.ROOT).contains(needle)))) {
+                    continue;
+                }
+                hits.add(new Hit(new LogRecord(logEntry.getTime(), logEntry.getEndpoint(), logEntry.getError()), segment.openedAt(), index.time(i), index.offset(i)));
+                if (hits.size() > size) {
+                    break;
+                }
+            }
+            if (hits.size() > size) {
+                break;
+            }
+        }
+
+        CursorPage<List<Hit>> page = CursorPage.of(hits, size, hit -> Cursor.encode(String.valueOf(hit.segment()), String.valueOf(hit.time()), String.valueOf(hit.offset())));
+        return new CursorPage<>(page.data().stream().map(Hit::record).toList(), page.nextCursor());
+    }
+
+    private LogEntry parse(String line) {
+        if (line == null) {
+            return null;
+        }
+        try {
+            return gson.fromJson(line, LogEntry.class);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.length() > SEGMENT_PREFIX.length() + SEGMENT_SUFFIX.length()
+                && name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)
+                && name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()).chars().allMatch(Character::isDigit);
+    }
+
+    private static Path indexPath(Path segment) {
+        String name = segment.getFileName().toString();
+        return segment.resolveSibling(name.substring(0, name.length() - SEGMENT_SUFFIX.length()) + INDEX_SUFFIX);
+    }
+}
@@ -0,0 +1,114 @@
+package com.shrihari.axios.logs;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * On-disk index of a sealed segment, read through a memory mapping.
+ *
+ *   int magic, int version, int endpointCount, endpointCount x (short length, utf-8 bytes),
+ *   int recordCount, recordCount x (long time, long offset, int length, int endpointId)
+ */
+final class MappedLogIndex extends LogIndex {
+
+    private static final int MAGIC = 0x48444c58;
+    private static final int VERSION = 1;
+    private static final int RECORD_BYTES = 24;
+
+    private final MappedByteBuffer buffer;
+    private final Map<String, Integer> ids;
+    private final int recordsAt;
+    private final int size;
+
+    private MappedLogIndex(MappedByteBuffer buffer, Map<String, Integer> ids, int recordsAt, int size) {
+        this.buffer = buffer;
+        this.ids = ids;
+        this.recordsAt = recordsAt;
+        this.size = size;
+    }
+
+    static MappedLogIndex open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Not a log index: " + path);
+        }
+        int endpointCount = buffer.getInt();
+        Map<String, Integer> ids = new HashMap<>();
+        for (int i = 0; i < endpointCount; i++) {
+            byte[] name = new byte[buffer.getShort() & 0xffff];
+            buffer.get(name);
+            ids.put(new String(name, StandardCharsets.UTF_8), i);
+        }
+        int size = buffer.getInt();
+        if (buffer.remaining() != (long) size * RECORD_BYTES) {
+            throw new IOException("Truncated log index: " + path);
+        }
+        return new MappedLogIndex(buffer, ids, buffer.position(), size);
+    }
+
+    // written next to the segment and moved into place, so a crash never leaves half an index
+    static void write(Path path, HeapLogIndex index) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(index.endpoints.size());
+            for (String endpoint : index.endpoints) {
+                byte[] name = endpoint.getBytes(StandardCharsets.UTF_8);
+                out.writeShort(name.length);
+                out.write(name);
+            }
+            out.writeInt(index.size());
+            for (int i = 0; i < index.size(); i++) {
+                out.writeLong(index.times[i]);
+                out.writeLong(index.offsets[i]);
+                out.writeInt(index.lengths[i]);
+                out.writeInt(index.endpointIds[i]);
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    int size() {
+        return size;
+    }
+
+    @Override
+    long time(int i) {
+        return buffer.getLong(recordsAt + i * RECORD_BYTES);
+    }
+
+    @Override
+    long offset(int i) {
+        return buffer.getLong(recordsAt + i * RECORD_BYTES + 8);
+    }
+
+    @Override
+    int length(int i) {
+        return buffer.getInt(recordsAt + i * RECORD_BYTES + 16);
+    }
+
+    @Override
+    int endpointId(int i) {
+        return buffer.getInt(recordsAt + i * RECORD_BYTES + 20);
+    }
+
+    @Override
+    int endpointId(String endpoint) {
+        return ids.getOrDefault(endpoint, -1);
+    }
+}
@@ -0,0 +1,150 @@
+package com.shrihari.axios.messaging;
+
+import com.google.gson.Gson;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Relays through Redis pub/sub. Broadcast destinations go to stomp:relay:all, user
+ * destinations only to stomp:relay:{node} of the nodes the session registry lists for
+ * that user. Publishing happens on one background thread behind a bounded queue so a
+ * slow or unreachable Redis never stalls the thread that sent the message; when the
+ * queue is full the remote copy is dropped and counted, local delivery is unaffected.
+ */
+@Component
+@ConditionalOnProperty(name = "stomp.relay", havingValue = "redis", matchIfMissing = true)
+public class RedisStompRelay implements StompRelay {
+
+    static final String BROADCAST_CHANNEL = "stomp:relay:all";
+    static final String NODE_CHANNEL_PREFIX = "stomp:relay:";
+
+    record Envelope(String origin, String destination, String contentType, String payload) {
+    }
+
+    public record Stats(long published, long received, long dropped, long publishErrors, long deliveryErrors, int queued) {
+    }
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong publishErrors = new AtomicLong();
+    private final AtomicLong deliveryErrors = new AtomicLong();
+
+    @Autowired
+    private StompSessionRegistry sessionRegistry;
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+    @Autowired
+    private Gson gson;
+    // the template sends on the broker channel this relay is an interceptor of
+    @Lazy
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Value("${stomp.relay-queue-size:10000}")
+    private int queueSize;
+
+    private ThreadPoolExecutor publisher;
+
+    @PostConstruct
+    void start() {
+        publisher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize), r -> {
+            Thread thread = new Thread(r, "stomp-relay-publisher");
+            thread.setDaemon(true);
+            return thread;
+        }, (task, executor) -> dropped.incrementAndGet());
+        listenerContainer.addMessageListener((message, pattern) -> receive(message.getBody()),
+                Set.of(new ChannelTopic(BROADCAST_CHANNEL), new ChannelTopic(NODE_CHANNEL_PREFIX + sessionRegistry.nodeId())));
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        publisher.shutdown();
+        publisher.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void relay(String destination, String user, Message<byte[]> message) {
+        Object contentType = message.getHeaders().get(MessageHeaders.CONTENT_TYPE);
+        Envelope envelope = new Envelope(sessionRegistry.nodeId(), destination,
+                contentType == null ? null : contentType.toString(),
+                Base64.getEncoder().encodeToString(message.getPayload()));
+        publisher.execute(() -> publish(user, envelope));
+    }
+
+    private void publish(String user, Envelope envelope) {
+        try {
+            String json = gson.toJson(envelope);
+            if (user == null) {
+                redisTemplate.convertAndSend(BROADCAST_CHANNEL, json);
+                published.incrementAndGet();
+                return;
+            }
+            for (String node : sessionRegistry.remoteNodesFor(user)) {
+                redisTemplate.convertAndSend(NODE_CHANNEL_PREFIX + node, json);
+                published.incrementAndGet();
+            }
+        } catch (Exception e) {
+            publishErrors.incrementAndGet();
+            e.printStackTrace();
+        }
+    }
+
+    private void receive(byte[] body) {
+        Envelope envelope;
+        try {
+            envelope = gson.fromJson(new String(body, StandardCharsets.UTF_8), Envelope.class);
+        } catch (Exception e) {
+            deliveryErrors.incrementAndGet();
+            e.printStackTrace();
+            return;
+        }
+        if (envelope == null || sessionRegistry.nodeId().equals(envelope.origin())) {
+            return;
+        }
+        received.incrementAndGet();
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        if (envelope.contentType() != null) {
+            accessor.setContentType(MimeType.valueOf(envelope.contentType()));
+        }
+        accessor.setNativeHeader(RELAYED_HEADER, envelope.origin());
+        accessor.setLeaveMutable(true);
+        try {
+            /* throws MessageDeliveryException once the clientOutboundChannel queue is full */
+            messagingTemplate.send(envelope.destination(),
+                    MessageBuilder.createMessage(Base64.getDecoder().decode(envelope.payload()), accessor.getMessageHeaders()));
+        } catch (Exception e) {
+            deliveryErrors.incrementAndGet();
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(published.get(), received.get(), dropped.get(), publishErrors.get(), deliveryErrors.get(),
+                publisher == null ? 0 : publisher.getQueue().size());
+    }
+}
@@ -0,0 +1,22 @@
+package com.shrihari.axios.messaging;
+
+import org.springframework.messaging.Message;
+
+/*
+ * Carries messages the application sends to the broker channel over to the other
+ * backend nodes. Selected with stomp.relay: "redis" (default) relays through Redis
+ * pub/sub, "local" keeps everything inside this JVM for single-node setups.
+ */
+public interface StompRelay {
+
+    // set on relayed copies so the receiving node delivers them locally only
+    String RELAYED_HEADER = "x-relayed-from";
+    // set by senders whose message every node already produces by itself
+    String LOCAL_ONLY_HEADER = "x-local-only";
+
+    /*
+     * destination is either a broadcast destination (/queue/...) or an unresolved user
+     * destination (/user/{name}/queue/...), in which case user is {name}. Must not block.
+     */
+    void relay(String destination, String user, Message<byte[]> message);
+}
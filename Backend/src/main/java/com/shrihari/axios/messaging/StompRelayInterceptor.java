@@ -0,0 +1,53 @@
+package com.shrihari.axios.messaging;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+/*
+ * Sits on the broker channel and hands every application message for /queue or
+ * /user destinations to the relay, then lets it continue to the local broker as
+ * before. Copies that arrived from another node, and user destinations the local
+ * UserDestinationMessageHandler already resolved to a session, are not relayed again.
+ */
+@Component
+public class StompRelayInterceptor implements ChannelInterceptor {
+
+    private static final String USER_PREFIX = "/user/";
+    private static final String QUEUE_PREFIX = "/queue";
+
+    @Autowired
+    private StompRelay relay;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        MessageHeaders headers = message.getHeaders();
+        if (SimpMessageHeaderAccessor.getMessageType(headers) != SimpMessageType.MESSAGE
+                || !(message.getPayload() instanceof byte[])
+                || headers.containsKey(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION)
+                || NativeMessageHeaderAccessor.getFirstNativeHeader(StompRelay.RELAYED_HEADER, headers) != null
+                || NativeMessageHeaderAccessor.getFirstNativeHeader(StompRelay.LOCAL_ONLY_HEADER, headers) != null) {
+            return message;
+        }
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+        if (destination == null) {
+            return message;
+        }
+        if (destination.startsWith(USER_PREFIX)) {
+            int end = destination.indexOf('/', USER_PREFIX.length());
+            if (end > USER_PREFIX.length()) {
+                relay.relay(destination, destination.substring(USER_PREFIX.length(), end), (Message<byte[]>) message);
+            }
+        } else if (destination.startsWith(QUEUE_PREFIX)) {
+            relay.relay(destination, null, (Message<byte[]>) message);
+        }
+        return message;
+    }
+}
@@ -0,0 +1,137 @@
+package com.shrihari.axios.messaging;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.AbstractSubProtocolEvent;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Tracks which backend node holds the STOMP sessions of each principal:
+ * stomp:user:{name} is a hash of sessionId -> nodeId. Every node keeps stomp:node:{id}
+ * alive with a short TTL, so sessions of a node that died without a clean disconnect
+ * stop being routed to as soon as its heartbeat key expires. Their entries are left to
+ * the owning node's disconnect events, or to the hash's own TTL if it never comes back:
+ * a node that only missed a beat keeps its sessions. The heartbeat has its own thread,
+ * so long @Scheduled jobs cannot delay it past the TTL.
+ */
+@Component
+public class StompSessionRegistry {
+
+    static final String USER_PREFIX = "stomp:user:";
+    static final String NODE_PREFIX = "stomp:node:";
+    static final Duration NODE_TTL = Duration.ofSeconds(30);
+    static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(10);
+    // bounds hashes of users who never disconnect cleanly and never reconnect
+    static final Duration USER_TTL = Duration.ofDays(1);
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "stomp-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @PostConstruct
+    void register() {
+        heartbeat();
+        heartbeats.scheduleWithFixedDelay(this::heartbeat, HEARTBEAT_INTERVAL.toMillis(), HEARTBEAT_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    void heartbeat() {
+        try {
+            redisTemplate.opsForValue().set(NODE_PREFIX + nodeId, String.valueOf(System.currentTimeMillis()), NODE_TTL);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    @PreDestroy
+    void unregister() {
+        heartbeats.shutdownNow();
+        try {
+            redisTemplate.delete(NODE_PREFIX + nodeId);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    @EventListener
+    public void connected(SessionConnectedEvent event) {
+        String user = userOf(event);
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        if (user == null || sessionId == null) {
+            return;
+        }
+        try {
+            redisTemplate.opsForHash().put(USER_PREFIX + user, sessionId, nodeId);
+            redisTemplate.expire(USER_PREFIX + user, USER_TTL);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    @EventListener
+    public void disconnected(SessionDisconnectEvent event) {
+        String user = userOf(event);
+        if (user == null) {
+            return;
+        }
+        try {
+            redisTemplate.opsForHash().delete(USER_PREFIX + user, event.getSessionId());
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /* live nodes other than this one that hold at least one session of user */
+    public Set<String> remoteNodesFor(String user) {
+        Map<Object, Object> sessions = redisTemplate.opsForHash().entries(USER_PREFIX + user);
+        Set<String> nodes = new HashSet<>();
+        for (Object node : sessions.values()) {
+            if (!nodeId.equals(node)) {
+                nodes.add((String) node);
+            }
+        }
+        if (nodes.isEmpty()) {
+            return nodes;
+        }
+        List<String> candidates = new ArrayList<>(nodes);
+        List<String> beats = redisTemplate.opsForValue().multiGet(candidates.stream().map(n -> NODE_PREFIX + n).toList());
+        for (int i = 0; i < candidates.size(); i++) {
+            if (beats == null || beats.get(i) == null) {
+                nodes.remove(candidates.get(i));
+            }
+        }
+        return nodes;
+    }
+
+    private static String userOf(AbstractSubProtocolEvent event) {
+        Principal user = event.getUser();
+        return user == null ? null : user.getName();
+    }
+}
@@ -0,0 +1,121 @@
+package com.shrihari.axios.metrics;
+
+import com.shrihari.axios.Notification.NotificationService;
+import com.shrihari.axios.Pharma.service.CatalogueCache;
+import com.shrihari.axios.Pharma.service.InventoryStockService;
+import com.shrihari.axios.messaging.RedisStompRelay;
+import com.shrihari.axios.readData.SummaryCache;
+import com.shrihari.axios.services.LoggingService;
+import com.shrihari.axios.services.SummarizationService;
+import com.shrihari.axios.utils.LruCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/*
+ * Publishes the Stats records the components already keep: running totals as counters,
+ * current levels (queue depths, in-flight calls, cache sizes) as gauges. Values are read
+ * from stats() at scrape time, so nothing is added to the components' own hot paths.
+ * summarization.breaker.state is 0 closed, 1 open, 2 half open.
+ */
+@Component
+public class ComponentMetrics implements MeterBinder {
+
+    @Autowired
+    private SummaryCache summaryCache;
+    @Autowired
+    private LoggingService loggingService;
+    @Autowired
+    private SummarizationService summarizationService;
+    @Autowired
+    private CatalogueCache catalogueCache;
+    @Autowired
+    private InventoryStockService inventoryStockService;
+    @Autowired
+    private NotificationService notificationService;
+    @Autowired
+    private ObjectProvider<RedisStompRelay> stompRelay;
+    @Autowired
+    private ObjectProvider<PinningMonitor> pinningMonitor;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        counter(registry, "summary.cache.hits", () -> summaryCache.stats().hits());
+        counter(registry, "summary.cache.misses", () -> summaryCache.stats().misses());
+        counter(registry, "summary.cache.evictions", () -> summaryCache.stats().evictions());
+        gauge(registry, "summary.cache.entries", () -> summaryCache.stats().entries());
+        gauge(registry, "summary.cache.weight.bytes", () -> summaryCache.stats().weight());
+
+        counter(registry, "error.log.written", () -> loggingService.stats().written());
+        counter(registry, "error.log.dropped", () -> loggingService.stats().dropped());
+        counter(registry, "error.log.write.errors", () -> loggingService.stats().writeErrors());
+        gauge(registry, "error.log.queued", () -> loggingService.stats().queued());
+
+        counter(registry, "summarization.requests", () -> summarizationService.stats().requests());
+        counter(registry, "summarization.cache.hits", () -> summarizationService.stats().cacheHits());
+        counter(registry, "summarization.shared", () -> summarizationService.stats().shared());
+        counter(registry, "summarization.model.calls", () -> summarizationService.stats().modelCalls());
+        counter(registry, "summarization.failures", () -> summarizationService.stats().failures());
+        counter(registry, "summarization.timeouts", () -> summarizationService.stats().timeouts());
+        counter(registry, "summarization.rejected", () -> summarizationService.stats().rejected());
+        counter(registry, "summarization.short.circuited", () -> summarizationService.stats().shortCircuited());
+        gauge(registry, "summarization.active", () -> summarizationService.stats().active());
+        gauge(registry, "summarization.queued", () -> summarizationService.stats().queued());
+        gauge(registry, "summarization.breaker.state", () -> summarizationService.stats().breaker().ordinal());
+
+        cache(registry, "medicines", () -> catalogueCache.stats().medicines());
+        cache(registry, "pharmacies.id", () -> catalogueCache.stats().pharmaciesById());
+        cache(registry, "pharmacies.email", () -> catalogueCache.stats().pharmaciesByEmail());
+        cache(registry, "pharmacies.all", () -> catalogueCache.stats().pharmacyList());
+        counter(registry, "catalogue.invalidations.published", () -> catalogueCache.stats().published());
+        counter(registry, "catalogue.invalidations.received", () -> catalogueCache.stats().received());
+
+        counter(registry, "inventory.deltas", () -> inventoryStockService.stats().deltas());
+        counter(registry, "inventory.conflicts", () -> inventoryStockService.stats().conflicts());
+        counter(registry, "inventory.reservations", () -> inventoryStockService.stats().reservations());
+        counter(registry, "inventory.reservations.expired", () -> inventoryStockService.stats().expired());
+
+        counter(registry, "notification.requests", () -> notificationService.requestStats().events());
+        counter(registry, "notification.requests.flushed", () -> notificationService.requestStats().drained());
+        gauge(registry, "notification.requests.pending", () -> notificationService.requestStats().pending());
+
+        RedisStompRelay relay = stompRelay.getIfAvailable();
+        if (relay != null) {
+            counter(registry, "stomp.relay.published", () -> relay.stats().published());
+            counter(registry, "stomp.relay.received", () -> relay.stats().received());
+            counter(registry, "stomp.relay.dropped", () -> relay.stats().dropped());
+            counter(registry, "stomp.relay.errors", () -> relay.stats().publishErrors() + relay.stats().deliveryErrors());
+            gauge(registry, "stomp.relay.queued", () -> relay.stats().queued());
+        }
+
+        PinningMonitor pinning = pinningMonitor.getIfAvailable();
+        if (pinning != null) {
+            counter(registry, "virtual.threads.pinned", () -> pinning.stats().pinned());
+            counter(registry, "virtual.threads.pinned.seconds", () -> pinning.stats().pinnedMillis() / 1000.0);
+            counter(registry, "virtual.threads.submit.failed", () -> pinning.stats().submitFailed());
+        }
+    }
+
+    // the meters hold their state object weakly, so they all hang off this singleton
+    private void cache(MeterRegistry registry, String name, Supplier<LruCache.Stats> stats) {
+        FunctionCounter.builder("catalogue.cache.hits", this, self -> stats.get().hits()).tag("cache", name).register(registry);
+        FunctionCounter.builder("catalogue.cache.misses", this, self -> stats.get().misses()).tag("cache", name).register(registry);
+        FunctionCounter.builder("catalogue.cache.evictions", this, self -> stats.get().evictions()).tag("cache", name).register(registry);
+        Gauge.builder("catalogue.cache.entries", this, self -> stats.get().entries()).tag("cache", name).register(registry);
+        Gauge.builder("catalogue.cache.hit.ratio", this, self -> stats.get().hitRate()).tag("cache", name).register(registry);
+    }
+
+    private void counter(MeterRegistry registry, String name, Supplier<Number> value) {
+        FunctionCounter.builder(name, this, self -> value.get().doubleValue()).register(registry);
+    }
+
+    private void gauge(MeterRegistry registry, String name, Supplier<Number> value) {
+        Gauge.builder(name, this, self -> value.get().doubleValue()).register(registry);
+    }
+}
@@ -0,0 +1,27 @@
+package com.shrihari.axios.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+class MetricsConfig {
+
+    /* static and with a lazy registry, so the registry is still configured by Boot's own post processors */
+    @Bean
+    static BeanPostProcessor timedDataSourcePostProcessor(ObjectProvider<MeterRegistry> registry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource && !(bean instanceof TimedDataSource)
+                        ? new TimedDataSource(dataSource, () -> registry.getIfAvailable(() -> Metrics.globalRegistry))
+                        : bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,140 @@
+package com.shrihari.axios.metrics;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Streams the JFR events the JDK raises when a virtual thread blocks while pinned to its
+ * carrier (inside synchronized code or a native frame) for longer than the threshold.
+ * Each pinning site, the first frame outside the JDK, is counted and keeps the stack it
+ * was first seen with. The sites are served at /actuator/pinning on the management
+ * port. Only runs when spring.threads.virtual.enabled is set.
+ */
+@Component
+@Endpoint(id = "pinning")
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class PinningMonitor {
+
+    static final String PINNED = "jdk.VirtualThreadPinned";
+    static final String SUBMIT_FAILED = "jdk.VirtualThreadSubmitFailed";
+    private static final String OTHER_SITES = "(other)";
+
+    public record Site(String frame, long count, long maxMillis, List<String> stack) {
+    }
+
+    public record Stats(long pinned, long pinnedMillis, long submitFailed, List<Site> sites) {
+    }
+
+    private static final class SiteCounter {
+        private final LongAdder count = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final List<String> stack;
+
+        private SiteCounter(List<String> stack) {
+            this.stack = stack;
+        }
+    }
+
+    private final Duration threshold;
+    private final int maxSites;
+    private final LongAdder pinned = new LongAdder();
+    private final LongAdder pinnedNanos = new LongAdder();
+    private final LongAdder submitFailed = new LongAdder();
+    private final ConcurrentHashMap<String, SiteCounter> sites = new ConcurrentHashMap<>();
+    private RecordingStream stream;
+
+    @Autowired
+    public PinningMonitor(@Value("${virtual-threads.pinned-threshold:PT20MS}") Duration threshold,
+                          @Value("${virtual-threads.max-sites:50}") int maxSites) {
+        this.threshold = threshold;
+        this.maxSites = maxSites;
+    }
+
+    @PostConstruct
+    void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED).withThreshold(threshold).withStackTrace();
+        stream.enable(SUBMIT_FAILED).withStackTrace();
+        stream.onEvent(PINNED, this::onPinned);
+        stream.onEvent(SUBMIT_FAILED, event -> submitFailed.increment());
+        stream.startAsync();
+    }
+
+    @PreDestroy
+    void stop() {
+        stream.close();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        long nanos = event.getDuration().toNanos();
+        pinned.increment();
+        pinnedNanos.add(nanos);
+        String frame = site(event.getStackTrace());
+        SiteCounter counter = sites.get(frame);
+        if (counter == null) {
+            if (sites.size() >= maxSites) {
+                frame = OTHER_SITES;
+            }
+            SiteCounter created = new SiteCounter(frame.equals(OTHER_SITES) ? List.of() : stack(event.getStackTrace()));
+            counter = sites.putIfAbsent(frame, created);
+            if (counter == null) {
+                counter = created;
+            }
+        }
+        counter.count.increment();
+        counter.maxNanos.accumulate(nanos);
+    }
+
+    // the innermost frame that is not the JDK's own: the driver or library that blocked
+    static String site(RecordedStackTrace trace) {
+        if (trace == null) {
+            return OTHER_SITES;
+        }
+        for (RecordedFrame frame : trace.getFrames()) {
+            if (!frame.isJavaFrame()) {
+                continue;
+            }
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return type + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+            }
+        }
+        return OTHER_SITES;
+    }
+
+    private static List<String> stack(RecordedStackTrace trace) {
+        if (trace == null) {
+            return List.of();
+        }
+        return trace.getFrames().stream()
+                .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber())
+                .toList();
+    }
+
+    @ReadOperation
+    public Stats stats() {
+        List<Site> bySite = sites.entrySet().stream()
+                .map(entry -> new Site(entry.getKey(), entry.getValue().count.sum(), entry.getValue().maxNanos.get() / 1_000_000, entry.getValue().stack))
+                .sorted(Comparator.comparingLong(Site::count).reversed())
+                .toList();
+        return new Stats(pinned.sum(), pinnedNanos.sum() / 1_000_000, submitFailed.sum(), bySite);
+    }
+}
@@ -0,0 +1,115 @@
+package com.shrihari.axios.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/*
+ * Times every execute* call on the statements of the connections it hands out, as
+ * jdbc.statements tagged with the SQL verb. JdbcTemplate and Hibernate both go through
+ * it. unwrap still reaches the pool underneath, so the Hikari pool gauges keep working.
+ */
+public class TimedDataSource extends DelegatingDataSource {
+
+    static final String TIMER = "jdbc.statements";
+
+    private final Supplier<MeterRegistry> registry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public TimedDataSource(DataSource target, Supplier<MeterRegistry> registry) {
+        super(target);
+        this.registry = registry;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return timed(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return timed(super.getConnection(username, password));
+    }
+
+    private Connection timed(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = call(connection, method, args);
+                    if (result instanceof Statement statement) {
+                        String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                        return timed(statement, sql);
+                    }
+                    return result;
+                });
+    }
+
+    private Statement timed(Statement statement, String sql) {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (!method.getName().startsWith("execute")) {
+                return call(statement, method, args);
+            }
+            String text = sql != null ? sql : args != null && args.length > 0 && args[0] instanceof String given ? given : null;
+            String operation = method.getName().equals("executeBatch") && sql == null ? "batch" : operation(text);
+            long start = System.nanoTime();
+            boolean success = false;
+            try {
+                Object result = call(statement, method, args);
+                success = true;
+                return result;
+            } finally {
+                timer(operation, success).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        };
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private Timer timer(String operation, boolean success) {
+        String outcome = success ? "success" : "error";
+        return timers.computeIfAbsent(operation + ':' + outcome, key -> Timer.builder(TIMER)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(registry.get()));
+    }
+
+    static String operation(String sql) {
+        if (sql == null) {
+            return "other";
+        }
+        String trimmed = sql.stripLeading();
+        int end = 0;
+        while (end < trimmed.length() && Character.isLetter(trimmed.charAt(end))) {
+            end++;
+        }
+        String verb = trimmed.substring(0, end).toLowerCase(Locale.ROOT);
+        return switch (verb) {
+            case "select", "insert", "update", "delete", "call" -> verb;
+            default -> "other";
+        };
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
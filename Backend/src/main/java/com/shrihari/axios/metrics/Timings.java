@@ -0,0 +1,25 @@
+package com.shrihari.axios.metrics;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/*
+ * Timers for calls made from classes that are also built by hand in tests (the HTTP
+ * clients, the mail sender). They record on the global registry, to which Spring Boot
+ * adds the Prometheus registry, and cost next to nothing when nothing is attached.
+ */
+public final class Timings {
+
+    private Timings() {
+    }
+
+    public static Timer.Sample start() {
+        return Timer.start(Metrics.globalRegistry);
+    }
+
+    // tags are name/value pairs; outcome is added from success
+    public static void stop(Timer.Sample sample, String name, boolean success, String... tags) {
+        sample.stop(Metrics.globalRegistry.timer(name, Tags.of(tags).and("outcome", success ? "success" : "error")));
+    }
+}
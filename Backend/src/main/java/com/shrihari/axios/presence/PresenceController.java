@@ -0,0 +1,36 @@
+package com.shrihari.axios.presence;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/healthdesk/presence")
+@CrossOrigin(origins = "*")
+public class PresenceController {
+
+    @Autowired
+    private PresenceService presenceService;
+
+    @GetMapping("/doctors")
+    Object availability(@RequestParam List<String> emails) {
+        try {
+            return presenceService.availability(emails);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        }
+    }
+
+    @GetMapping("/online")
+    Object online(@RequestParam(required = false) String speciality) {
+        try {
+            return presenceService.online(speciality);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        }
+    }
+}
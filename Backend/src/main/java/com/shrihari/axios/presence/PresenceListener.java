@@ -0,0 +1,77 @@
+package com.shrihari.axios.presence;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+/*
+ * Subscribes to presence:events and to expired-key notifications. Redis only emits
+ * the latter with notify-keyspace-events containing E and x, which is switched on at
+ * startup unless presence.configure-keyspace-events is false (e.g. managed Redis
+ * where CONFIG is disabled and the flags are set by the provider).
+ */
+@Component
+public class PresenceListener {
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    @Autowired
+    private PresenceService presenceService;
+
+    @Value("${presence.configure-keyspace-events:true}")
+    private boolean configureKeyspaceEvents;
+
+    @PostConstruct
+    void subscribe() {
+        if (configureKeyspaceEvents) {
+            try {
+                enableExpiredEvents();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        listenerContainer.addMessageListener((message, pattern) -> {
+            try {
+                presenceService.published(new String(message.getBody(), StandardCharsets.UTF_8));
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }, new ChannelTopic(PresenceService.EVENTS_CHANNEL));
+        listenerContainer.addMessageListener((message, pattern) -> {
+            try {
+                presenceService.expired(new String(message.getBody(), StandardCharsets.UTF_8));
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }, new PatternTopic("__keyevent@*__:expired"));
+    }
+
+    private void enableExpiredEvents() {
+        redisTemplate.execute((RedisConnection connection) -> {
+            Properties config = connection.serverCommands().getConfig("notify-keyspace-events");
+            String flags = config == null ? "" : config.getProperty("notify-keyspace-events", "");
+            String wanted = flags;
+            if (!wanted.contains("E")) {
+                wanted += "E";
+            }
+            if (!wanted.contains("x") && !wanted.contains("A")) {
+                wanted += "x";
+            }
+            if (!wanted.equals(flags)) {
+                connection.serverCommands().setConfig("notify-keyspace-events", wanted);
+            }
+            return null;
+        });
+    }
+}
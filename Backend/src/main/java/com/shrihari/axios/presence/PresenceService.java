@@ -0,0 +1,187 @@
+package com.shrihari.axios.presence;
+
+import com.google.gson.Gson;
+import com.shrihari.axios.messaging.StompRelay;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Doctor presence. The availability key is still the doctor's email with a 60 minute
+ * TTL, so existing readers keep working. Next to it every doctor has an entry in
+ * presence:speciality and sits in presence:online / presence:online:<speciality>
+ * while available; those sets are only a hint and every read confirms membership
+ * against the TTL keys with one MGET.
+ *
+ * Changes made through this service are published on presence:events so every
+ * instance can forward them to its own STOMP clients; expiries come from Redis
+ * keyspace notifications, which every instance receives by itself.
+ */
+@Service
+public class PresenceService {
+
+    static final Duration TTL = Duration.ofMinutes(60);
+    static final String AVAILABLE = "Available";
+    static final String SPECIALITY_HASH = "presence:speciality";
+    static final String ONLINE_SET = "presence:online";
+    static final String ONLINE_PREFIX = "presence:online:";
+    public static final String EVENTS_CHANNEL = "presence:events";
+    public static final String DESTINATION = "/queue/presence";
+    private static final Map<String, Object> LOCAL_ONLY = Map.of(StompRelay.LOCAL_ONLY_HEADER, "true");
+
+    /*
+     * Drops ARGV[1] from the online sets in KEYS[2..] only while its key KEYS[1] is still
+     * gone; 0 when the doctor came back online before the notification was handled. Every
+     * instance handles the same expiry, so a member that another one already removed
+     * still counts as expired.
+     */
+    private static final DefaultRedisScript<Long> EXPIRE = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 1 then return 0 end "
+                    + "for i = 2, #KEYS do redis.call('srem', KEYS[i], ARGV[1]) end "
+                    + "return 1", Long.class);
+
+    public enum Status {
+        ONLINE, OFFLINE
+    }
+
+    public enum Reason {
+        SET, UNSET, EXPIRED
+    }
+
+    public record PresenceEvent(String doctor, String speciality, Status status, Reason reason, long at) {
+    }
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+    @Autowired
+    private Gson gson;
+
+    public void setAvailable(String doctor, String speciality) {
+        String previous = (String) redisTemplate.opsForHash().get(SPECIALITY_HASH, doctor);
+        String current = speciality == null || speciality.isBlank() ? (previous == null ? "" : previous) : speciality.trim();
+        String event = gson.toJson(new PresenceEvent(doctor, current, Status.ONLINE, Reason.SET, System.currentTimeMillis()));
+
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            redis.set(doctor, AVAILABLE, Expiration.from(TTL), RedisStringCommands.SetOption.upsert());
+            redis.hSet(SPECIALITY_HASH, doctor, current);
+            redis.sAdd(ONLINE_SET, doctor);
+            if (!current.isEmpty()) {
+                redis.sAdd(ONLINE_PREFIX + current, doctor);
+            }
+            if (previous != null && !previous.isEmpty() && !previous.equals(current)) {
+                redis.sRem(ONLINE_PREFIX + previous, doctor);
+            }
+            redis.publish(EVENTS_CHANNEL, event);
+            return null;
+        });
+    }
+
+    // a heartbeat after the key already expired brings the doctor back online
+    public void extend(String doctor) {
+        if (!Boolean.TRUE.equals(redisTemplate.expire(doctor, TTL))) {
+            setAvailable(doctor, null);
+        }
+    }
+
+    public void setUnavailable(String doctor) {
+        String speciality = (String) redisTemplate.opsForHash().get(SPECIALITY_HASH, doctor);
+        String event = gson.toJson(new PresenceEvent(doctor, speciality, Status.OFFLINE, Reason.UNSET, System.currentTimeMillis()));
+
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            redis.del(doctor);
+            redis.sRem(ONLINE_SET, doctor);
+            if (speciality != null && !speciality.isEmpty()) {
+                redis.sRem(ONLINE_PREFIX + speciality, doctor);
+            }
+            redis.publish(EVENTS_CHANNEL, event);
+            return null;
+        });
+    }
+
+    public boolean isAvailable(String doctor) {
+        return redisTemplate.opsForValue().get(doctor) != null;
+    }
+
+    // one MGET round trip for any number of doctors
+    public Map<String, Boolean> availability(Collection<String> doctors) {
+        List<String> keys = doctors.stream().distinct().toList();
+        Map<String, Boolean> result = new LinkedHashMap<>();
+        if (keys.isEmpty()) {
+            return result;
+        }
+        List<String> values = redisTemplate.opsForValue().multiGet(keys);
+        for (int i = 0; i < keys.size(); i++) {
+            result.put(keys.get(i), values != null && values.get(i) != null);
+        }
+        return result;
+    }
+
+    public List<String> online(String speciality) {
+        String set = speciality == null || speciality.isBlank() ? ONLINE_SET : ONLINE_PREFIX + speciality.trim();
+        Set<String> members = redisTemplate.opsForSet().members(set);
+        if (members == null || members.isEmpty()) {
+            return List.of();
+        }
+        List<String> online = new ArrayList<>();
+        List<String> stale = new ArrayList<>();
+        availability(members).forEach((doctor, available) -> (available ? online : stale).add(doctor));
+        if (!stale.isEmpty()) {
+            redisTemplate.opsForSet().remove(set, stale.toArray());
+        }
+        return online;
+    }
+
+    /*
+     * Called for every expired key in Redis; keys that are not doctors are ignored with
+     * a single HGET. A doctor who set themselves available again in the meantime stays
+     * online and nothing is pushed. Not republished: every instance receives the expiry
+     * itself.
+     */
+    void expired(String key) {
+        String speciality = (String) redisTemplate.opsForHash().get(SPECIALITY_HASH, key);
+        if (speciality == null) {
+            return;
+        }
+        List<String> keys = speciality.isEmpty() ? List.of(key, ONLINE_SET) : List.of(key, ONLINE_SET, ONLINE_PREFIX + speciality);
+        if (!Long.valueOf(1).equals(redisTemplate.execute(EXPIRE, keys, key))) {
+            return;
+        }
+        forward(new PresenceEvent(key, speciality, Status.OFFLINE, Reason.EXPIRED, System.currentTimeMillis()));
+    }
+
+    void published(String message) {
+        forward(gson.fromJson(message, PresenceEvent.class));
+    }
+
+    /* every node receives the event itself, so the STOMP relay must not copy these */
+    private void forward(PresenceEvent event) {
+        messagingTemplate.convertAndSend(DESTINATION, event, LOCAL_ONLY);
+        if (event.speciality() != null && !event.speciality().isEmpty()) {
+            messagingTemplate.convertAndSend(destination(event.speciality()), event, LOCAL_ONLY);
+        }
+    }
+
+    // /queue/presence.cardiology, /queue/presence.general-medicine
+    public static String destination(String speciality) {
+        return DESTINATION + "." + speciality.trim().toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-");
+    }
+}
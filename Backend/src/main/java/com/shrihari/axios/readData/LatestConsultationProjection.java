@@ -0,0 +1,76 @@
+package com.shrihari.axios.readData;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.shrihari.axios.utils.Cursor;
+import com.shrihari.axios.utils.CursorPage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.lang.reflect.Type;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.function.Consumer;
+
+/*
+ * patient_latest_consultation keeps one row per (doctor, patient) holding the newest
+ * consultation's time and its diagnosis already pulled out of summary_data. It is
+ * updated on every conversation_summary insert, so the doctor patient list is a single
+ * range read over (doctor_email_id, datetime) instead of a window function over the
+ * doctor's whole history. The table and its backfill are a migration in the README.
+ */
+@Repository
+public class LatestConsultationProjection {
+
+    private static final Type DIAGNOSIS_TYPE = new TypeToken<List<String>>() {
+    }.getType();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private Gson gson;
+
+    private static final String FOR_DOCTOR = "select l.patient_phonenumber, p.name, l.diagnosis, l.datetime from patient_latest_consultation l " +
+            "left join patients p on p.phone = l.patient_phonenumber where l.doctor_email_id = ?";
+    private static final String PAGE_ORDER = " order by l.datetime desc, l.patient_phonenumber limit ?";
+
+    public record Row(String patientPhone, String patientName, List<String> diagnosis, String datetime) {
+    }
+
+    // only moves forward, so a late or replayed insert cannot hide a newer consultation
+    public void record(String doctorEmail, String patientPhone, List<String> diagnosis, Object datetime) {
+        jdbcTemplate.update("insert into patient_latest_consultation (doctor_email_id, patient_phonenumber, diagnosis, datetime) values (?,?,?,?) " +
+                        "on duplicate key update diagnosis = case when values(datetime) >= datetime then values(diagnosis) else diagnosis end, " +
+                        "datetime = greatest(datetime, values(datetime))",
+                doctorEmail, patientPhone, gson.toJson(diagnosis), datetime);
+    }
+
+    public List<Row> forDoctor(String doctorEmail) {
+        return jdbcTemplate.query(FOR_DOCTOR + " order by l.datetime desc", rowMapper(), doctorEmail);
+    }
+
+    // newest first, keyed on (datetime desc, patient_phonenumber)
+    public CursorPage<List<Row>> forDoctorPage(String doctorEmail, String after, int limit) {
+        List<Row> rows;
+        if (after == null) {
+            rows = jdbcTemplate.query(FOR_DOCTOR + PAGE_ORDER, rowMapper(), doctorEmail, limit + 1);
+        } else {
+            String[] key = Cursor.decode(after, 2);
+            rows = jdbcTemplate.query(FOR_DOCTOR + " and (l.datetime < ? or (l.datetime = ? and l.patient_phonenumber > ?))" + PAGE_ORDER,
+                    rowMapper(), doctorEmail, key[0], key[0], key[1], limit + 1);
+        }
+        return CursorPage.of(rows, limit, row -> Cursor.encode(row.datetime(), row.patientPhone()));
+    }
+
+    public void streamForDoctor(String doctorEmail, Consumer<? super Row> sink) {
+        RowMapper<Row> mapper = rowMapper();
+        jdbcTemplate.query(PatientRecordService.streaming(FOR_DOCTOR + " order by l.datetime desc, l.patient_phonenumber", doctorEmail),
+                (ResultSet rs) -> sink.accept(mapper.mapRow(rs, 0)));
+    }
+
+    private RowMapper<Row> rowMapper() {
+        return (rs, i) -> new Row(rs.getString(1), rs.getString(2), gson.fromJson(rs.getString(3), DIAGNOSIS_TYPE), rs.getString(4));
+    }
+}
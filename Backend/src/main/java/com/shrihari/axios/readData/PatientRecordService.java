@@ -0,0 +1,273 @@
+package com.shrihari.axios.readData;
+
+import com.google.gson.Gson;
+import com.shrihari.axios.getData.summaryStructure;
+import com.shrihari.axios.utils.Cursor;
+import com.shrihari.axios.utils.CursorPage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/*
+ * Stateless queries behind readData. Every method builds its result from local
+ * variables and hands back an unmodifiable record, so concurrent requests never
+ * share intermediate state.
+ */
+@Service
+public class PatientRecordService {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private Gson gson;
+    @Autowired
+    private LatestConsultationProjection latestConsultations;
+    @Autowired
+    private SummaryCache summaryCache;
+
+    private static final int SUMMARY_BATCH_SIZE = 500;
+
+    // datetime is selected last for the keyset; the row mappers do not read it
+    private static final String VIDEO_DATA_QUERY = "select transcribed_text_summary,severity,doctor_assigned,doctor_remarks,uuid,has_video,datetime from patient_videos where patient_phone = ?";
+    private static final String VIDEO_LIST_VIEW_QUERY = "select transcribed_text_summary,severity,uuid,has_video,datetime from patient_videos where doctor_speciality = ? and doctor_assigned is null and doctor_remarks is null";
+    private static final String VIDEO_ORDER = " order by datetime, uuid";
+
+    private static final RowMapper<ConversationRef> CONVERSATION_REF = (rs, i) -> new ConversationRef(rs.getLong(1), rs.getString(2));
+    private static final RowMapper<video_entry> VIDEO_DATA_ROW = (rs, i) -> new video_entry(rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5),
+            rs.getString(6) != null ? "true" : "false", null);
+    private static final RowMapper<video_entry> VIDEO_LIST_VIEW_ROW = (rs, i) -> new video_entry(rs.getString(1), rs.getString(2), null, null, rs.getString(3),
+            rs.getString(4) != null ? "true" : "false", null);
+
+    private record ConversationRef(long id, String datetime) {
+    }
+
+    private record ConversationRow(summaryStructure summary, String datetime) {
+    }
+
+    private record VideoRow(video_entry entry, String datetime) {
+    }
+
+    public Optional<String> doctorName(String email) {
+        return last(jdbcTemplate.query("select name from doctor_master where email = ? ", (rs, i) -> rs.getString(1), email));
+    }
+
+    public Optional<String> patientPhone(String email) {
+        return last(jdbcTemplate.query("select phone from user where email = ?", (rs, i) -> rs.getString(1), email));
+    }
+
+    public Optional<String> patientName(String phone) {
+        return last(jdbcTemplate.query("select name from user where phone = ? ", (rs, i) -> rs.getString(1), phone));
+    }
+
+    public conversation_record conversation(String patientPhone) {
+        return conversationRecord(jdbcTemplate.query("select id,datetime from conversation_summary where patient_phonenumber = ?", CONVERSATION_REF, patientPhone));
+    }
+
+    // oldest first, keyed on (datetime, id) so rows sharing a timestamp are neither skipped nor repeated
+    public CursorPage<conversation_record> conversationPage(String patientPhone, String after, int limit) {
+        int size = CursorPage.clamp(limit);
+        List<ConversationRef> refs;
+        if (after == null) {
+            refs = jdbcTemplate.query("select id,datetime from conversation_summary where patient_phonenumber = ? order by datetime, id limit ?",
+                    CONVERSATION_REF, patientPhone, size + 1);
+        } else {
+            String[] key = Cursor.decode(after, 2);
+            refs = jdbcTemplate.query("select id,datetime from conversation_summary where patient_phonenumber = ? " +
+                            "and (datetime > ? or (datetime = ? and id > ?)) order by datetime, id limit ?",
+                    CONVERSATION_REF, patientPhone, key[0], key[0], parseId(key[1]), size + 1);
+        }
+        CursorPage<List<ConversationRef>> page = CursorPage.of(refs, size, ref -> Cursor.encode(ref.datetime(), String.valueOf(ref.id())));
+        return new CursorPage<>(conversationRecord(page.data()), page.nextCursor());
+    }
+
+    public void streamConversation(String patientPhone, Consumer<? super conversation_entry> sink) {
+        jdbcTemplate.query(streaming("select datetime,summary_data from conversation_summary where patient_phonenumber = ? order by datetime, id", patientPhone), (ResultSet rs) -> {
+            summaryStructure summary = gson.fromJson(rs.getString(2), summaryStructure.class);
+            if (summary != null) {
+                sink.accept(conversation_entry.of(summary, rs.getString(1)));
+            }
+        });
+    }
+
+    private conversation_record conversationRecord(List<ConversationRef> refs) {
+        // ids first; summary_data is only transferred and parsed for rows the cache lacks
+        Map<Long, summaryStructure> summaries = new HashMap<>(summaryCache.getAll(refs.stream().map(ConversationRef::id).toList()));
+        List<Long> missing = refs.stream().map(ConversationRef::id).filter(id -> !summaries.containsKey(id)).toList();
+        for (int from = 0; from < missing.size(); from += SUMMARY_BATCH_SIZE) {
+            List<Long> batch = missing.subList(from, Math.min(from + SUMMARY_BATCH_SIZE, missing.size()));
+            jdbcTemplate.query("select id,summary_data from conversation_summary where id in (" + String.join(",", Collections.nCopies(batch.size(), "?")) + ")", (ResultSet rs) -> {
+                String json = rs.getString(2);
+                summaryStructure summary = gson.fromJson(json, summaryStructure.class);
+                summaries.put(rs.getLong(1), summary);
+                summaryCache.put(rs.getLong(1), summary, json == null ? 0 : json.length());
+            }, batch.toArray());
+        }
+        List<ConversationRow> rows = refs.stream()
+                .filter(ref -> summaries.get(ref.id()) != null)
+                .map(ref -> new ConversationRow(summaries.get(ref.id()), ref.datetime()))
+                .toList();
+
+        List<List<String>> symptoms = new ArrayList<>(), diagnosis = new ArrayList<>(), prescription = new ArrayList<>(), vitals = new ArrayList<>(),
+                lifestyleAdvice = new ArrayList<>(), testsRecommended = new ArrayList<>(), followUpPlan = new ArrayList<>(), datetime = new ArrayList<>();
+        for (ConversationRow row : rows) {
+            symptoms.add(row.summary().symptoms);
+            diagnosis.add(row.summary().diagnosis);
+            prescription.add(row.summary().prescription);
+            vitals.add(row.summary().vitals);
+            lifestyleAdvice.add(row.summary().lifestyle_advice);
+            testsRecommended.add(row.summary().tests_recommended);
+            followUpPlan.add(row.summary().follow_up_plan);
+            datetime.add(Collections.singletonList(row.datetime()));
+        }
+        return new conversation_record(frozen(symptoms), frozen(diagnosis), frozen(prescription), frozen(vitals),
+                frozen(lifestyleAdvice), frozen(testsRecommended), frozen(followUpPlan), frozen(datetime));
+    }
+
+    public patient_list patientList(String doctorEmail) {
+        return patientListRecord(latestConsultations.forDoctor(doctorEmail));
+    }
+
+    public CursorPage<patient_list> patientListPage(String doctorEmail, String after, int limit) {
+        CursorPage<List<LatestConsultationProjection.Row>> page = latestConsultations.forDoctorPage(doctorEmail, after, CursorPage.clamp(limit));
+        return new CursorPage<>(patientListRecord(page.data()), page.nextCursor());
+    }
+
+    public void streamPatientList(String doctorEmail, Consumer<? super LatestConsultationProjection.Row> sink) {
+        latestConsultations.streamForDoctor(doctorEmail, sink);
+    }
+
+    private static patient_list patientListRecord(List<LatestConsultationProjection.Row> rows) {
+        List<List<String>> names = new ArrayList<>(), phones = new ArrayList<>(), diagnosis = new ArrayList<>(), datetime = new ArrayList<>();
+        for (LatestConsultationProjection.Row row : rows) {
+            phones.add(Collections.singletonList(row.patientPhone()));
+            names.add(Collections.singletonList(row.patientName()));
+            diagnosis.add(row.diagnosis());
+            datetime.add(Collections.singletonList(row.datetime()));
+        }
+        return new patient_list(frozen(names), frozen(phones), frozen(diagnosis), frozen(datetime));
+    }
+
+    public patient_details_record patientDetails(String phone) {
+        return last(jdbcTemplate.query("select name,age,gender,bloodType,allergies from patients where phone = ?",
+                (rs, i) -> new patient_details_record(rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5)), phone))
+                .orElse(new patient_details_record(null, null, null, null, null));
+    }
+
+    public videoSummaryData videoData(String phone) {
+        return videoSummary(jdbcTemplate.query(VIDEO_DATA_QUERY + VIDEO_ORDER, VIDEO_DATA_ROW, phone), true, true);
+    }
+
+    public CursorPage<videoSummaryData> videoDataPage(String phone, String after, int limit) {
+        CursorPage<List<video_entry>> page = videoPage(VIDEO_DATA_QUERY, VIDEO_DATA_ROW, phone, after, limit);
+        return new CursorPage<>(videoSummary(page.data(), true, true), page.nextCursor());
+    }
+
+    public void streamVideoData(String phone, Consumer<? super video_entry> sink) {
+        jdbcTemplate.query(streaming(VIDEO_DATA_QUERY + VIDEO_ORDER, phone), (ResultSet rs) -> {
+            sink.accept(VIDEO_DATA_ROW.mapRow(rs, 0));
+        });
+    }
+
+    public videoSummaryData videoDetail(String videoUuid) {
+        List<video_entry> rows = jdbcTemplate.query("select transcribed_text_summary,severity,doctor_speciality,has_video,doctor_assigned,doctor_remarks from patient_videos where uuid = ?",
+                (rs, i) -> new video_entry(rs.getString(1), rs.getString(2), rs.getString(5) == null ? "" : rs.getString(5), rs.getString(6) == null ? "" : rs.getString(6), null,
+                        rs.getString(4) == null ? "true" : "false", rs.getString(3)), videoUuid);
+        return videoSummary(rows, false, true);
+    }
+
+    public videoSummaryData videoSummaryListView(String doctorSpeciality) {
+        return videoSummary(jdbcTemplate.query(VIDEO_LIST_VIEW_QUERY + VIDEO_ORDER, VIDEO_LIST_VIEW_ROW, doctorSpeciality), true, false);
+    }
+
+    public CursorPage<videoSummaryData> videoSummaryListViewPage(String doctorSpeciality, String after, int limit) {
+        CursorPage<List<video_entry>> page = videoPage(VIDEO_LIST_VIEW_QUERY, VIDEO_LIST_VIEW_ROW, doctorSpeciality, after, limit);
+        return new CursorPage<>(videoSummary(page.data(), true, false), page.nextCursor());
+    }
+
+    public void streamVideoSummaryListView(String doctorSpeciality, Consumer<? super video_entry> sink) {
+        jdbcTemplate.query(streaming(VIDEO_LIST_VIEW_QUERY + VIDEO_ORDER, doctorSpeciality), (ResultSet rs) -> {
+            sink.accept(VIDEO_LIST_VIEW_ROW.mapRow(rs, 0));
+        });
+    }
+
+    // oldest first, keyed on (datetime, uuid); uuid is a hash, so it only breaks ties
+    private CursorPage<List<video_entry>> videoPage(String query, RowMapper<video_entry> mapper, String filter, String after, int limit) {
+        int size = CursorPage.clamp(limit);
+        RowMapper<VideoRow> keyed = (rs, i) -> new VideoRow(mapper.mapRow(rs, i), rs.getString("datetime"));
+        List<VideoRow> rows;
+        if (after == null) {
+            rows = jdbcTemplate.query(query + VIDEO_ORDER + " limit ?", keyed, filter, size + 1);
+        } else {
+            String[] key = Cursor.decode(after, 2);
+            rows = jdbcTemplate.query(query + " and (datetime > ? or (datetime = ? and uuid > ?))" + VIDEO_ORDER + " limit ?",
+                    keyed, filter, key[0], key[0], key[1], size + 1);
+        }
+        CursorPage<List<VideoRow>> page = CursorPage.of(rows, size, row -> Cursor.encode(row.datetime(), row.entry().uuid()));
+        return new CursorPage<>(page.data().stream().map(VideoRow::entry).toList(), page.nextCursor());
+    }
+
+    private static videoSummaryData videoSummary(List<video_entry> rows, boolean withUuid, boolean withDoctor) {
+        List<String> summary = new ArrayList<>(), doctorSummary = new ArrayList<>(), severity = new ArrayList<>(),
+                doctorAssigned = new ArrayList<>(), uuid = new ArrayList<>(), hasVideo = new ArrayList<>();
+        String speciality = null;
+        for (video_entry row : rows) {
+            summary.add(row.patientVideoSummary());
+            severity.add(row.severity());
+            if (withDoctor) {
+                doctorSummary.add(row.doctorSummary());
+                doctorAssigned.add(row.doctorAssigned());
+            }
+            if (withUuid) {
+                uuid.add(row.uuid());
+            }
+            hasVideo.add(row.hasVideo());
+            if (row.doctorSpeciality() != null) {
+                speciality = row.doctorSpeciality();
+            }
+        }
+        return new videoSummaryData(frozen(summary), frozen(doctorSummary), frozen(severity), frozen(doctorAssigned), frozen(uuid), frozen(hasVideo), speciality);
+    }
+
+    /*
+     * Connector/J only hands rows over one at a time, instead of buffering the whole
+     * result, for a forward-only statement with this fetch size.
+     */
+    static PreparedStatementCreator streaming(String sql, Object... args) {
+        return connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(Integer.MIN_VALUE);
+            new ArgumentPreparedStatementSetter(args).setValues(statement);
+            return statement;
+        };
+    }
+
+    private static long parseId(String id) {
+        try {
+            return Long.parseLong(id);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    // the old field-based readers kept whatever the last row wrote
+    private static <T> Optional<T> last(List<T> rows) {
+        return rows.isEmpty() ? Optional.empty() : Optional.ofNullable(rows.get(rows.size() - 1));
+    }
+
+    private static <T> List<T> frozen(List<T> list) {
+        return Collections.unmodifiableList(list);
+    }
+}
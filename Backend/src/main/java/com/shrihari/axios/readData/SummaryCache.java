@@ -0,0 +1,48 @@
+package com.shrihari.axios.readData;
+
+import com.shrihari.axios.getData.summaryStructure;
+import com.shrihari.axios.utils.LruCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * Parsed conversation summaries keyed by conversation_summary.id. Entries are weighed
+ * by the size of the JSON they came from and evicted least-recently-used first once
+ * the configured byte budget is exceeded. Summaries are never rewritten, so entries do
+ * not expire.
+ */
+@Component
+public class SummaryCache {
+
+    private record Entry(summaryStructure summary, long weight) {
+    }
+
+    private final LruCache<Long, Entry> entries;
+
+    public SummaryCache(@Value("${summary-cache.max-size:64MB}") DataSize maxSize) {
+        this.entries = new LruCache<>(maxSize.toBytes(), null, Entry::weight);
+    }
+
+    // returns the cached summaries among ids; ids not in the result are misses
+    public Map<Long, summaryStructure> getAll(Collection<Long> ids) {
+        Map<Long, summaryStructure> found = new HashMap<>();
+        entries.getAll(ids).forEach((id, entry) -> found.put(id, entry.summary()));
+        return found;
+    }
+
+    public void put(long id, summaryStructure summary, int jsonLength) {
+        if (summary != null) {
+            // UTF-16 chars plus object and list overhead, close enough for a budget
+            entries.put(id, new Entry(summary, 2L * jsonLength + 256));
+        }
+    }
+
+    public LruCache.Stats stats() {
+        return entries.stats();
+    }
+}
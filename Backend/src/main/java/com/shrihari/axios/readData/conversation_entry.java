@@ -0,0 +1,12 @@
+package com.shrihari.axios.readData;
+
+import com.shrihari.axios.getData.summaryStructure;
+
+import java.util.List;
+
+public record conversation_entry(List<String> symptomps, List<String> diagnosis, List<String> prescription, List<String> vitals, List<String> lifestyle_advice, List<String> tests_recommended, List<String> follow_up_plan, String date) {
+
+    static conversation_entry of(summaryStructure summary, String date) {
+        return new conversation_entry(summary.symptoms, summary.diagnosis, summary.prescription, summary.vitals, summary.lifestyle_advice, summary.tests_recommended, summary.follow_up_plan, date);
+    }
+}
@@ -1,21 +1,17 @@
 package com.shrihari.axios.readData;
 
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
-import com.shrihari.axios.getData.summaryStructure;
-import com.shrihari.axios.security.JwtGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shrihari.axios.presence.PresenceService;
+import com.shrihari.axios.security.RouteAccess;
+import com.shrihari.axios.utils.CursorPage;
+import com.shrihari.axios.utils.JsonArrayStreamer;
 import com.shrihari.axios.utils.roles;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
-import java.lang.reflect.Type;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/healthdesk/read/data")
@@ -23,183 +19,29 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class readData {
     @Autowired
-    private JdbcTemplate jdbcTemplate;
-
-    @Autowired
-    private StringRedisTemplate redisTemplate;
+    private PatientRecordService patientRecordService;
     @Autowired
-    Gson gson;
-    String doctor_name;
-    String patientName;
-    String meetUuid;
-    String patientPhone, doctorSpeciality;
-    List<String> patientVideoSummary, doctorSummary, severity, doctorAssigned, uuid, hasVideo;
-    boolean validClaim = false;
-    JwtGenerator JwtGenerator;
-
+    private PresenceService presenceService;
     @Autowired
-    public void setJwtGenerator(JwtGenerator JwtGenerator) {
-        this.JwtGenerator = JwtGenerator;
-    }
-
-    int length;
-    int temp = 0;
-    List<List<String>> symptomps, diagnosis, prescription, vitals, lifestyle_advice, tests_recommended, follow_up_plan, patient_name, patient_phone, datetime;
-    String patientname, patientage, patientgender, patientbloodtype, pateintallergy;
-
-    void get_doctor_name(String emailid) {
-        jdbcTemplate.query("select name from doctor_master where email = ? ", rs -> {
-            doctor_name = rs.getString(1);
-        }, emailid);
-
-    }
-
-    void getPatientPhone(String email) {
-        jdbcTemplate.query("select phone from user where email = ?", rs -> {
-            patientPhone = rs.getString(1);
-        }, email);
-
-
-    }
-
-    Boolean getKeyValue(String key) {
-        String value = redisTemplate.opsForValue().get(key);
-        return !(value == null);
-    }
-
-    void get_patient_name(String phone) {
-        jdbcTemplate.query("select name from user where phone = ? ", rs -> {
-            patientName = rs.getString(1);
-        }, phone);
-
-    }
-
-    void get_meeting_id(String patientPhone, String doctorPhone, boolean isPatient) {
-        jdbcTemplate.query("select meet_uuid from videocall_log where patient_phone = ? and doctor_phone = ?", rs -> {
-            meetUuid = rs.getString(1);
-        }, patientPhone, doctorPhone);
-    }
-
-    void get_conversation(String patient_phnumber) {
-        symptomps = new ArrayList<>();
-        diagnosis = new ArrayList<>();
-        prescription = new ArrayList<>();
-        vitals = new ArrayList<>();
-        lifestyle_advice = new ArrayList<>();
-        tests_recommended = new ArrayList<>();
-        follow_up_plan = new ArrayList<>();
-        patient_name = new ArrayList<>();
-        patient_phone = new ArrayList<>();
-        datetime = new ArrayList<>();
-        Type summaryType = new TypeToken<summaryStructure>() {
-        }.getType();
-
-        jdbcTemplate.query("select summary_data,datetime from conversation_summary where patient_phonenumber = ?", rs -> {
-            summaryStructure summary = gson.fromJson(rs.getString(1), summaryType);
-            symptomps.add(summary.symptoms);
-            diagnosis.add(summary.diagnosis);
-            prescription.add(summary.prescription);
-            vitals.add(summary.vitals);
-            lifestyle_advice.add(summary.lifestyle_advice);
-            tests_recommended.add(summary.tests_recommended);
-            follow_up_plan.add(summary.follow_up_plan);
-            System.out.println(rs.getString(2));
-            datetime.add(Collections.singletonList(rs.getString(2)));
-
-        }, patient_phnumber);
-
-    }
-
-    void get_patient_list(String doctor_email) {
-        patient_name = new ArrayList<>();
-        patient_phone = new ArrayList<>();
-        diagnosis = new ArrayList<>();
-        datetime = new ArrayList<>();
-        Type summaryType = new TypeToken<summaryStructure>() {
-        }.getType();
-
-        jdbcTemplate.query("WITH RankedConversations AS ( SELECT cs.patient_phonenumber, p.name,  cs.summary_data, cs.datetime, ROW_NUMBER() OVER(PARTITION BY cs.patient_phonenumber ORDER BY cs.datetime DESC) as rn FROM conversation_summary AS cs LEFT JOIN patients AS p ON cs.patient_phonenumber = p.phone WHERE cs.doctor_email_id = ? )SELECT patient_phonenumber,name,summary_data,datetime FROM RankedConversations WHERE rn = 1 ORDER BY datetime DESC;", rs -> {
-            patient_phone.add(Collections.singletonList(rs.getString(1)));
-            patient_name.add(Collections.singletonList(rs.getString(2)));
-            summaryStructure summary = gson.fromJson(rs.getString(3), summaryType);
-            diagnosis.add(summary.diagnosis);
-            datetime.add(Collections.singletonList(rs.getString(4)));
-        }, doctor_email);
-    }
-
-    void get_patient_details(String phonenumber) {
-        patientname = null;
-        patientage = null;
-        patientgender = null;
-        patientbloodtype = null;
-        pateintallergy = null;
-        jdbcTemplate.query("select name,age,gender,bloodType,allergies from patients where phone = ?", rs -> {
-            patientname = rs.getString(1);
-            patientage = rs.getString(2);
-            patientgender = rs.getString(3);
-            patientbloodtype = rs.getString(4);
-            pateintallergy = rs.getString(5);
-        }, phonenumber);
-    }
-
-    void getPatientVideoData(String phonenumber) {
-        patientVideoSummary = new ArrayList<>();
-        uuid = new ArrayList<>();
-        doctorSummary = new ArrayList<>();
-        severity = new ArrayList<>();
-        doctorAssigned = new ArrayList<>();
-        hasVideo = new ArrayList<>();
-        doctorSpeciality = null;
-        jdbcTemplate.query("select transcribed_text_summary,severity,doctor_assigned,doctor_remarks,uuid,has_video from patient_videos where patient_phone = ?", rs -> {
-            patientVideoSummary.add(rs.getString(1));
-            severity.add(rs.getString(2));
-            doctorSummary.add(rs.getString(4));
-            doctorAssigned.add(rs.getString(3));
-            uuid.add(rs.getString(5));
-            hasVideo.add((rs.getString(6) != null ? "true" : "false"));
-        }, phonenumber);
-    }
-
-    void getPatientVideoDetail(String video_uuid) {
-        patientVideoSummary = new ArrayList<>();
-        uuid = new ArrayList<>();
-        doctorSummary = new ArrayList<>();
-        severity = new ArrayList<>();
-        doctorAssigned = new ArrayList<>();
-        hasVideo = new ArrayList<>();
-        doctorSpeciality = null;
-        jdbcTemplate.query("select transcribed_text_summary,severity,doctor_speciality,has_video,doctor_assigned,doctor_remarks from patient_videos where uuid = ?", rs -> {
-            patientVideoSummary.add(rs.getString(1));
-            severity.add(rs.getString(2));
-            doctorSpeciality = rs.getString(3);
-            hasVideo.add((rs.getString(4) == null ? "true" : "false"));
-            doctorAssigned.add((rs.getString(5) == null) ? "" : rs.getString(5));
-            doctorSummary.add((rs.getString(6) == null) ? "" : rs.getString(6));
-        }, video_uuid);
-    }
-
-    void getPatientVideoSummaryListView(String doctor_speciality) {
-        patientVideoSummary = new ArrayList<>();
-        uuid = new ArrayList<>();
-        doctorSummary = new ArrayList<>();
-        severity = new ArrayList<>();
-        doctorAssigned = new ArrayList<>();
-        hasVideo = new ArrayList<>();
-        doctorSpeciality = null;
-        jdbcTemplate.query("select transcribed_text_summary,severity,uuid,has_video from patient_videos where doctor_speciality = ? and doctor_assigned is null and doctor_remarks is null", rs -> {
-            patientVideoSummary.add(rs.getString(1));
-            severity.add(rs.getString(2));
-            uuid.add(rs.getString(3));
-            hasVideo.add((rs.getString(4) != null ? "true" : "false"));
-        }, doctor_speciality);
-    }
+    private ObjectMapper objectMapper;
 
     @GetMapping("/get-patient-video-summary-list-view")
-    Object getpatientvideosummarylistview(@RequestParam String doctorSepciality) {
+    Object getpatientvideosummarylistview(@RequestParam String doctorSepciality,
+                                          @RequestParam(required = false) String after,
+                                          @RequestParam(required = false) Integer limit,
+                                          @RequestParam(defaultValue = "false") boolean stream,
+                                          HttpServletResponse response) {
         try {
-            getPatientVideoSummaryListView(doctorSepciality);
-            return new videoSummaryData(patientVideoSummary, doctorSummary, severity, doctorAssigned, uuid, hasVideo, doctorSpeciality);
+            if (stream) {
+                return stream(response, sink -> patientRecordService.streamVideoSummaryListView(doctorSepciality, sink));
+            }
+            if (after != null || limit != null) {
+                return patientRecordService.videoSummaryListViewPage(doctorSepciality, after, pageSize(limit));
+            }
+            return patientRecordService.videoSummaryListView(doctorSepciality);
 
+        } catch (IllegalArgumentException e) {
+            return HttpServletResponse.SC_BAD_REQUEST;
         } catch (Exception e) {
             e.printStackTrace();
             return HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
@@ -209,8 +51,7 @@ public class readData {
     @GetMapping("/get-patient-video-detail")
     Object getpatientvideodetail(@RequestParam String videoUuid) {
         try {
-            getPatientVideoDetail(videoUuid);
-            return new videoSummaryData(patientVideoSummary, doctorSummary, severity, doctorAssigned, uuid, hasVideo, doctorSpeciality);
+            return patientRecordService.videoDetail(videoUuid);
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -219,11 +60,22 @@ public class readData {
     }
 
     @GetMapping("/get-patient-video-data")
-    Object getpatientvideodata(@RequestParam String phonenumber) {
+    Object getpatientvideodata(@RequestParam String phonenumber,
+                               @RequestParam(required = false) String after,
+                               @RequestParam(required = false) Integer limit,
+                               @RequestParam(defaultValue = "false") boolean stream,
+                               HttpServletResponse response) {
         try {
-            getPatientVideoData(phonenumber);
-            return new videoSummaryData(patientVideoSummary, doctorSummary, severity, doctorAssigned, uuid, hasVideo, doctorSpeciality);
+            if (stream) {
+                return stream(response, sink -> patientRecordService.streamVideoData(phonenumber, sink));
+            }
+            if (after != null || limit != null) {
+                return patientRecordService.videoDataPage(phonenumber, after, pageSize(limit));
+            }
+            return patientRecordService.videoData(phonenumber);
 
+        } catch (IllegalArgumentException e) {
+            return HttpServletResponse.SC_BAD_REQUEST;
         } catch (Exception e) {
             e.printStackTrace();
             return HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
@@ -233,7 +85,7 @@ public class readData {
     @GetMapping("/get-doctor-availability")
     Object getkeyvalue(@RequestParam String key) {
         try {
-            if (getKeyValue(key)) {
+            if (presenceService.isAvailable(key)) {
                 return HttpServletResponse.SC_FOUND;
             } else {
                 return HttpServletResponse.SC_NOT_FOUND;
@@ -247,12 +99,11 @@ public class readData {
     @GetMapping("/doctor-name")
     Object name_doctor(@RequestParam String email, @RequestHeader String token) {
         try {
-            doctor_name = null;
-            get_doctor_name(email);
-            if (doctor_name.isEmpty()) {
+            String doctorName = patientRecordService.doctorName(email).orElseThrow();
+            if (doctorName.isEmpty()) {
                 return null;
             }
-            return new detail(doctor_name);
+            return new detail(doctorName);
         } catch (Exception e) {
             e.printStackTrace();
             return HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
@@ -264,8 +115,7 @@ public class readData {
 
 
         try {
-            patientPhone = null;
-            getPatientPhone(email);
+            String patientPhone = patientRecordService.patientPhone(email).orElseThrow();
             if (patientPhone.isEmpty()) {
                 return null;
             }
@@ -280,10 +130,7 @@ public class readData {
     @GetMapping("/patient-name")
     Object name_patient(@RequestParam String email, @RequestHeader String token) {
         try {
-            //  System.out.println("token = "+token);
-
-            patientName = null;
-            get_patient_name(email);
+            String patientName = patientRecordService.patientName(email).orElseThrow();
             if (patientName.isEmpty()) {
                 return null;
             }
@@ -296,12 +143,22 @@ public class readData {
     }
 
     @GetMapping("/patient/conversation")
-    Object conversation(@RequestParam String patient_phnumber, @RequestHeader String token) {
+    @RouteAccess(value = {roles.ROLES.Patient, roles.ROLES.Doctor}, owner = "patient_phnumber", anyOwner = roles.ROLES.Doctor)
+    Object conversation(@RequestParam String patient_phnumber,
+                        @RequestParam(required = false) String after,
+                        @RequestParam(required = false) Integer limit,
+                        @RequestParam(defaultValue = "false") boolean stream,
+                        HttpServletResponse response) {
         try {
-            if ((JwtGenerator.getRole(token).equals(roles.ROLES.Patient.toString()) && patient_phnumber.equals(JwtGenerator.getJwtUsername(token))) || (JwtGenerator.getRole(token).equals(roles.ROLES.Doctor.toString()))) {
-                get_conversation(patient_phnumber);
-                return new conversation_record(symptomps, diagnosis, prescription, vitals, lifestyle_advice, tests_recommended, follow_up_plan, datetime);
-            } else return HttpServletResponse.SC_UNAUTHORIZED;
+            if (stream) {
+                return stream(response, sink -> patientRecordService.streamConversation(patient_phnumber, sink));
+            }
+            if (after != null || limit != null) {
+                return patientRecordService.conversationPage(patient_phnumber, after, pageSize(limit));
+            }
+            return patientRecordService.conversation(patient_phnumber);
+        } catch (IllegalArgumentException e) {
+            return HttpServletResponse.SC_BAD_REQUEST;
         } catch (Exception e) {
             e.printStackTrace();
             return HttpServletResponse.SC_UNAUTHORIZED;
@@ -309,14 +166,23 @@ public class readData {
     }
 
     @GetMapping("/patient-list")
-    Object patientList(@RequestParam String doctor_emailid, @RequestHeader String token) {
+    @RouteAccess(value = roles.ROLES.Doctor, owner = "doctor_emailid")
+    Object patientList(@RequestParam String doctor_emailid,
+                       @RequestParam(required = false) String after,
+                       @RequestParam(required = false) Integer limit,
+                       @RequestParam(defaultValue = "false") boolean stream,
+                       HttpServletResponse response) {
 
         try {
-            System.out.println(JwtGenerator.getJwtUsername(token));
-            if (JwtGenerator.getRole(token).equals(roles.ROLES.Doctor.getRoleValue()) && doctor_emailid.equals(JwtGenerator.getJwtUsername(token))) {
-                get_patient_list(doctor_emailid);
-                return new patient_list(patient_name, patient_phone, diagnosis, datetime);
-            } else return HttpServletResponse.SC_UNAUTHORIZED;
+            if (stream) {
+                return stream(response, sink -> patientRecordService.streamPatientList(doctor_emailid, sink));
+            }
+            if (after != null || limit != null) {
+                return patientRecordService.patientListPage(doctor_emailid, after, pageSize(limit));
+            }
+            return patientRecordService.patientList(doctor_emailid);
+        } catch (IllegalArgumentException e) {
+            return HttpServletResponse.SC_BAD_REQUEST;
         } catch (Exception e) {
             e.printStackTrace();
             return HttpServletResponse.SC_UNAUTHORIZED;
@@ -324,16 +190,35 @@ public class readData {
     }
 
     @GetMapping("/patient-details")
-    Object pateintdetails(@RequestParam String phonenumber, @RequestHeader String token) {
+    @RouteAccess(value = {roles.ROLES.Patient, roles.ROLES.Doctor}, owner = "phonenumber", anyOwner = roles.ROLES.Doctor)
+    Object pateintdetails(@RequestParam String phonenumber) {
         try {
-            if ((JwtGenerator.getRole(token).equals(roles.ROLES.Patient.getRoleValue()) && phonenumber.equals(JwtGenerator.getJwtUsername(token))) || (JwtGenerator.getRole(token).equals(roles.ROLES.Doctor.getRoleValue()))) {
-                System.out.println("hello = " + JwtGenerator.getRole(token).equals(roles.ROLES.Patient.getRoleValue()));
-                get_patient_details(phonenumber);
-                return new patient_details_record(patientname, patientage, patientgender, patientbloodtype, pateintallergy);
-            } else return HttpServletResponse.SC_UNAUTHORIZED;
+            return patientRecordService.patientDetails(phonenumber);
         } catch (Exception e) {
             e.printStackTrace();
             return HttpServletResponse.SC_UNAUTHORIZED;
         }
     }
-}
\ No newline at end of file
+
+    private static int pageSize(Integer limit) {
+        return limit == null ? CursorPage.MAX_LIMIT : limit;
+    }
+
+    /*
+     * Writes rows straight to the response as they are read. Once the first flush has
+     * committed the response a failure can only cut the array short.
+     */
+    private Object stream(HttpServletResponse response, Consumer<Consumer<Object>> rows) {
+        try {
+            JsonArrayStreamer.writeAll(objectMapper, response, rows);
+            return null;
+        } catch (Exception e) {
+            e.printStackTrace();
+            if (response.isCommitted()) {
+                return null;
+            }
+            response.reset();
+            return HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        }
+    }
+}
@@ -0,0 +1,4 @@
+package com.shrihari.axios.readData;
+
+public record video_entry(String patientVideoSummary, String severity, String doctorAssigned, String doctorSummary, String uuid, String hasVideo, String doctorSpeciality) {
+}
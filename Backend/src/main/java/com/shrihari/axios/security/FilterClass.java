@@ -10,8 +10,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
-import java.util.regex.Pattern;
-
 @Component
 @Order(1)
 public class FilterClass implements Filter {
@@ -20,13 +18,14 @@ public class FilterClass implements Filter {
     public void setJwtGenerator(JwtGenerator JwtGenerator){
         this.JwtGenerator = JwtGenerator;
     }
+    RouteTable routeTable;
+    @Autowired
+    public void setRouteTable(RouteTable routeTable){
+        this.routeTable = routeTable;
+    }
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain){
         try {
-
-            Pattern authPattern = Pattern.compile("/healthdesk/auth");
-            Pattern logPattern = Pattern.compile("/healthdesk/logs");
-            Pattern websocketConnection = Pattern.compile("/healthdesk-ws");
           HttpServletRequest httprequest = (HttpServletRequest) request;
             HttpServletResponse httpResponse = (HttpServletResponse) response;
             httpResponse.setHeader("Access-Control-Allow-Origin", "*");
@@ -38,18 +37,35 @@ public class FilterClass implements Filter {
                 httpResponse.setStatus(HttpServletResponse.SC_OK);
                 return;
             }
-            else if(authPattern.matcher(httprequest.getRequestURI().toString()).find() || websocketConnection.matcher(httprequest.getRequestURI().toString()).find() || logPattern.matcher(httprequest.getRequestURI().toString()).find()){
+            String path = RouteTable.matchPath(httprequest);
+            if(path == null){
+                httpResponse.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                return;
+            }
+            RouteTable.Rule rule = routeTable.lookup(httprequest.getMethod(), path);
+            if(rule.open()){
                 chain.doFilter(request,response);
             }
 
             else {
-                if(JwtGenerator.isValidUser(httprequest.getHeader("token"))){
-                    chain.doFilter(request,response);
+                VerifiedClaims claims;
+                try {
+                    claims = JwtGenerator.verify(httprequest.getHeader("token"));
+                } catch (Exception e) {
+                    claims = null;
                 }
-                else {
+                if(claims == null){
                     httpResponse.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                     httpResponse.getWriter().write("Unauthorized");
                 }
+                else if(!rule.permits(claims, httprequest::getParameter, path)){
+                    httpResponse.setStatus(HttpServletResponse.SC_FORBIDDEN);
+                    httpResponse.getWriter().write("Forbidden");
+                }
+                else {
+                    httprequest.setAttribute(VerifiedClaims.ATTRIBUTE, claims);
+                    chain.doFilter(request,response);
+                }
 
             }
         }
@@ -1,40 +1,89 @@
 package com.shrihari.axios.security;
 
 
+import com.shrihari.axios.utils.LruCache;
 import com.shrihari.axios.utils.roles;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
 import java.util.Date;
 
 @Service
 public class JwtGenerator {
-   private String key;
+    private static final int VERIFIED_CACHE_SIZE = 10_000;
+
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    // token hash -> claims, evicted least-recently-used first; each entry lives until its token expires
+    private final LruCache<String, VerifiedClaims> verified = new LruCache<>(VERIFIED_CACHE_SIZE, null);
+
     @Autowired
     public JwtGenerator(@Value("${jwt.secret-key}") String key){
-
-        this.key = key;
+        this.signingKey = Keys.hmacShaKeyFor(Base64.getDecoder().decode(key));
+        this.parser = Jwts.parser().verifyWith(signingKey).build();
     }
     public String generate(String username, roles.ROLES role){
-        return Jwts.builder().subject(username).claim("role",role.getRoleValue()).signWith(Keys.hmacShaKeyFor(Base64.getDecoder().decode(key))).issuedAt(new Date()).expiration(new Date(new Date().getTime() + 12*3600*1000)).compact();
+        return Jwts.builder().subject(username).claim("role",role.getRoleValue()).signWith(signingKey).issuedAt(new Date()).expiration(new Date(new Date().getTime() + 12*3600*1000)).compact();
+    }
+
+    /*
+     * Verifies the token once and remembers the result until the token expires.
+     * Throws JwtException for a missing, forged or expired token.
+     */
+    public VerifiedClaims verify(String token){
+        if (token == null || token.isBlank()) {
+            throw new JwtException("Missing token");
+        }
+        String hash = hash(token);
+        VerifiedClaims claims = verified.getIfPresent(hash);
+        if (claims != null) {
+            if (!claims.isExpired()) {
+                return claims;
+            }
+            verified.invalidate(hash);
+        }
+        Claims payload = parser.parseSignedClaims(token).getPayload();
+        claims = new VerifiedClaims(payload.getSubject(), payload.get("role", String.class), payload.getExpiration());
+        if (claims.isExpired()) {
+            throw new JwtException("Token expired");
+        }
+        verified.put(hash, claims);
+        return claims;
     }
     public String getJwtUsername(String token){
-        return Jwts.parser().verifyWith(Keys.hmacShaKeyFor(Base64.getDecoder().decode(key))).build().parseSignedClaims(token).getPayload().getSubject();
+        return verify(token).subject();
     }
     public String getRole(String token){
-        return Jwts.parser().verifyWith(Keys.hmacShaKeyFor(Base64.getDecoder().decode(key))).build().parseSignedClaims(token).getPayload().get("role", String.class);
+        return verify(token).role();
     }
     public boolean isValidUser(String token) {
         try {
-            return new Date().before(Jwts.parser().verifyWith(Keys.hmacShaKeyFor(Base64.getDecoder().decode(key))).build().parseSignedClaims(token).getPayload().getExpiration());
+            verify(token);
+            return true;
         }
         catch (Exception e){
             e.printStackTrace();
             return false;
         }
     }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
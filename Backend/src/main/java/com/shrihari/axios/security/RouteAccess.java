@@ -0,0 +1,32 @@
+package com.shrihari.axios.security;
+
+import com.shrihari.axios.utils.roles;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/*
+ * Who may call a controller method, checked by FilterClass before the request reaches
+ * the controller. On a class it applies to every method without its own. Routes without
+ * it need any valid token.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface RouteAccess {
+
+    /* no token needed */
+    boolean open() default false;
+
+    /* roles let in; empty means any role */
+    roles.ROLES[] value() default {};
+
+    /* path variable or request parameter that has to equal the token subject */
+    String owner() default "";
+
+    /* roles that skip the owner check, e.g. a doctor reading any patient's record */
+    roles.ROLES[] anyOwner() default {};
+}
@@ -0,0 +1,246 @@
+package com.shrihari.axios.security;
+
+import com.shrihari.axios.config.WebSocketConfig;
+import com.shrihari.axios.utils.roles;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/*
+ * Access rules for every controller route, built once at startup from the request
+ * mappings and their @RouteAccess annotations. Paths are kept in a trie keyed by path
+ * segment, so a lookup walks the request path once instead of running patterns over it.
+ * Literal segments win over {variables}; a variable branch is only tried when the
+ * literal branch has no rule, which with these routes never happens more than once.
+ */
+@Component
+public class RouteTable implements SmartInitializingSingleton {
+
+    private static final String ANY_METHOD = "";
+
+    /*
+     * ownerSegment is the index of the owner among the path segments when it is a path
+     * variable, -1 when it is a request parameter.
+     */
+    public record Rule(boolean open, Set<roles.ROLES> roles, String owner, int ownerSegment, Set<roles.ROLES> anyOwner) {
+
+        public static final Rule OPEN = new Rule(true, Set.of(), null, -1, Set.of());
+        public static final Rule AUTHENTICATED = new Rule(false, Set.of(), null, -1, Set.of());
+
+        public boolean permits(VerifiedClaims claims, Function<String, String> parameters, String path) {
+            if (!roles.isEmpty() && !hasAny(claims, roles)) {
+                return false;
+            }
+            if (owner == null || hasAny(claims, anyOwner)) {
+                return true;
+            }
+            return claims.isSubject(ownerSegment >= 0 ? segment(path, ownerSegment) : parameters.apply(owner));
+        }
+
+        private static boolean hasAny(VerifiedClaims claims, Set<roles.ROLES> roles) {
+            for (roles.ROLES role : roles) {
+                if (claims.hasRole(role)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private final Map<String, Rule> rules = new HashMap<>();
+        private Node variable;
+
+        private Rule rule(String method) {
+            Rule rule = rules.get(method);
+            if (rule == null && method.equals("HEAD")) {
+                rule = rules.get("GET");
+            }
+            return rule != null ? rule : rules.get(ANY_METHOD);
+        }
+    }
+
+    @Autowired
+    private ApplicationContext context;
+
+    private final Node root = new Node();
+    private int routes;
+
+    /* the handler mapping has registered every controller by now, and no request has come in */
+    @Override
+    public void afterSingletonsInstantiated() {
+        RequestMappingHandlerMapping mapping = context.getBean("requestMappingHandlerMapping", RequestMappingHandlerMapping.class);
+        for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : mapping.getHandlerMethods().entrySet()) {
+            add(entry.getKey(), entry.getValue());
+        }
+        add(ANY_METHOD, WebSocketConfig.ENDPOINT, Rule.OPEN);
+    }
+
+    public int size() {
+        return routes;
+    }
+
+    private void add(RequestMappingInfo info, HandlerMethod handler) {
+        RouteAccess access = AnnotatedElementUtils.findMergedAnnotation(handler.getMethod(), RouteAccess.class);
+        if (access == null) {
+            access = AnnotatedElementUtils.findMergedAnnotation(handler.getBeanType(), RouteAccess.class);
+        }
+        Set<RequestMethod> methods = info.getMethodsCondition().getMethods();
+        for (String pattern : info.getPatternValues()) {
+            Rule rule = rule(access, pattern, handler);
+            if (methods.isEmpty()) {
+                add(ANY_METHOD, pattern, rule);
+            }
+            for (RequestMethod method : methods) {
+                add(method.name(), pattern, rule);
+            }
+        }
+    }
+
+    private static Rule rule(RouteAccess access, String pattern, HandlerMethod handler) {
+        if (access == null) {
+            return Rule.AUTHENTICATED;
+        }
+        if (access.open()) {
+            return Rule.OPEN;
+        }
+        String owner = access.owner().isEmpty() ? null : access.owner();
+        int ownerSegment = -1;
+        if (owner != null) {
+            ownerSegment = segments(pattern).indexOf("{" + owner + "}");
+            if (ownerSegment < 0 && !hasRequestParam(handler, owner)) {
+                throw new IllegalStateException("@RouteAccess owner '" + owner + "' is neither a path variable nor a request parameter of " + handler);
+            }
+        }
+        return new Rule(false, roleSet(access.value()), owner, ownerSegment, roleSet(access.anyOwner()));
+    }
+
+    private static boolean hasRequestParam(HandlerMethod handler, String name) {
+        for (MethodParameter parameter : handler.getMethodParameters()) {
+            parameter.initParameterNameDiscovery(new DefaultParameterNameDiscoverer());
+            RequestParam param = parameter.getParameterAnnotation(RequestParam.class);
+            if (param != null && name.equals(param.name().isEmpty() ? parameter.getParameterName() : param.name())) {
+                return true;
+            }
+            PathVariable variable = parameter.getParameterAnnotation(PathVariable.class);
+            if (variable != null && name.equals(variable.name().isEmpty() ? parameter.getParameterName() : variable.name())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Set<roles.ROLES> roleSet(roles.ROLES[] values) {
+        if (values.length == 0) {
+            return Set.of();
+        }
+        return Set.copyOf(EnumSet.copyOf(List.of(values)));
+    }
+
+    /* also used by the tests and the benchmarks, which build a table without a context */
+    public void add(String method, String pattern, Rule rule) {
+        Node node = root;
+        for (String segment : segments(pattern)) {
+            if (segment.startsWith("{")) {
+                if (node.variable == null) {
+                    node.variable = new Node();
+                }
+                node = node.variable;
+            } else {
+                node = node.children.computeIfAbsent(segment, s -> new Node());
+            }
+        }
+        Rule previous = node.rules.put(method, rule);
+        if (previous != null && !previous.equals(rule)) {
+            throw new IllegalStateException("Conflicting access rules for " + method + " " + pattern);
+        }
+        routes++;
+    }
+
+    /*
+     * The path the dispatcher matches: relative to the context path, each segment decoded
+     * and without its ;parameters. The raw URI would let /read;x=1/... miss its rule. null
+     * when a decoded segment holds a '/', which the table cannot split the same way.
+     */
+    public static String matchPath(HttpServletRequest request) {
+        StringBuilder path = new StringBuilder();
+        for (PathContainer.Element element : ServletRequestPathUtils.parseAndCache(request).pathWithinApplication().elements()) {
+            if (element instanceof PathContainer.PathSegment segment) {
+                if (segment.valueToMatch().indexOf('/') >= 0) {
+                    return null;
+                }
+                path.append('/').append(segment.valueToMatch());
+            }
+        }
+        return path.toString();
+    }
+
+    /* the rule for a path from matchPath; routes the table does not know need a token */
+    public Rule lookup(String method, String path) {
+        Rule rule = find(root, method, path, 0);
+        return rule != null ? rule : Rule.AUTHENTICATED;
+    }
+
+    private static Rule find(Node node, String method, String path, int from) {
+        while (from < path.length() && path.charAt(from) == '/') {
+            from++;
+        }
+        if (from >= path.length()) {
+            return node.rule(method);
+        }
+        int end = path.indexOf('/', from);
+        if (end < 0) {
+            end = path.length();
+        }
+        Node literal = node.children.get(path.substring(from, end));
+        Rule rule = literal == null ? null : find(literal, method, path, end);
+        if (rule == null && node.variable != null) {
+            rule = find(node.variable, method, path, end);
+        }
+        return rule;
+    }
+
+    private static List<String> segments(String path) {
+        return List.of(path.split("/")).stream().filter(s -> !s.isEmpty()).toList();
+    }
+
+    static String segment(String path, int index) {
+        int from = 0;
+        int seen = -1;
+        while (from < path.length()) {
+            while (from < path.length() && path.charAt(from) == '/') {
+                from++;
+            }
+            int end = path.indexOf('/', from);
+            if (end < 0) {
+                end = path.length();
+            }
+            if (from < end && ++seen == index) {
+                return path.substring(from, end);
+            }
+            from = end;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,26 @@
+package com.shrihari.axios.security;
+
+import com.shrihari.axios.utils.roles;
+
+import java.util.Date;
+
+/*
+ * Claims of a token that already passed signature and expiry checks. FilterClass
+ * stores one per request under ATTRIBUTE so controllers never parse the JWT again.
+ */
+public record VerifiedClaims(String subject, String role, Date expiresAt) {
+
+    public static final String ATTRIBUTE = "healthdesk.verifiedClaims";
+
+    public boolean hasRole(roles.ROLES expected) {
+        return expected.getRoleValue().equals(role);
+    }
+
+    public boolean isSubject(String username) {
+        return subject != null && subject.equals(username);
+    }
+
+    public boolean isExpired() {
+        return expiresAt == null || !new Date().before(expiresAt);
+    }
+}
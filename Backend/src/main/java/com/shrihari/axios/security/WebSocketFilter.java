@@ -33,8 +33,7 @@ public class WebSocketFilter implements ChannelInterceptor {
             String token = accessor.getFirstNativeHeader("token");
 
             if (token != null && jwtGenerator.isValidUser(token)) {
-                String username = jwtGenerator.getJwtUsername(token);
-                Principal userPrincipal = new StompPrincipal(username);
+                Principal userPrincipal = new StompPrincipal(jwtGenerator.verify(token).subject());
                 accessor.setUser(userPrincipal);
 
             } else {
@@ -0,0 +1,64 @@
+package com.shrihari.axios.services;
+
+import com.google.gson.Gson;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Local stand-in for the model: sorts the transcript's sentences into summary fields by
+ * keyword, after an optional artificial latency. Deterministic for the same text.
+ */
+@Component
+@ConditionalOnProperty(name = "summarization.provider", havingValue = "fake")
+public class FakeSummaryProvider implements SummaryProvider {
+
+    private static final Map<String, String> KEYWORDS = Map.of(
+            "pain", "symptoms", "fever", "symptoms", "cough", "symptoms",
+            "diagnos", "diagnosis", "mg", "prescription", "tablet", "prescription",
+            "pressure", "vitals", "exercise", "lifestyle_advice", "test", "tests_recommended",
+            "follow", "follow_up_plan");
+
+    private final Gson gson = new Gson();
+    private final Duration latency;
+    private final AtomicLong calls = new AtomicLong();
+
+    public FakeSummaryProvider(@Value("${summarization.fake.latency:PT0S}") Duration latency) {
+        this.latency = latency;
+    }
+
+    @Override
+    public String generate(String prompt) throws InterruptedException {
+        calls.incrementAndGet();
+        if (!latency.isZero()) {
+            Thread.sleep(latency.toMillis());
+        }
+        int marker = prompt.indexOf(SummarizationService.TEXT_MARKER);
+        String text = marker < 0 ? prompt : prompt.substring(marker + SummarizationService.TEXT_MARKER.length());
+        Map<String, List<String>> summary = new LinkedHashMap<>();
+        for (String field : List.of("symptoms", "diagnosis", "prescription", "vitals", "lifestyle_advice", "tests_recommended", "follow_up_plan")) {
+            summary.put(field, new ArrayList<>());
+        }
+        for (String sentence : text.split("(?<=[.!?])\\s+")) {
+            String lower = sentence.toLowerCase(Locale.ROOT);
+            KEYWORDS.forEach((keyword, field) -> {
+                if (lower.contains(keyword) && !summary.get(field).contains(sentence.trim())) {
+                    summary.get(field).add(sentence.trim());
+                }
+            });
+        }
+        return gson.toJson(summary);
+    }
+
+    public long calls() {
+        return calls.get();
+    }
+}
@@ -0,0 +1,44 @@
+package com.shrihari.axios.services;
+
+import com.google.genai.Client;
+import com.google.genai.types.HttpOptions;
+import com.shrihari.axios.metrics.Timings;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/* one client for the whole application; it is thread safe and keeps its connection pool */
+@Component
+@ConditionalOnProperty(name = "summarization.provider", havingValue = "gemini", matchIfMissing = true)
+public class GeminiSummaryProvider implements SummaryProvider {
+
+    static final String MODEL = "gemini-2.0-flash";
+
+    private final Client client;
+
+    @Autowired
+    public GeminiSummaryProvider(@Value("${genai.api.key}") String apiKey,
+                                 @Value("${summarization.timeout:PT60S}") Duration timeout) {
+        this.client = Client.builder()
+                .apiKey(apiKey)
+                .httpOptions(HttpOptions.builder().timeout((int) timeout.toMillis()).build())
+                .build();
+    }
+
+    @Override
+    public String generate(String prompt) {
+        Timer.Sample sample = Timings.start();
+        boolean success = false;
+        try {
+            String text = client.models.generateContent(MODEL, prompt, null).text();
+            success = true;
+            return text;
+        } finally {
+            Timings.stop(sample, "http.client.calls", success, "client", "gemini", "operation", "generate");
+        }
+    }
+}
@@ -3,35 +3,262 @@ package com.shrihari.axios.services;
 import com.google.gson.Gson;
 
 import com.shrihari.axios.dto.LogEntry;
+import com.shrihari.axios.logs.LogSegment;
+import com.shrihari.axios.logs.LogStore;
+import com.shrihari.axios.utils.RingBuffer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 
+/*
+ * Error log appender. log() only puts the entry into a lock-free ring buffer and
+ * returns; a single writer thread serializes entries in batches and appends them
+ * through one long-lived FileChannel into the current LogStore segment, recording
+ * each line's position in the segment index. Segments roll over by size and age.
+ * When the buffer is full the entry is dropped and counted instead of making the
+ * request wait.
+ */
 @Service
 public class LoggingService {
 
-    private static final String LOG_FILE = "src/main/java/com/healthdesk/healthdesk/logs.txt";
+    public enum FsyncPolicy {
+        NEVER, BATCH, INTERVAL
+    }
+
+    public record Stats(long written, long dropped, long writeErrors, long rotations, int queued, int capacity) {
+    }
+
+    private static final int MAX_BATCH = 512;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
     private final Gson gson;
+    private final LogStore logStore;
+    private final long maxSegmentBytes;
+    private final long rotateIntervalMillis;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalMillis;
+    private final RingBuffer<LogEntry> buffer;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder writeErrors = new LongAdder();
+    private final LongAdder rotations = new LongAdder();
+
+    private volatile boolean running;
+    private volatile boolean idle;
+    private Thread writer;
+
+    // owned by the writer thread
+    private final ByteBuffer out = ByteBuffer.allocateDirect(256 * 1024);
+    private FileChannel channel;
+    private LogSegment segment;
+    private long segmentBytes;
+    private long segmentOpenedAt;
+    private long lastFsyncAt;
+    private boolean unsynced;
 
     @Autowired
-    public LoggingService(Gson gson) {
+    public LoggingService(Gson gson,
+                          LogStore logStore,
+                          @Value("${error-log.buffer-size:8192}") int bufferSize,
+                          @Value("${error-log.max-segment-size:64MB}") DataSize maxSegmentSize,
+                          @Value("${error-log.rotate-interval:PT24H}") Duration rotateInterval,
+                          @Value("${error-log.fsync:INTERVAL}") FsyncPolicy fsyncPolicy,
+                          @Value("${error-log.fsync-interval:PT1S}") Duration fsyncInterval) {
         this.gson = gson;
+        this.logStore = logStore;
+        this.buffer = new RingBuffer<>(bufferSize);
+        this.maxSegmentBytes = maxSegmentSize.toBytes();
+        this.rotateIntervalMillis = rotateInterval.toMillis();
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalMillis = fsyncInterval.toMillis();
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = new Thread(this::run, "error-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        }
     }
 
     public void log(LogEntry logEntry) {
-        try {
-            File file = new File(LOG_FILE);
-            if (!file.exists()) {
-                file.createNewFile();
+        if (!buffer.offer(logEntry)) {
+            dropped.increment();
+            return;
+        }
+        if (idle) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(written.sum(), dropped.sum(), writeErrors.sum(), rotations.sum(), buffer.size(), buffer.capacity());
+    }
+
+    private void run() {
+        List<LogEntry> batch = new ArrayList<>(MAX_BATCH);
+        while (running || !buffer.isEmpty()) {
+            buffer.drainTo(batch, MAX_BATCH);
+            try {
+                if (batch.isEmpty()) {
+                    onIdle();
+                    idle = true;
+                    if (running && buffer.isEmpty()) {
+                        LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    }
+                    idle = false;
+                    continue;
+                }
+                written.add(write(batch));
+            } catch (Exception e) {
+                // the entries are lost; reopen a fresh segment on the next batch
+                writeErrors.add(batch.size());
+                e.printStackTrace();
+                closeSegment();
+            }
+            batch.clear();
+        }
+        closeSegment();
+    }
+
+    private int write(List<LogEntry> batch) throws IOException {
+        long now = System.currentTimeMillis();
+        int count = 0;
+        for (LogEntry entry : batch) {
+            byte[] line;
+            try {
+                line = (gson.toJson(entry) + "\n").getBytes(StandardCharsets.UTF_8);
+            } catch (RuntimeException e) {
+                writeErrors.increment();
+                continue;
+            }
+            if (channel == null || now - segmentOpenedAt >= rotateIntervalMillis
+                    || (segmentBytes > 0 && segmentBytes + line.length > maxSegmentBytes)) {
+                flushBuffer();
+                openSegment(now);
+            }
+            if (line.length > out.remaining()) {
+                flushBuffer();
             }
-            try (FileWriter writer = new FileWriter(file, true)) {
-                writer.write(gson.toJson(logEntry) + "\n");
+            if (line.length > out.capacity()) {
+                writeFully(ByteBuffer.wrap(line));
+            } else {
+                out.put(line);
+            }
+            segment.append(LogStore.epochMillis(entry.getTime(), now), segmentBytes, line.length, entry.getEndpoint());
+            segmentBytes += line.length;
+            count++;
+        }
+        if (count == 0) {
+            return 0;
+        }
+        flushBuffer();
+        unsynced = true;
+        if (fsyncPolicy == FsyncPolicy.BATCH || (fsyncPolicy == FsyncPolicy.INTERVAL && now - lastFsyncAt >= fsyncIntervalMillis)) {
+            fsync(now);
+        }
+        return count;
+    }
+
+    private void onIdle() throws IOException {
+        long now = System.currentTimeMillis();
+        if (channel == null) {
+            return;
+        }
+        if (unsynced && fsyncPolicy == FsyncPolicy.INTERVAL && now - lastFsyncAt >= fsyncIntervalMillis) {
+            fsync(now);
+        }
+        if (now - segmentOpenedAt >= rotateIntervalMillis) {
+            closeSegment();
+        }
+    }
+
+    private void openSegment(long now) throws IOException {
+        boolean rotated = channel != null;
+        closeSegment();
+        Files.createDirectories(logStore.directory());
+        LogSegment next = logStore.newSegment(now);
+        channel = FileChannel.open(next.path(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        segment = next;
+        segmentOpenedAt = now;
+        segmentBytes = 0;
+        if (rotated) {
+            rotations.increment();
+        }
+    }
+
+    private void closeSegment() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            flushBuffer();
+            if (fsyncPolicy != FsyncPolicy.NEVER && unsynced) {
+                channel.force(false);
             }
         } catch (IOException e) {
             e.printStackTrace();
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            channel = null;
+            unsynced = false;
+            out.clear();
+            logStore.seal(segment);
+            segment = null;
+        }
+    }
+
+    private void fsync(long now) throws IOException {
+        channel.force(false);
+        lastFsyncAt = now;
+        unsynced = false;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        if (out.position() > 0) {
+            out.flip();
+            writeFully(out);
+            out.clear();
+        }
+        segment.publish();
+    }
+
+    private void writeFully(ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            channel.write(source);
         }
     }
 }
@@ -0,0 +1,234 @@
+package com.shrihari.axios.services;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.shrihari.axios.utils.CircuitBreaker;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Summaries go through, in order: the Redis cache keyed by the SHA-256 of the transcript
+ * (a retried upload of the same audio never pays for a second model call), a map of
+ * in-flight calls so concurrent requests for the same text share one call, the circuit
+ * breaker, and finally a fixed pool of summarization.concurrency workers behind a
+ * queue of summarization.queue-size. A full queue or an open breaker fails at once
+ * with IllegalStateException; callers such as TranscriptionJobService retry later.
+ */
+@Service
+public class SummarizationService {
+
+    static final String TEXT_MARKER = "Text to Analyze: ";
+    static final String PROMPT = "Analyze the following medical text. Your task is to extract the symptoms, diagnosis, prescription, vitals, lifestyle advice, recommended tests, and follow-up plan. Instructions: 1. Format the entire output as a single-line JSON object without any line breaks, indentation, or extra formatting. 2. The JSON structure must exactly match the following format: {\"symptoms\": [\"item1\", \"item2\"], \"diagnosis\": [...], \"prescription\": [...], \"vitals\": [...], \"lifestyle_advice\": [...], \"tests_recommended\": [...], \"follow_up_plan\": [...]}. 3. Crucially, you must only extract information explicitly mentioned in the text. Do not infer, add, or invent any details. 4. If no information is available for a specific category in the text, use an empty array [] for that key. 5. Your response should contain ONLY the single-line JSON object and nothing else. " + TEXT_MARKER;
+    static final String CACHE_PREFIX = "summary:";
+
+    public record Stats(long requests, long cacheHits, long shared, long modelCalls, long failures, long timeouts,
+                        long rejected, long shortCircuited, int active, int queued, long meanLatencyMillis,
+                        long maxLatencyMillis, CircuitBreaker.State breaker) {
+    }
+
+    private final SummaryProvider provider;
+    private final StringRedisTemplate redisTemplate;
+    private final Duration timeout;
+    private final Duration cacheTtl;
+    private final CircuitBreaker breaker;
+    private final ThreadPoolExecutor workers;
+    private final ConcurrentHashMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+    private final LongAdder modelCalls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder shortCircuited = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0);
+
+    @Autowired
+    public SummarizationService(SummaryProvider provider, StringRedisTemplate redisTemplate,
+                                @Value("${summarization.concurrency:4}") int concurrency,
+                                @Value("${summarization.queue-size:64}") int queueSize,
+                                @Value("${summarization.timeout:PT60S}") Duration timeout,
+                                @Value("${summarization.breaker.failure-threshold:5}") int failureThreshold,
+                                @Value("${summarization.breaker.open-duration:PT30S}") Duration openDuration,
+                                @Value("${summarization.cache-ttl:P7D}") Duration cacheTtl) {
+        this.provider = provider;
+        this.redisTemplate = redisTemplate;
+        this.timeout = timeout;
+        this.cacheTtl = cacheTtl;
+        this.breaker = new CircuitBreaker(failureThreshold, openDuration);
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(concurrency, concurrency, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize), r -> {
+            Thread thread = new Thread(r, "summarizer-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        workers.shutdownNow();
+    }
+
+    /* the timeout covers the wait in the queue as well as the model call */
+    public String summarize(String transcript) {
+        requests.increment();
+        String key = CACHE_PREFIX + sha256(transcript);
+        String cached = cacheGet(key);
+        if (cached != null) {
+            cacheHits.increment();
+            return cached;
+        }
+        CompletableFuture<String> call = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            shared.increment();
+            return await(key, existing, false);
+        }
+        try {
+            if (!breaker.tryAcquire()) {
+                shortCircuited.increment();
+                throw new IllegalStateException("Summarization is temporarily unavailable");
+            }
+            try {
+                workers.execute(() -> run(key, transcript, call));
+            } catch (RejectedExecutionException e) {
+                breaker.release();
+                rejected.increment();
+                throw new IllegalStateException("Summarization queue is full");
+            }
+        } catch (RuntimeException e) {
+            inFlight.remove(key, call);
+            call.completeExceptionally(e);
+            throw e;
+        }
+        return await(key, call, true);
+    }
+
+    /*
+     * The entry leaves inFlight before the future completes, so a caller arriving later
+     * either finds the cached answer or starts its own call, never a finished one that
+     * may not have been cached. The breaker hears about the call only from whoever
+     * completes the future; an owner that timed out has already reported it.
+     */
+    private void run(String key, String transcript, CompletableFuture<String> call) {
+        if (call.isDone()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            modelCalls.increment();
+            String json = provider.generate(PROMPT + transcript);
+            record(System.nanoTime() - start);
+            if (isSummary(json)) {
+                cachePut(key, json);
+            }
+            inFlight.remove(key, call);
+            if (call.complete(json)) {
+                breaker.onSuccess();
+            }
+        } catch (Throwable e) {
+            record(System.nanoTime() - start);
+            inFlight.remove(key, call);
+            boolean completed = call.completeExceptionally(e);
+            if (!(e instanceof InterruptedException)) {
+                failures.increment();
+                if (completed) {
+                    breaker.onFailure();
+                }
+            }
+        }
+    }
+
+    private String await(String key, CompletableFuture<String> call, boolean owner) {
+        try {
+            return call.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (owner) {
+                inFlight.remove(key, call);
+                if (call.completeExceptionally(new IllegalStateException("Summarization timed out"))) {
+                    timeouts.increment();
+                    breaker.onFailure();
+                }
+            }
+            throw new IllegalStateException("Summarization timed out after " + timeout, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for summarization", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Summarization failed", cause);
+        }
+    }
+
+    private void record(long nanos) {
+        latencyNanos.add(nanos);
+        maxLatencyNanos.accumulate(nanos);
+    }
+
+    private String cacheGet(String key) {
+        try {
+            return redisTemplate.opsForValue().get(key);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private void cachePut(String key, String json) {
+        try {
+            redisTemplate.opsForValue().set(key, json, cacheTtl);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    // only well-formed objects are cached, so a bad answer is asked for again on retry
+    private static boolean isSummary(String json) {
+        try {
+            return json != null && JsonParser.parseString(json) instanceof JsonObject;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    static String sha256(String text) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public Stats stats() {
+        long calls = modelCalls.sum();
+        return new Stats(requests.sum(), cacheHits.sum(), shared.sum(), calls, failures.sum(), timeouts.sum(),
+                rejected.sum(), shortCircuited.sum(), workers.getActiveCount(), workers.getQueue().size(),
+                calls == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(latencyNanos.sum() / calls),
+                TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos.get()), breaker.state());
+    }
+}
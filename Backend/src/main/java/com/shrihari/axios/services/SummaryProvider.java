@@ -0,0 +1,12 @@
+package com.shrihari.axios.services;
+
+/*
+ * The model behind SummarizationService. summarization.provider selects it: "gemini"
+ * (default) or "fake", which answers locally without network access for tests and
+ * load runs.
+ */
+public interface SummaryProvider {
+
+    // returns the raw model output for prompt, expected to be the single-line summary JSON
+    String generate(String prompt) throws Exception;
+}
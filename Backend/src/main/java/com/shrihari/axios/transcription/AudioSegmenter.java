@@ -0,0 +1,189 @@
+package com.shrihari.axios.transcription;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Splits long PCM .wav recordings into segments of about transcription.segments.length.
+ * Each cut is placed in the quietest 100 ms of the preceding silence-search window (16-bit
+ * audio; other sample sizes are cut at the fixed window), and neighbouring segments
+ * share overlap around the cut so a word spoken across it is heard whole by at least
+ * one of them. TranscriptStitcher later splits the overlap again at the cut.
+ */
+@Component
+public class AudioSegmenter {
+
+    static final int FRAME_MS = 100;
+    private static final int WAVE_FORMAT_PCM = 1;
+    private static final int WAVE_FORMAT_EXTENSIBLE = 0xFFFE;
+
+    public record Segment(int index, long startMs, long endMs) {
+    }
+
+    record WavFormat(int formatTag, int channels, int sampleRate, int blockAlign, int bitsPerSample, byte[] fmtChunk,
+                     long dataOffset, long dataLength) {
+
+        long durationMs() {
+            return dataLength / blockAlign * 1000 / sampleRate;
+        }
+
+        long byteAt(long ms) {
+            return Math.min(dataLength / blockAlign, ms * sampleRate / 1000) * blockAlign;
+        }
+    }
+
+    private final long lengthMs;
+    private final long overlapMs;
+    private final long silenceSearchMs;
+
+    @Autowired
+    public AudioSegmenter(@Value("${transcription.segments.length:PT5M}") Duration length,
+                          @Value("${transcription.segments.overlap:PT2S}") Duration overlap,
+                          @Value("${transcription.segments.silence-search:PT20S}") Duration silenceSearch) {
+        this.lengthMs = length.toMillis();
+        this.overlapMs = overlap.toMillis();
+        this.silenceSearchMs = Math.min(silenceSearch.toMillis(), lengthMs / 2);
+    }
+
+    /* one segment per entry; a single entry (or none for audio that is not PCM wav) means do not split */
+    public List<Segment> plan(Path wav) throws IOException {
+        try (FileChannel channel = FileChannel.open(wav, StandardOpenOption.READ)) {
+            WavFormat format = readFormat(channel);
+            if (format == null) {
+                return List.of();
+            }
+            long duration = format.durationMs();
+            List<Long> bounds = new ArrayList<>();
+            bounds.add(0L);
+            long position = 0;
+            while (duration - position > lengthMs + lengthMs / 2) {
+                long target = position + lengthMs;
+                position = format.bitsPerSample() == 16 ? quietest(channel, format, target - silenceSearchMs, target) : target;
+                bounds.add(position);
+            }
+            bounds.add(duration);
+
+            List<Segment> segments = new ArrayList<>();
+            for (int i = 0; i + 1 < bounds.size(); i++) {
+                long start = i == 0 ? 0 : Math.max(0, bounds.get(i) - overlapMs / 2);
+                long end = i + 2 == bounds.size() ? duration : Math.min(duration, bounds.get(i + 1) + overlapMs / 2);
+                segments.add(new Segment(i, start, end));
+            }
+            return segments;
+        }
+    }
+
+    public void write(Path wav, Segment segment, Path target) throws IOException {
+        try (FileChannel in = FileChannel.open(wav, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            WavFormat format = readFormat(in);
+            if (format == null) {
+                throw new IOException("Not a PCM wav file: " + wav);
+            }
+            long from = format.byteAt(segment.startMs());
+            long length = format.byteAt(segment.endMs()) - from;
+            ByteBuffer header = ByteBuffer.allocate(20 + format.fmtChunk().length + 8).order(ByteOrder.LITTLE_ENDIAN);
+            header.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt((int) (header.capacity() - 8 + length))
+                    .put("WAVE".getBytes(StandardCharsets.US_ASCII))
+                    .put("fmt ".getBytes(StandardCharsets.US_ASCII)).putInt(format.fmtChunk().length).put(format.fmtChunk())
+                    .put("data".getBytes(StandardCharsets.US_ASCII)).putInt((int) length)
+                    .flip();
+            while (header.hasRemaining()) {
+                out.write(header);
+            }
+            long copied = 0;
+            while (copied < length) {
+                long n = in.transferTo(format.dataOffset() + from + copied, length - copied, out);
+                if (n <= 0) {
+                    throw new IOException("Unexpected end of " + wav);
+                }
+                copied += n;
+            }
+        }
+    }
+
+    // centre of the 100 ms frame with the lowest mean amplitude in [fromMs, toMs)
+    private static long quietest(FileChannel channel, WavFormat format, long fromMs, long toMs) throws IOException {
+        long frameBytes = format.byteAt(FRAME_MS);
+        long from = format.byteAt(fromMs);
+        ByteBuffer window = ByteBuffer.allocate((int) (format.byteAt(toMs) - from)).order(ByteOrder.LITTLE_ENDIAN);
+        while (window.hasRemaining()) {
+            if (channel.read(window, format.dataOffset() + from + window.position()) <= 0) {
+                break;
+            }
+        }
+        window.flip();
+        long best = toMs;
+        double quietest = Double.MAX_VALUE;
+        for (int frame = 0; (long) (frame + 1) * frameBytes <= window.limit(); frame++) {
+            long sum = 0;
+            int samples = (int) (frameBytes / 2);
+            for (int i = 0; i < samples; i++) {
+                sum += Math.abs(window.getShort((int) (frame * frameBytes) + 2 * i));
+            }
+            double mean = (double) sum / samples;
+            if (mean < quietest) {
+                quietest = mean;
+                best = fromMs + (long) frame * FRAME_MS + FRAME_MS / 2;
+            }
+        }
+        return best;
+    }
+
+    static WavFormat readFormat(FileChannel channel) throws IOException {
+        ByteBuffer riff = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+        if (channel.read(riff, 0) < 12 || !"RIFF".equals(ascii(riff, 0)) || !"WAVE".equals(ascii(riff, 8))) {
+            return null;
+        }
+        byte[] fmt = null;
+        long position = 12;
+        ByteBuffer chunk = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        while (position + 8 <= channel.size()) {
+            chunk.clear();
+            channel.read(chunk, position);
+            String id = ascii(chunk, 0);
+            long size = Integer.toUnsignedLong(chunk.getInt(4));
+            if ("fmt ".equals(id) && size >= 16 && size <= 64) {
+                ByteBuffer body = ByteBuffer.allocate((int) size);
+                channel.read(body, position + 8);
+                fmt = body.array();
+            } else if ("data".equals(id) && fmt != null) {
+                ByteBuffer f = ByteBuffer.wrap(fmt).order(ByteOrder.LITTLE_ENDIAN);
+                int formatTag = Short.toUnsignedInt(f.getShort(0));
+                int channels = Short.toUnsignedInt(f.getShort(2));
+                int sampleRate = f.getInt(4);
+                int blockAlign = Short.toUnsignedInt(f.getShort(12));
+                int bitsPerSample = Short.toUnsignedInt(f.getShort(14));
+                if ((formatTag != WAVE_FORMAT_PCM && formatTag != WAVE_FORMAT_EXTENSIBLE) || blockAlign == 0 || sampleRate <= 0) {
+                    return null;
+                }
+                // streaming writers leave the size at 0 or 0xFFFFFFFF
+                long available = channel.size() - position - 8;
+                long length = size == 0 || size > available ? available : size;
+                return new WavFormat(formatTag, channels, sampleRate, blockAlign, bitsPerSample, fmt, position + 8, length);
+            }
+            position += 8 + size + (size & 1);
+        }
+        return null;
+    }
+
+    private static String ascii(ByteBuffer buffer, int offset) {
+        byte[] bytes = new byte[4];
+        for (int i = 0; i < 4; i++) {
+            bytes[i] = buffer.get(offset + i);
+        }
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,69 @@
+package com.shrihari.axios.transcription;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/*
+ * Joins segment transcripts back into one. Neighbouring segments overlap around the
+ * cut chosen by AudioSegmenter, which lies in the middle of the overlap: with word
+ * timings each word is kept only by the segment whose side of the cut its midpoint
+ * falls on. Without timings the longest run of words that ends one transcript and
+ * starts the next is dropped once.
+ */
+public final class TranscriptStitcher {
+
+    static final int MAX_TEXT_OVERLAP = 64;
+
+    // start and end are relative to the segment, as the provider reports them
+    public record Word(String text, long start, long end) {
+    }
+
+    public record Part(long startMs, long endMs, String text, List<Word> words) {
+    }
+
+    private TranscriptStitcher() {
+    }
+
+    public static String stitch(List<Part> parts) {
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < parts.size(); i++) {
+            Part part = parts.get(i);
+            long from = i == 0 ? Long.MIN_VALUE : cut(parts.get(i - 1), part);
+            long to = i + 1 == parts.size() ? Long.MAX_VALUE : cut(part, parts.get(i + 1));
+            if (part.words() != null && !part.words().isEmpty()) {
+                for (Word word : part.words()) {
+                    long middle = part.startMs() + (word.start() + word.end()) / 2;
+                    if (middle >= from && middle < to) {
+                        words.add(word.text());
+                    }
+                }
+            } else if (part.text() != null && !part.text().isBlank()) {
+                List<String> tokens = List.of(part.text().trim().split("\\s+"));
+                words.addAll(tokens.subList(overlap(words, tokens), tokens.size()));
+            }
+        }
+        return String.join(" ", words);
+    }
+
+    private static long cut(Part before, Part after) {
+        return (after.startMs() + before.endMs()) / 2;
+    }
+
+    static int overlap(List<String> head, List<String> tail) {
+        for (int k = Math.min(MAX_TEXT_OVERLAP, Math.min(head.size(), tail.size())); k > 0; k--) {
+            boolean same = true;
+            for (int i = 0; i < k && same; i++) {
+                same = normalize(head.get(head.size() - k + i)).equals(normalize(tail.get(i)));
+            }
+            if (same) {
+                return k;
+            }
+        }
+        return 0;
+    }
+
+    private static String normalize(String word) {
+        return word.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]", "");
+    }
+}
@@ -0,0 +1,116 @@
+package com.shrihari.axios.transcription;
+
+import com.google.gson.Gson;
+import com.shrihari.axios.getData.AssemblyAiIdResponseBody;
+import com.shrihari.axios.getData.AssemblyAiRequestBody;
+import com.shrihari.axios.getData.AssemblyAiTranscriptResponseBody;
+import com.shrihari.axios.getData.AssemblyAiUploadResponseBody;
+import com.shrihari.axios.metrics.Timings;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static java.net.URI.create;
+
+/*
+ * Thin AssemblyAI client. The base url is configurable so tests can point it at a
+ * local stand-in server.
+ */
+@Component
+public class TranscriptionClient {
+
+    private final Gson gson;
+    private final String baseUrl;
+    private final String apiKey;
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+    @Autowired
+    public TranscriptionClient(Gson gson,
+                               @Value("${assemblyai.base-url:https://api.assemblyai.com}") String baseUrl,
+                               @Value("${assemblyai.api-key}") String apiKey) {
+        this.gson = gson;
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.apiKey = apiKey;
+    }
+
+    /*
+     * Recordings only exist on this server, behind the signed-in file routes, so they are
+     * uploaded to the provider and transcribed from its copy.
+     */
+    public String submitFile(Path audio) throws IOException, InterruptedException {
+        return submitUrl(upload(audio));
+    }
+
+    String upload(Path audio) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder().uri(create(baseUrl + "/v2/upload"))
+                .timeout(Duration.ofMinutes(5))
+                .header("authorization", apiKey)
+                .header("content-type", "application/octet-stream")
+                .POST(HttpRequest.BodyPublishers.ofFile(audio))
+                .build();
+        HttpResponse<String> response = send(request, "upload");
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("Transcription upload failed with HTTP " + response.statusCode());
+        }
+        AssemblyAiUploadResponseBody uploaded = gson.fromJson(response.body(), AssemblyAiUploadResponseBody.class);
+        if (uploaded == null || uploaded.upload_url == null) {
+            throw new IOException("Transcription upload returned no url");
+        }
+        return uploaded.upload_url;
+    }
+
+    private String submitUrl(String audioUrl) throws IOException, InterruptedException {
+        AssemblyAiRequestBody body = new AssemblyAiRequestBody();
+        body.audio_url = audioUrl;
+        body.language_detection = true;
+        body.speech_model = "best";
+        HttpRequest request = HttpRequest.newBuilder().uri(create(baseUrl + "/v2/transcript"))
+                .timeout(Duration.ofSeconds(30))
+                .header("authorization", apiKey)
+                .header("content-type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(body)))
+                .build();
+        HttpResponse<String> response = send(request, "submit");
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("Transcription submit failed with HTTP " + response.statusCode());
+        }
+        AssemblyAiIdResponseBody id = gson.fromJson(response.body(), AssemblyAiIdResponseBody.class);
+        if (id == null || id.id == null) {
+            throw new IOException("Transcription submit returned no id");
+        }
+        return id.id;
+    }
+
+    public AssemblyAiTranscriptResponseBody fetch(String providerJobId) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder().uri(create(baseUrl + "/v2/transcript/" + providerJobId))
+                .timeout(Duration.ofSeconds(30))
+                .header("authorization", apiKey)
+                .GET()
+                .build();
+        HttpResponse<String> response = send(request, "fetch");
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("Transcription poll failed with HTTP " + response.statusCode());
+        }
+        return gson.fromJson(response.body(), AssemblyAiTranscriptResponseBody.class);
+    }
+
+    private HttpResponse<String> send(HttpRequest request, String operation) throws IOException, InterruptedException {
+        Timer.Sample sample = Timings.start();
+        boolean success = false;
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            success = response.statusCode() / 100 == 2;
+            return response;
+        } finally {
+            Timings.stop(sample, "http.client.calls", success, "client", "assemblyai", "operation", operation);
+        }
+    }
+}
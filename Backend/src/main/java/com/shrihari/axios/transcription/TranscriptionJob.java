@@ -0,0 +1,64 @@
+package com.shrihari.axios.transcription;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "transcription_job")
+public class TranscriptionJob {
+
+    public enum Status {
+        PENDING,     /*audio stored, not yet handed to the provider*/
+        SUBMITTED,   /*provider is transcribing*/
+        COMPLETED,
+        FAILED
+    }
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "meeting_uuid", nullable = false)
+    private String meetingUuid;
+
+    @Column(name = "patient_phone", nullable = false)
+    private String patientPhone;
+
+    @Column(name = "doctor_email", nullable = false)
+    private String doctorEmail;
+
+    @Column(name = "audio_path")
+    private String audioPath;
+
+    @Column(name = "provider_job_id")
+    private String providerJobId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    private int attempts;
+
+    /*0 while the recording is transcribed as a whole*/
+    @Column(name = "segment_count")
+    private int segmentCount;
+
+    @Column(name = "next_poll_at")
+    private LocalDateTime nextPollAt;
+
+    @Column(name = "last_error", length = 1024)
+    private String lastError;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,25 @@
+package com.shrihari.axios.transcription;
+
+import com.shrihari.axios.security.VerifiedClaims;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/healthdesk/transcription")
+@CrossOrigin(origins = "*")
+public class TranscriptionJobController {
+
+    @Autowired
+    private TranscriptionJobService jobService;
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<TranscriptionJobStatus> getJobStatus(@PathVariable String jobId, @RequestAttribute(VerifiedClaims.ATTRIBUTE) VerifiedClaims claims) {
+        return jobService.getJob(jobId)
+                .map(job -> claims.isSubject(job.getDoctorEmail())
+                        ? ResponseEntity.ok(TranscriptionJobStatus.of(job))
+                        : ResponseEntity.status(HttpStatus.UNAUTHORIZED).<TranscriptionJobStatus>build())
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
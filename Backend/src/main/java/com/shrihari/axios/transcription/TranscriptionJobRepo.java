@@ -0,0 +1,27 @@
+package com.shrihari.axios.transcription;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface TranscriptionJobRepo extends JpaRepository<TranscriptionJob, String> {
+
+    List<TranscriptionJob> findTop50ByStatusInAndNextPollAtLessThanEqualOrderByNextPollAtAsc(Collection<TranscriptionJob.Status> statuses, LocalDateTime now);
+
+    Optional<TranscriptionJob> findFirstByMeetingUuidOrderByCreatedAtDesc(String meetingUuid);
+
+    /* 1 when this caller moved the job's next poll from due to lease, 0 when another worker already took it */
+    @Modifying
+    @Transactional
+    @Query("update TranscriptionJob j set j.nextPollAt = :lease where j.id = :id and j.nextPollAt = :due")
+    int claim(@Param("id") String id, @Param("due") LocalDateTime due, @Param("lease") LocalDateTime lease);
+}
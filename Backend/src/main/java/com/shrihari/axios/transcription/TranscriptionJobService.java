@@ -0,0 +1,440 @@
+package com.shrihari.axios.transcription;
+
+import com.google.gson.Gson;
+import com.shrihari.axios.files.FileServingController;
+import com.shrihari.axios.getData.AssemblyAiTranscriptResponseBody;
+import com.shrihari.axios.getData.ConversationSummaryStore;
+import com.shrihari.axios.getData.summaryStructure;
+import com.shrihari.axios.services.SummarizationService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Replaces the old sleep-then-poll-once flow of /send/data/conversation. Uploads are
+ * persisted as jobs and return at once; a scheduler claims due jobs for a small worker
+ * pool, which hands them to the provider, polls with growing delays, summarises
+ * finished transcripts and pushes the outcome to the doctor over STOMP.
+ *
+ * Recordings longer than one segment are split by AudioSegmenter and each segment is
+ * transcribed as its own provider job, with at most transcription.segments.max-in-flight
+ * segments submitted at a time across all jobs, so a long consultation takes about as
+ * long as one segment. A failed segment is resubmitted alone up to
+ * transcription.segments.max-attempts times before the whole job fails.
+ */
+@Service
+public class TranscriptionJobService {
+
+    static final String AUDIO_DIR = System.getProperty("user.home") + File.separator + "healthdesk" + File.separator + "assets" + File.separator + "audio";
+    static final String DESTINATION = "/queue/transcription-jobs";
+
+    @Autowired
+    private TranscriptionJobRepo jobRepo;
+    @Autowired
+    private TranscriptionSegmentRepo segmentRepo;
+    @Autowired
+    private AudioSegmenter audioSegmenter;
+    @Autowired
+    private TranscriptionClient transcriptionClient;
+    @Autowired
+    private SummarizationService summarizationService;
+    @Autowired
+    private ConversationSummaryStore summaryStore;
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+    @Autowired
+    private Gson gson;
+
+    @Value("${transcription.poll.initial-delay:PT15S}")
+    private Duration initialDelay;
+    @Value("${transcription.poll.max-delay:PT2M}")
+    private Duration maxDelay;
+    @Value("${transcription.poll.max-attempts:40}")
+    private int maxAttempts;
+    @Value("${transcription.segments.max-in-flight:16}")
+    private int maxSegmentsInFlight;
+    @Value("${transcription.segments.max-attempts:3}")
+    private int maxSegmentAttempts;
+    @Value("${transcription.workers.threads:4}")
+    private int workerCount;
+    @Value("${transcription.workers.lease:PT15M}")
+    private Duration lease;
+
+    private ThreadPoolExecutor workers;
+    // a job whose advance outlives its lease must not run twice on this node
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    public TranscriptionJob submit(MultipartFile audio, String meetingUuid, String patientPhone, String doctorEmail) throws IOException {
+        Path path = audioPath(meetingUuid);
+        Files.createDirectories(path.getParent());
+        Path received = Files.createTempFile(path.getParent(), meetingUuid, ".upload");
+        try {
+            audio.transferTo(received);
+            store(received, path);
+        } finally {
+            Files.deleteIfExists(received);
+        }
+        return enqueue(path, meetingUuid, patientPhone, doctorEmail);
+    }
+
+    // for audio that already arrived through the chunked upload API
+    public TranscriptionJob submit(Path uploadedAudio, String meetingUuid, String patientPhone, String doctorEmail) throws IOException {
+        Path path = audioPath(meetingUuid);
+        Files.createDirectories(path.getParent());
+        store(uploadedAudio, path);
+        return enqueue(path, meetingUuid, patientPhone, doctorEmail);
+    }
+
+    /* a recording stays on disk until its job finishes, so an existing file belongs to another job; createFile claims the name atomically */
+    private static void store(Path audio, Path path) throws IOException {
+        try {
+            Files.createFile(path);
+        } catch (FileAlreadyExistsException e) {
+            throw new IllegalStateException("A recording for this meeting is already being transcribed");
+        }
+        try {
+            Files.move(audio, path, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+    }
+
+    private TranscriptionJob enqueue(Path path, String meetingUuid, String patientPhone, String doctorEmail) throws IOException {
+        try {
+            return jobRepo.save(newJob(path, meetingUuid, patientPhone, doctorEmail));
+        } catch (RuntimeException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+    }
+
+    private static TranscriptionJob newJob(Path path, String meetingUuid, String patientPhone, String doctorEmail) {
+        LocalDateTime now = LocalDateTime.now();
+        TranscriptionJob job = new TranscriptionJob();
+        job.setId(UUID.randomUUID().toString());
+        job.setMeetingUuid(meetingUuid);
+        job.setPatientPhone(patientPhone);
+        job.setDoctorEmail(doctorEmail);
+        job.setAudioPath(path.toString());
+        job.setStatus(TranscriptionJob.Status.PENDING);
+        job.setNextPollAt(now);
+        job.setCreatedAt(now);
+        job.setUpdatedAt(now);
+        return job;
+    }
+
+    public Path audioPath(String meetingUuid) {
+        if (meetingUuid == null || !FileServingController.ASSET_ID.matcher(meetingUuid).matches()) {
+            throw new IllegalArgumentException("Invalid meetingUuid");
+        }
+        return Paths.get(AUDIO_DIR, meetingUuid + ".wav");
+    }
+
+    Path segmentPath(String meetingUuid, int index) {
+        return Paths.get(AUDIO_DIR, meetingUuid + ".parts", index + ".wav");
+    }
+
+    public Optional<TranscriptionJob> getJob(String jobId) {
+        return jobRepo.findById(jobId);
+    }
+
+    @PostConstruct
+    void startWorkers() {
+        AtomicInteger threads = new AtomicInteger();
+        workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(workerCount), r -> {
+            Thread thread = new Thread(r, "transcription-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stopWorkers() {
+        workers.shutdownNow();
+    }
+
+    /*
+     * Only claims due jobs; the provider calls, uploads and summarisation run on the
+     * workers, so the shared scheduler thread is never held by them. A claim moves the
+     * job's next poll to now + transcription.workers.lease, so neither the next tick nor
+     * another node picks it up while it is being advanced, and a worker that dies with it
+     * only delays the job by the lease.
+     */
+    @Scheduled(fixedDelayString = "${transcription.scheduler.delay-ms:5000}")
+    public void processDueJobs() {
+        int room = workers.getQueue().remainingCapacity();
+        if (room == 0) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (TranscriptionJob job : jobRepo.findTop50ByStatusInAndNextPollAtLessThanEqualOrderByNextPollAtAsc(
+                EnumSet.of(TranscriptionJob.Status.PENDING, TranscriptionJob.Status.SUBMITTED), now)) {
+            if (room == 0) {
+                return;
+            }
+            LocalDateTime due = job.getNextPollAt();
+            if (running.contains(job.getId()) || jobRepo.claim(job.getId(), due, now.plus(lease)) == 0) {
+                continue;
+            }
+            running.add(job.getId());
+            try {
+                workers.execute(() -> process(job));
+                room--;
+            } catch (RejectedExecutionException e) {
+                running.remove(job.getId());
+                jobRepo.claim(job.getId(), now.plus(lease), due);
+                return;
+            }
+        }
+    }
+
+    private void process(TranscriptionJob job) {
+        try {
+            advance(job);
+        } catch (InterruptedException e) {
+            // shutting down; the job is picked up again once its lease runs out
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            e.printStackTrace();
+            retryOrFail(job, e.getMessage());
+        } finally {
+            running.remove(job.getId());
+        }
+    }
+
+    void advance(TranscriptionJob job) throws IOException, InterruptedException {
+        if (job.getStatus() == TranscriptionJob.Status.PENDING) {
+            List<AudioSegmenter.Segment> plan = audioSegmenter.plan(Paths.get(job.getAudioPath()));
+            if (plan.size() > 1) {
+                split(job, plan);
+                advanceSegments(job);
+                return;
+            }
+            job.setProviderJobId(transcriptionClient.submitFile(Paths.get(job.getAudioPath())));
+            job.setStatus(TranscriptionJob.Status.SUBMITTED);
+            job.setAttempts(0);
+            reschedule(job);
+            return;
+        }
+
+        if (job.getSegmentCount() > 0) {
+            advanceSegments(job);
+            return;
+        }
+        AssemblyAiTranscriptResponseBody transcript = transcriptionClient.fetch(job.getProviderJobId());
+        if ("completed".equals(transcript.status)) {
+            complete(job, transcript.text);
+        } else if ("error".equals(transcript.status)) {
+            fail(job, transcript.error == null ? "Transcription failed" : transcript.error);
+        } else if (job.getAttempts() + 1 >= maxAttempts) {
+            fail(job, "Transcription did not finish after " + maxAttempts + " polls");
+        } else {
+            job.setAttempts(job.getAttempts() + 1);
+            reschedule(job);
+        }
+    }
+
+    private void split(TranscriptionJob job, List<AudioSegmenter.Segment> plan) throws IOException {
+        Files.createDirectories(segmentPath(job.getMeetingUuid(), 0).getParent());
+        LocalDateTime now = LocalDateTime.now();
+        List<TranscriptionSegment> segments = new ArrayList<>();
+        for (AudioSegmenter.Segment planned : plan) {
+            audioSegmenter.write(Paths.get(job.getAudioPath()), planned, segmentPath(job.getMeetingUuid(), planned.index()));
+            TranscriptionSegment segment = new TranscriptionSegment();
+            segment.setJobId(job.getId());
+            segment.setSegmentIndex(planned.index());
+            segment.setStartMs(planned.startMs());
+            segment.setEndMs(planned.endMs());
+            segment.setStatus(TranscriptionJob.Status.PENDING);
+            segment.setUpdatedAt(now);
+            segments.add(segment);
+        }
+        segmentRepo.saveAll(segments);
+        job.setSegmentCount(plan.size());
+        job.setStatus(TranscriptionJob.Status.SUBMITTED);
+        job.setAttempts(0);
+    }
+
+    /* submits pending segments while there is room, polls submitted ones, stitches once all are done */
+    private void advanceSegments(TranscriptionJob job) throws InterruptedException {
+        List<TranscriptionSegment> segments = segmentRepo.findByJobIdOrderBySegmentIndexAsc(job.getId());
+        long room = maxSegmentsInFlight - segmentRepo.countByStatus(TranscriptionJob.Status.SUBMITTED);
+        boolean done = true;
+        boolean worked = false;
+        for (TranscriptionSegment segment : segments) {
+            if (segment.getStatus() == TranscriptionJob.Status.PENDING && room > 0) {
+                worked = true;
+                try {
+                    segment.setProviderJobId(transcriptionClient.submitFile(segmentPath(job.getMeetingUuid(), segment.getSegmentIndex())));
+                    segment.setStatus(TranscriptionJob.Status.SUBMITTED);
+                    room--;
+                } catch (IOException e) {
+                    segmentFailed(segment, e.getMessage());
+                }
+                save(segment);
+            } else if (segment.getStatus() == TranscriptionJob.Status.SUBMITTED) {
+                worked = true;
+                pollSegment(segment);
+            }
+            if (segment.getStatus() == TranscriptionJob.Status.FAILED) {
+                fail(job, "Segment " + segment.getSegmentIndex() + " failed: " + segment.getLastError());
+                return;
+            }
+            done &= segment.getStatus() == TranscriptionJob.Status.COMPLETED;
+        }
+        if (done) {
+            complete(job, stitch(segments));
+        } else if (!worked) {
+            // only waiting for room among the segments in flight, which is not a poll
+            reschedule(job);
+        } else if (job.getAttempts() + 1 >= maxAttempts) {
+            fail(job, "Transcription did not finish after " + maxAttempts + " polls");
+        } else {
+            job.setAttempts(job.getAttempts() + 1);
+            reschedule(job);
+        }
+    }
+
+    private void pollSegment(TranscriptionSegment segment) throws InterruptedException {
+        AssemblyAiTranscriptResponseBody transcript;
+        try {
+            transcript = transcriptionClient.fetch(segment.getProviderJobId());
+        } catch (IOException e) {
+            // the provider may still be working on it; the job's poll limit bounds this
+            segment.setLastError(e.getMessage());
+            save(segment);
+            return;
+        }
+        if ("completed".equals(transcript.status)) {
+            segment.setText(transcript.text == null ? "" : transcript.text);
+            segment.setWords(transcript.words == null ? null : gson.toJson(transcript.words));
+            segment.setStatus(TranscriptionJob.Status.COMPLETED);
+            segment.setLastError(null);
+        } else if ("error".equals(transcript.status)) {
+            segmentFailed(segment, transcript.error == null ? "Transcription failed" : transcript.error);
+        } else {
+            return;
+        }
+        save(segment);
+    }
+
+    private void segmentFailed(TranscriptionSegment segment, String error) {
+        segment.setAttempts(segment.getAttempts() + 1);
+        segment.setLastError(error);
+        segment.setProviderJobId(null);
+        segment.setStatus(segment.getAttempts() >= maxSegmentAttempts ? TranscriptionJob.Status.FAILED : TranscriptionJob.Status.PENDING);
+    }
+
+    private void save(TranscriptionSegment segment) {
+        segment.setUpdatedAt(LocalDateTime.now());
+        segmentRepo.save(segment);
+    }
+
+    private String stitch(List<TranscriptionSegment> segments) {
+        List<TranscriptStitcher.Part> parts = new ArrayList<>();
+        for (TranscriptionSegment segment : segments) {
+            List<TranscriptStitcher.Word> words = segment.getWords() == null ? null
+                    : List.of(gson.fromJson(segment.getWords(), TranscriptStitcher.Word[].class));
+            parts.add(new TranscriptStitcher.Part(segment.getStartMs(), segment.getEndMs(), segment.getText(), words));
+        }
+        return TranscriptStitcher.stitch(parts);
+    }
+
+    private void complete(TranscriptionJob job, String text) {
+        if (text == null || text.isBlank()) {
+            fail(job, "Empty transcript");
+            return;
+        }
+        String json = summarizationService.summarize(text);
+        summaryStructure summary = gson.fromJson(json, summaryStructure.class);
+        if (summary == null || isEmpty(summary)) {
+            fail(job, "Empty summary");
+            return;
+        }
+        summaryStore.insert(text, job.getPatientPhone(), job.getDoctorEmail(), summary, json);
+        job.setStatus(TranscriptionJob.Status.COMPLETED);
+        job.setLastError(null);
+        finish(job);
+    }
+
+    private void retryOrFail(TranscriptionJob job, String error) {
+        job.setLastError(error);
+        if (job.getAttempts() + 1 >= maxAttempts) {
+            fail(job, error);
+            return;
+        }
+        job.setAttempts(job.getAttempts() + 1);
+        reschedule(job);
+    }
+
+    private void fail(TranscriptionJob job, String error) {
+        job.setStatus(TranscriptionJob.Status.FAILED);
+        job.setLastError(error);
+        finish(job);
+    }
+
+    private void finish(TranscriptionJob job) {
+        job.setNextPollAt(null);
+        job.setUpdatedAt(LocalDateTime.now());
+        jobRepo.save(job);
+        try {
+            Files.deleteIfExists(Paths.get(job.getAudioPath()));
+            for (int i = 0; i < job.getSegmentCount(); i++) {
+                Files.deleteIfExists(segmentPath(job.getMeetingUuid(), i));
+            }
+            if (job.getSegmentCount() > 0) {
+                Files.deleteIfExists(segmentPath(job.getMeetingUuid(), 0).getParent());
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        messagingTemplate.convertAndSendToUser(job.getDoctorEmail(), DESTINATION, TranscriptionJobStatus.of(job));
+    }
+
+    // 15s, 22s, 33s ... capped at maxDelay
+    private void reschedule(TranscriptionJob job) {
+        long millis = (long) (initialDelay.toMillis() * Math.pow(1.5, job.getAttempts()));
+        Duration delay = Duration.ofMillis(Math.min(millis, maxDelay.toMillis()));
+        LocalDateTime now = LocalDateTime.now();
+        job.setNextPollAt(now.plus(delay));
+        job.setUpdatedAt(now);
+        jobRepo.save(job);
+    }
+
+    private static boolean isEmpty(summaryStructure summary) {
+        return isEmpty(summary.symptoms) && isEmpty(summary.diagnosis) && isEmpty(summary.follow_up_plan) && isEmpty(summary.lifestyle_advice)
+                && isEmpty(summary.prescription) && isEmpty(summary.vitals) && isEmpty(summary.tests_recommended);
+    }
+
+    private static boolean isEmpty(List<String> list) {
+        return list == null || list.isEmpty();
+    }
+}
@@ -0,0 +1,8 @@
+package com.shrihari.axios.transcription;
+
+public record TranscriptionJobStatus(String jobId, String meetingUuid, String patientPhone, String status, String error) {
+
+    public static TranscriptionJobStatus of(TranscriptionJob job) {
+        return new TranscriptionJobStatus(job.getId(), job.getMeetingUuid(), job.getPatientPhone(), job.getStatus().name(), job.getLastError());
+    }
+}
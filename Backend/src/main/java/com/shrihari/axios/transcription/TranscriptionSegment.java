@@ -0,0 +1,55 @@
+package com.shrihari.axios.transcription;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "transcription_segment", uniqueConstraints = @UniqueConstraint(columnNames = {"job_id", "segment_index"}))
+public class TranscriptionSegment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_id", nullable = false, length = 36)
+    private String jobId;
+
+    @Column(name = "segment_index", nullable = false)
+    private int segmentIndex;
+
+    @Column(name = "start_ms", nullable = false)
+    private long startMs;
+
+    @Column(name = "end_ms", nullable = false)
+    private long endMs;
+
+    @Column(name = "provider_job_id")
+    private String providerJobId;
+
+    /* COMPLETED and FAILED are final; a failed attempt below the limit goes back to PENDING */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private TranscriptionJob.Status status;
+
+    private int attempts;
+
+    @Column(columnDefinition = "MEDIUMTEXT")
+    private String text;
+
+    /*word timings as JSON, relative to startMs*/
+    @Column(columnDefinition = "MEDIUMTEXT")
+    private String words;
+
+    @Column(name = "last_error", length = 1024)
+    private String lastError;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
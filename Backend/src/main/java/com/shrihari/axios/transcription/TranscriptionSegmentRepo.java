@@ -0,0 +1,14 @@
+package com.shrihari.axios.transcription;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TranscriptionSegmentRepo extends JpaRepository<TranscriptionSegment, Long> {
+
+    List<TranscriptionSegment> findByJobIdOrderBySegmentIndexAsc(String jobId);
+
+    long countByStatus(TranscriptionJob.Status status);
+}
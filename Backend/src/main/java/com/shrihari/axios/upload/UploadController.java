@@ -0,0 +1,136 @@
+package com.shrihari.axios.upload;
+
+import com.shrihari.axios.Document.PatientDocumentService;
+import com.shrihari.axios.getData.PatientVideoService;
+import com.shrihari.axios.security.RouteAccess;
+import com.shrihari.axios.security.VerifiedClaims;
+import com.shrihari.axios.transcription.TranscriptionJobService;
+import com.shrihari.axios.transcription.TranscriptionJobStatus;
+import com.shrihari.axios.utils.roles;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.file.Path;
+
+@RestController
+@RequestMapping("/healthdesk/uploads")
+@CrossOrigin(origins = "*")
+public class UploadController {
+
+    @Autowired
+    private UploadService uploadService;
+    @Autowired
+    private PatientDocumentService documentService;
+    @Autowired
+    private PatientVideoService patientVideoService;
+    @Autowired
+    private TranscriptionJobService transcriptionJobService;
+
+    @PostMapping
+    public ResponseEntity<?> createUpload(@RequestParam UploadSession.Kind kind,
+                                          @RequestParam String fileName,
+                                          @RequestParam(required = false) String contentType,
+                                          @RequestParam long totalSize,
+                                          @RequestAttribute(VerifiedClaims.ATTRIBUTE) VerifiedClaims claims) {
+        try {
+            UploadSession session = uploadService.create(claims.subject(), kind, fileName, contentType, totalSize);
+            return ResponseEntity.status(HttpStatus.CREATED).body(uploadService.status(session));
+        } catch (Exception e) {
+            return error(e);
+        }
+    }
+
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<?> getUpload(@PathVariable String uploadId, @RequestAttribute(VerifiedClaims.ATTRIBUTE) VerifiedClaims claims) {
+        try {
+            return ResponseEntity.ok(uploadService.status(uploadService.get(uploadId, claims.subject())));
+        } catch (Exception e) {
+            return error(e);
+        }
+    }
+
+    @PutMapping(value = "/{uploadId}", consumes = "application/octet-stream")
+    public ResponseEntity<?> appendChunk(@PathVariable String uploadId,
+                                         @RequestParam long offset,
+                                         @RequestHeader("X-Chunk-Sha256") String sha256,
+                                         @RequestAttribute(VerifiedClaims.ATTRIBUTE) VerifiedClaims claims,
+                                         HttpServletRequest request) {
+        try {
+            UploadSession session = uploadService.appendChunk(uploadId, claims.subject(), offset, sha256, request.getInputStream());
+            return ResponseEntity.ok(uploadService.status(session));
+        } catch (Exception e) {
+            return error(e);
+        }
+    }
+
+    @PostMapping("/{uploadId}/complete/document")
+    public ResponseEntity<?> completeDocument(@PathVariable String uploadId,
+                                              @RequestParam("phone") String phoneNumber,
+                                              @RequestAttribute(VerifiedClaims.ATTRIBUTE) VerifiedClaims claims) {
+        try {
+            UploadSession session = uploadService.get(uploadId, claims.subject());
+            Path file = uploadService.completedFile(session, UploadSession.Kind.DOCUMENT);
+            ResponseEntity<?> response = ResponseEntity.ok(documentService.saveDocument(phoneNumber, file, session.getFileName(), session.getContentType()));
+            uploadService.markCompleted(session);
+            return response;
+        } catch (Exception e) {
+            return error(e);
+        }
+    }
+
+    @PostMapping("/{uploadId}/complete/video")
+    public ResponseEntity<?> completeVideo(@PathVariable String uploadId,
+                                           @RequestParam String patient_phone,
+                                           @RequestParam String video_transcribed_text,
+                                           @RequestParam String transcribed_text_summary,
+                                           @RequestParam String severity,
+                                           @RequestParam String doctor_speciality,
+                                           @RequestAttribute(VerifiedClaims.ATTRIBUTE) VerifiedClaims claims) {
+        try {
+            UploadSession session = uploadService.get(uploadId, claims.subject());
+            Path file = uploadService.completedFile(session, UploadSession.Kind.VIDEO);
+            String uuid = patientVideoService.addPatientVideo(patient_phone, video_transcribed_text, transcribed_text_summary, severity, doctor_speciality, file);
+            uploadService.markCompleted(session);
+            return ResponseEntity.ok(uuid);
+        } catch (DataAccessException e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Could not store video details");
+        } catch (Exception e) {
+            return error(e);
+        }
+    }
+
+    @PostMapping("/{uploadId}/complete/audio")
+    @RouteAccess({roles.ROLES.Doctor, roles.ROLES.Pharmacist})
+    public ResponseEntity<?> completeAudio(@PathVariable String uploadId,
+                                           @RequestParam String meetingUuid,
+                                           @RequestParam String phnumber,
+                                           @RequestParam String doctor_email,
+                                           @RequestAttribute(VerifiedClaims.ATTRIBUTE) VerifiedClaims claims) {
+        try {
+            UploadSession session = uploadService.get(uploadId, claims.subject());
+            Path file = uploadService.completedFile(session, UploadSession.Kind.AUDIO);
+            TranscriptionJobStatus job = TranscriptionJobStatus.of(transcriptionJobService.submit(file, meetingUuid, phnumber, doctor_email));
+            uploadService.markCompleted(session);
+            return ResponseEntity.ok(job);
+        } catch (Exception e) {
+            return error(e);
+        }
+    }
+
+    private ResponseEntity<?> error(Exception e) {
+        if (e instanceof SecurityException) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(e.getMessage());
+        } else if (e instanceof IllegalStateException) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } else if (e instanceof IllegalArgumentException) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+        e.printStackTrace();
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+    }
+}
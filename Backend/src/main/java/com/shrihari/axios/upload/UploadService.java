@@ -0,0 +1,196 @@
+package com.shrihari.axios.upload;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Chunked, resumable uploads. Each chunk is streamed from the request body into the
+ * session's .part file through a fixed 64 KiB buffer, so heap use does not depend on
+ * the file size. The .part file sits on the same filesystem as the final asset
+ * directories, which makes the hand-over on completion a rename.
+ */
+@Service
+public class UploadService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private UploadSessionRepo sessionRepo;
+
+    @Value("${upload.dir:${user.home}/healthdesk/assets/uploads}")
+    private String uploadDir;
+    @Value("${upload.max-chunk-size:8MB}")
+    private DataSize maxChunkSize;
+    @Value("${upload.max-file-size:4GB}")
+    private DataSize maxFileSize;
+    @Value("${upload.abandon-after-hours:24}")
+    private long abandonAfterHours;
+
+    private final Map<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+
+    public UploadSession create(String owner, UploadSession.Kind kind, String fileName, String contentType, long totalSize) throws IOException {
+        if (totalSize <= 0 || totalSize > maxFileSize.toBytes()) {
+            throw new IllegalArgumentException("File size must be between 1 and " + maxFileSize.toBytes() + " bytes");
+        }
+        Files.createDirectories(Paths.get(uploadDir));
+
+        LocalDateTime now = LocalDateTime.now();
+        UploadSession session = new UploadSession();
+        session.setId(UUID.randomUUID().toString());
+        session.setOwner(owner);
+        session.setKind(kind);
+        session.setStatus(UploadSession.Status.OPEN);
+        session.setFileName(fileName);
+        session.setContentType(contentType);
+        session.setTotalSize(totalSize);
+        session.setReceivedBytes(0);
+        session.setCreatedAt(now);
+        session.setUpdatedAt(now);
+        Files.deleteIfExists(partPath(session.getId()));
+        Files.createFile(partPath(session.getId()));
+        return sessionRepo.save(session);
+    }
+
+    public UploadSession get(String uploadId, String owner) {
+        UploadSession session = sessionRepo.findById(uploadId)
+                .orElseThrow(() -> new IllegalArgumentException("Upload not found: " + uploadId));
+        if (!session.getOwner().equals(owner)) {
+            throw new SecurityException("Upload belongs to another user");
+        }
+        return session;
+    }
+
+    /*
+     * Appends one chunk at the given offset. The offset must equal the bytes already
+     * acknowledged; a client that lost its connection asks for the status and resumes
+     * from receivedBytes. A chunk whose SHA-256 does not match is cut off again.
+     */
+    public UploadSession appendChunk(String uploadId, String owner, long offset, String sha256, InputStream body) throws IOException {
+        ReentrantLock lock = locks.computeIfAbsent(uploadId, k -> new ReentrantLock());
+        if (!lock.tryLock()) {
+            throw new IllegalStateException("Another chunk for this upload is in progress");
+        }
+        try {
+            UploadSession session = get(uploadId, owner);
+            if (session.getStatus() != UploadSession.Status.OPEN) {
+                throw new IllegalStateException("Upload is already completed");
+            }
+            if (offset != session.getReceivedBytes()) {
+                throw new IllegalStateException("Expected offset " + session.getReceivedBytes() + " but got " + offset);
+            }
+            if (sha256 == null || sha256.isBlank()) {
+                throw new IllegalArgumentException("Missing chunk checksum");
+            }
+
+            long limit = Math.min(maxChunkSize.toBytes(), session.getTotalSize() - offset);
+            MessageDigest digest = sha256();
+            long written = 0;
+            try (FileChannel out = FileChannel.open(partPath(uploadId), StandardOpenOption.WRITE);
+                 ReadableByteChannel in = Channels.newChannel(body)) {
+                // drop bytes of a chunk that was written but never acknowledged
+                out.truncate(offset);
+                ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                long position = offset;
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    written += read;
+                    if (written > limit) {
+                        out.truncate(offset);
+                        throw new IllegalArgumentException("Chunk exceeds " + limit + " bytes");
+                    }
+                    buffer.flip();
+                    digest.update(buffer.array(), 0, buffer.limit());
+                    while (buffer.hasRemaining()) {
+                        position += out.write(buffer, position);
+                    }
+                    buffer.clear();
+                }
+                if (!HexFormat.of().formatHex(digest.digest()).equalsIgnoreCase(sha256.trim())) {
+                    out.truncate(offset);
+                    throw new IllegalArgumentException("Chunk checksum mismatch");
+                }
+                out.force(false);
+            }
+
+            session.setReceivedBytes(offset + written);
+            session.setUpdatedAt(LocalDateTime.now());
+            return sessionRepo.save(session);
+        } finally {
+            lock.unlock();
+            locks.remove(uploadId, lock);
+        }
+    }
+
+    /*
+     * Returns the finished .part file for the caller to move into place. The session is
+     * only marked completed through markCompleted once that hand-over succeeded.
+     */
+    public Path completedFile(UploadSession session, UploadSession.Kind expectedKind) {
+        if (session.getKind() != expectedKind) {
+            throw new IllegalArgumentException("Upload is a " + session.getKind() + ", not a " + expectedKind);
+        }
+        if (session.getStatus() != UploadSession.Status.OPEN) {
+            throw new IllegalStateException("Upload is already completed");
+        }
+        if (session.getReceivedBytes() != session.getTotalSize()) {
+            throw new IllegalStateException("Upload incomplete: " + session.getReceivedBytes() + " of " + session.getTotalSize() + " bytes received");
+        }
+        return partPath(session.getId());
+    }
+
+    public void markCompleted(UploadSession session) {
+        session.setStatus(UploadSession.Status.COMPLETED);
+        session.setUpdatedAt(LocalDateTime.now());
+        sessionRepo.save(session);
+    }
+
+    public UploadStatus status(UploadSession session) {
+        return new UploadStatus(session.getId(), session.getKind().name(), session.getStatus().name(), session.getReceivedBytes(), session.getTotalSize(), maxChunkSize.toBytes());
+    }
+
+    @Scheduled(fixedDelayString = "PT1H")
+    public void removeAbandonedUploads() {
+        for (UploadSession session : sessionRepo.findByStatusAndUpdatedAtBefore(UploadSession.Status.OPEN, LocalDateTime.now().minusHours(abandonAfterHours))) {
+            try {
+                Files.deleteIfExists(partPath(session.getId()));
+                sessionRepo.delete(session);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    Path partPath(String uploadId) {
+        return Paths.get(uploadDir, uploadId + ".part");
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.shrihari.axios.upload;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UploadSessionRepo extends JpaRepository<UploadSession, String> {
+
+    List<UploadSession> findByStatusAndUpdatedAtBefore(UploadSession.Status status, LocalDateTime cutoff);
+}
@@ -0,0 +1,4 @@
+package com.shrihari.axios.upload;
+
+public record UploadStatus(String uploadId, String kind, String status, long receivedBytes, long totalSize, long maxChunkSize) {
+}
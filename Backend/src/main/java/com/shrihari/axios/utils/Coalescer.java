@@ -0,0 +1,58 @@
+package com.shrihari.axios.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Counts events per key between drains. The first event for a key keeps its value, later
+ * ones only raise the count, so a window of any number of events drains as one entry per
+ * key. Counting and draining go through the map's per-key atomic operations: an event
+ * racing a drain lands either in the drained entry or in the next window, never in none.
+ */
+public final class Coalescer<K, V> {
+
+    public record Entry<K, V>(K key, V value, int count) {
+    }
+
+    public record Stats(long events, long drained, int pending) {
+    }
+
+    private final ConcurrentHashMap<K, Entry<K, V>> pending = new ConcurrentHashMap<>();
+    private final LongAdder events = new LongAdder();
+    private final LongAdder drained = new LongAdder();
+
+    public void add(K key, V value) {
+        pending.compute(key, (k, entry) -> entry == null ? new Entry<>(k, value, 1) : new Entry<>(k, entry.value(), entry.count() + 1));
+        events.increment();
+    }
+
+    public List<Entry<K, V>> drain() {
+        List<Entry<K, V>> entries = new ArrayList<>();
+        for (K key : pending.keySet()) {
+            Entry<K, V> entry = pending.remove(key);
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+        drained.add(entries.size());
+        return entries;
+    }
+
+    /* returns drained entries that could not be handled; they merge into the current window */
+    public void putBack(List<Entry<K, V>> entries) {
+        for (Entry<K, V> entry : entries) {
+            pending.merge(entry.key(), entry, (current, back) -> new Entry<>(back.key(), back.value(), back.count() + current.count()));
+        }
+        drained.add(-entries.size());
+    }
+
+    public int pending() {
+        return pending.size();
+    }
+
+    public Stats stats() {
+        return new Stats(events.sum(), drained.sum(), pending.size());
+    }
+}
@@ -0,0 +1,28 @@
+package com.shrihari.axios.utils;
+
+import java.util.List;
+import java.util.function.Function;
+
+/*
+ * One page of a keyset-paginated list. nextCursor is null on the last page.
+ */
+public record CursorPage<T>(T data, String nextCursor) {
+
+    public static final int MAX_LIMIT = 500;
+
+    public static int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    /*
+     * rows must have been fetched with limit + 1 so the extra row tells whether
+     * another page exists.
+     */
+    public static <R> CursorPage<List<R>> of(List<R> rows, int limit, Function<R, String> cursorOf) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<R> page = rows.subList(0, limit);
+        return new CursorPage<>(page, cursorOf.apply(page.get(limit - 1)));
+    }
+}
@@ -0,0 +1,61 @@
+package com.shrihari.axios.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/*
+ * Writes a JSON array to the response one element at a time, flushing every
+ * FLUSH_EVERY rows, so long lists reach the client while they are still being read.
+ */
+public final class JsonArrayStreamer implements Closeable {
+
+    private static final int FLUSH_EVERY = 100;
+
+    private final JsonGenerator generator;
+    private final ObjectWriter writer;
+    private int count;
+
+    public JsonArrayStreamer(ObjectMapper objectMapper, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.generator = objectMapper.getFactory().createGenerator(response.getOutputStream());
+        generator.writeStartArray();
+    }
+
+    /*
+     * Streams everything the producer hands to its sink. If the producer fails the
+     * array is left open, so a client can tell a cut-off stream from a complete one.
+     */
+    public static void writeAll(ObjectMapper objectMapper, HttpServletResponse response, Consumer<Consumer<Object>> producer) throws IOException {
+        JsonArrayStreamer out = new JsonArrayStreamer(objectMapper, response);
+        producer.accept(out::write);
+        out.close();
+    }
+
+    public void write(Object row) {
+        try {
+            writer.writeValue(generator, row);
+            if (++count % FLUSH_EVERY == 0) {
+                generator.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.writeEndArray();
+        generator.close();
+    }
+}
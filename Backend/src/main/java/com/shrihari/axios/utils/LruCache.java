@@ -0,0 +1,173 @@
+package com.shrihari.axios.utils;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/*
+ * Read-through cache holding at most maxEntries values, least-recently-used evicted
+ * first, each kept for at most ttl (a null ttl keeps entries until evicted). With a
+ * weigher the limit is the summed weight instead of the count; a value heavier than the
+ * whole budget is never stored. The loader runs outside the lock; if the cache is
+ * invalidated while it runs, its value is returned but not stored, so a load racing a
+ * write can never put the old row back.
+ */
+public final class LruCache<K, V> {
+
+    public record Stats(long hits, long misses, long evictions, long invalidations, int entries, long weight, long maxWeight) {
+
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+
+    private record Entry<V>(V value, long weight, long loadedAt) {
+    }
+
+    private final long maxWeight;
+    private final long ttlNanos;
+    private final ToLongFunction<? super V> weigher;
+    private final LongSupplier clock;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long weight;
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public LruCache(int maxEntries, Duration ttl) {
+        this(maxEntries, ttl, value -> 1, System::nanoTime);
+    }
+
+    public LruCache(long maxWeight, Duration ttl, ToLongFunction<? super V> weigher) {
+        this(maxWeight, ttl, weigher, System::nanoTime);
+    }
+
+    LruCache(long maxWeight, Duration ttl, ToLongFunction<? super V> weigher, LongSupplier clock) {
+        if (maxWeight < 1) {
+            throw new IllegalArgumentException("Max weight must be at least 1");
+        }
+        this.maxWeight = maxWeight;
+        this.ttlNanos = ttl == null ? Long.MAX_VALUE : ttl.toNanos();
+        this.weigher = weigher;
+        this.clock = clock;
+    }
+
+    // null from the loader is returned and not cached
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            V cached = fresh(key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+            loadGeneration = generation;
+        }
+        misses.increment();
+        V value = loader.apply(key);
+        if (value != null) {
+            synchronized (this) {
+                if (generation == loadGeneration) {
+                    store(key, value);
+                }
+            }
+        }
+        return value;
+    }
+
+    public V getIfPresent(K key) {
+        V cached;
+        synchronized (this) {
+            cached = fresh(key);
+        }
+        (cached == null ? misses : hits).increment();
+        return cached;
+    }
+
+    // the cached values among keys; keys not in the result are misses for the caller to load and put
+    public Map<K, V> getAll(Collection<? extends K> keys) {
+        Map<K, V> found = new HashMap<>();
+        synchronized (this) {
+            for (K key : keys) {
+                V cached = fresh(key);
+                if (cached != null) {
+                    found.put(key, cached);
+                }
+            }
+        }
+        hits.add(found.size());
+        misses.add(keys.size() - found.size());
+        return found;
+    }
+
+    public synchronized void put(K key, V value) {
+        if (value != null) {
+            store(key, value);
+        }
+    }
+
+    public synchronized void invalidate(K key) {
+        generation++;
+        remove(key);
+        invalidations.increment();
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+        weight = 0;
+        invalidations.increment();
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), invalidations.sum(), entries.size(), weight, maxWeight);
+    }
+
+    // caller holds the lock
+    private V fresh(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (clock.getAsLong() - entry.loadedAt() < ttlNanos) {
+            return entry.value();
+        }
+        remove(key);
+        return null;
+    }
+
+    // caller holds the lock
+    private void store(K key, V value) {
+        long entryWeight = weigher.applyAsLong(value);
+        if (entryWeight > maxWeight) {
+            remove(key);
+            return;
+        }
+        Entry<V> previous = entries.put(key, new Entry<>(value, entryWeight, clock.getAsLong()));
+        weight += entryWeight - (previous == null ? 0 : previous.weight());
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        while (weight > maxWeight && eldest.hasNext()) {
+            weight -= eldest.next().getValue().weight();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private void remove(K key) {
+        Entry<V> previous = entries.remove(key);
+        if (previous != null) {
+            weight -= previous.weight();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.shrihari.axios.utils;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * For calls that hold a monitor for their whole network round trip (jakarta.mail's
+ * SMTPTransport is synchronized around the SMTP exchange). With virtual request threads
+ * the call runs on one of a few platform threads and the virtual thread waits on the
+ * result, which does not pin its carrier. With platform request threads it runs inline.
+ */
+@Component
+public class PlatformOffload {
+
+    private final ExecutorService executor;
+
+    @Autowired
+    public PlatformOffload(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                           @Value("${platform-offload.threads:4}") int threads) {
+        if (virtualThreads) {
+            AtomicInteger created = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(threads, r -> {
+                Thread thread = new Thread(r, "platform-offload-" + created.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.executor = null;
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public <T> T call(Callable<T> call) throws Exception {
+        if (executor == null) {
+            return call.call();
+        }
+        try {
+            return executor.submit(call).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
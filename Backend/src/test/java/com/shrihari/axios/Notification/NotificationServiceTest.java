@@ -0,0 +1,123 @@
+package com.shrihari.axios.Notification;
+
+import com.shrihari.axios.Pharma.model.Medicine;
+import com.shrihari.axios.Pharma.model.Pharmacy;
+import com.shrihari.axios.Pharma.repo.MedicineRepo;
+import com.shrihari.axios.Pharma.repo.PharmaRepo;
+import com.shrihari.axios.Pharma.service.PharmacyGeoIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NotificationServiceTest {
+
+	private static final Long PHARMACY = 7L;
+
+	private NotificationRepo notificationRepo;
+	private UnreadCounter unreadCounter;
+	private SimpMessagingTemplate messagingTemplate;
+	private NotificationService service;
+
+	@BeforeEach
+	void setUp() {
+		notificationRepo = mock(NotificationRepo.class);
+		unreadCounter = mock(UnreadCounter.class);
+		service = new NotificationService();
+		ReflectionTestUtils.setField(service, "notificationRepo", notificationRepo);
+		ReflectionTestUtils.setField(service, "unreadCounter", unreadCounter);
+	}
+
+	// one pharmacy near the patient, stocking a medicine called Dolo
+	private void pharmacyNearby() {
+		Pharmacy pharmacy = new Pharmacy();
+		pharmacy.setId(PHARMACY);
+		pharmacy.setEmail("pharmacy@example.com");
+		Medicine medicine = new Medicine();
+		medicine.setId(3L);
+		medicine.setName("Dolo");
+		MedicineRepo medicineRepo = mock(MedicineRepo.class);
+		when(medicineRepo.findByNameEqualsIgnoreCaseOrGenericNameEqualsIgnoreCase("Dolo", "Dolo")).thenReturn(List.of(medicine));
+		PharmacyGeoIndex geoIndex = mock(PharmacyGeoIndex.class);
+		when(geoIndex.withinRadius(anyDouble(), anyDouble(), anyDouble())).thenReturn(List.of(new PharmacyGeoIndex.Hit(PHARMACY, 1.5)));
+		PharmaRepo pharmacyRepo = mock(PharmaRepo.class);
+		when(pharmacyRepo.findAllById(List.of(PHARMACY))).thenReturn(List.of(pharmacy));
+		messagingTemplate = mock(SimpMessagingTemplate.class);
+		ReflectionTestUtils.setField(service, "medicineRepo", medicineRepo);
+		ReflectionTestUtils.setField(service, "geoIndex", geoIndex);
+		ReflectionTestUtils.setField(service, "pharmacyRepo", pharmacyRepo);
+		ReflectionTestUtils.setField(service, "messagingTemplate", messagingTemplate);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void requestsFromAFailedFlushAreWrittenWithTheNextWindow() {
+		pharmacyNearby();
+		ArgumentCaptor<List<Notification>> written = ArgumentCaptor.forClass(List.class);
+		when(notificationRepo.saveAll(written.capture()))
+				.thenThrow(new IllegalStateException("Connection refused"))
+				.thenAnswer(invocation -> invocation.getArgument(0));
+		when(unreadCounter.adjust(PHARMACY, 1)).thenReturn(1L);
+
+		service.notifyPharmaciesAboutMedicine("Dolo", 12.97, 77.59);
+		service.notifyPharmaciesAboutMedicine("Dolo", 12.97, 77.59);
+		service.flushRequests();
+		assertEquals(1, service.requestStats().pending());
+		verify(messagingTemplate, never()).convertAndSendToUser(anyString(), anyString(), any());
+
+		service.notifyPharmaciesAboutMedicine("Dolo", 12.97, 77.59);
+		service.flushRequests();
+
+		List<Notification> saved = written.getAllValues().get(1);
+		assertEquals(1, saved.size());
+		assertEquals(3, saved.get(0).getDemand());
+		assertTrue(saved.get(0).getMessage().startsWith("3 patients requested Dolo"));
+		assertEquals(0, service.requestStats().pending());
+		assertEquals(1, service.requestStats().drained());
+		verify(messagingTemplate).convertAndSendToUser(anyString(), anyString(), any());
+	}
+
+	@Test
+	void theCounterMovesByTheRowsThatWereUnread() {
+		// one of the three ids was already read
+		when(notificationRepo.markRead(PHARMACY, List.of(1L, 2L, 3L))).thenReturn(2);
+		when(notificationRepo.markReadUpTo(PHARMACY, 10L)).thenReturn(1);
+		when(unreadCounter.adjust(PHARMACY, -3)).thenReturn(4L);
+
+		assertEquals(4, service.markRead(PHARMACY, List.of(1L, 2L, 3L), 10L));
+		verify(unreadCounter).adjust(PHARMACY, -3);
+		verify(notificationRepo, never()).countByPharmacy_IdEqualsAndReadStatusFalse(PHARMACY);
+	}
+
+	@Test
+	void nothingChangedLeavesTheCounterAlone() {
+		when(notificationRepo.markRead(PHARMACY, List.of(1L))).thenReturn(0);
+		when(notificationRepo.countByPharmacy_IdEqualsAndReadStatusFalse(PHARMACY)).thenReturn(6L);
+
+		assertEquals(6, service.markRead(PHARMACY, List.of(1L), null));
+		verify(unreadCounter, never()).adjust(anyLong(), anyLong());
+	}
+
+	@Test
+	void aMissingCounterFallsBackToTheDatabase() {
+		when(notificationRepo.markReadUpTo(PHARMACY, 10L)).thenReturn(3);
+		when(unreadCounter.adjust(PHARMACY, -3)).thenReturn(-1L);
+		when(notificationRepo.countByPharmacy_IdEqualsAndReadStatusFalse(PHARMACY)).thenReturn(2L);
+
+		assertEquals(2, service.markRead(PHARMACY, null, 10L));
+	}
+}
@@ -0,0 +1,80 @@
+package com.shrihari.axios.Notification;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/*
+ * Runs the counter's script against the local Redis the application uses
+ * (localhost:6379) and is skipped when none is running.
+ */
+class UnreadCounterTest {
+
+	private LettuceConnectionFactory connectionFactory;
+	private StringRedisTemplate redisTemplate;
+	private UnreadCounter counter;
+	private final Long pharmacyId = -ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+	private final String key = UnreadCounter.KEY_PREFIX + pharmacyId;
+
+	@BeforeEach
+	void connect() {
+		connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", 6379));
+		connectionFactory.afterPropertiesSet();
+		redisTemplate = new StringRedisTemplate(connectionFactory);
+		boolean reachable;
+		try {
+			reachable = "PONG".equals(redisTemplate.execute(connection -> connection.ping(), true));
+		} catch (Exception e) {
+			reachable = false;
+		}
+		assumeTrue(reachable, "no local Redis");
+
+		counter = new UnreadCounter();
+		ReflectionTestUtils.setField(counter, "redisTemplate", redisTemplate);
+	}
+
+	@AfterEach
+	void cleanUp() {
+		if (counter != null) {
+			redisTemplate.delete(key);
+		}
+		connectionFactory.destroy();
+	}
+
+	@Test
+	void aMissingCounterIsOnlySeededByARead() {
+		AtomicInteger counts = new AtomicInteger();
+
+		assertEquals(-1, counter.adjust(pharmacyId, 1));
+		assertFalse(redisTemplate.hasKey(key));
+
+		assertEquals(4, counter.get(pharmacyId, () -> counts.incrementAndGet() + 3));
+		assertEquals(4, counter.get(pharmacyId, () -> counts.incrementAndGet() + 3));
+		assertEquals(1, counts.get());
+		assertTrue(redisTemplate.getExpire(key) > 0);
+
+		assertEquals(5, counter.adjust(pharmacyId, 1));
+	}
+
+	@Test
+	void theCounterNeverGoesBelowZeroAndKeepsItsExpiry() {
+		counter.get(pharmacyId, () -> 2);
+
+		assertEquals(0, counter.adjust(pharmacyId, -5));
+		assertEquals("0", redisTemplate.opsForValue().get(key));
+		assertTrue(redisTemplate.getExpire(key) > 0);
+		assertEquals(1, counter.adjust(pharmacyId, 1));
+	}
+}
@@ -0,0 +1,82 @@
+package com.shrihari.axios.Pharma.repo;
+
+import com.shrihari.axios.Pharma.model.InventoryRow;
+import com.shrihari.axios.Pharma.model.Medicine;
+import com.shrihari.axios.Pharma.model.Pharmacy;
+import com.shrihari.axios.Pharma.model.PharmacyInventory;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/*
+ * Every inventory read must be one SQL statement, however many pharmacies and
+ * medicines the rows span.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class PharmaInventoryRepoTest {
+
+	@Autowired
+	private TestEntityManager entityManager;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+	@Autowired
+	private PharmaInventoryRepo inventoryRepo;
+
+	private final List<Pharmacy> pharmacies = new ArrayList<>();
+	private final List<Medicine> medicines = new ArrayList<>();
+
+	@BeforeEach
+	void catalogue() {
+		for (int p = 0; p < 5; p++) {
+			Pharmacy pharmacy = new Pharmacy();
+			pharmacy.setPharmaName("Pharmacy " + p);
+			pharmacy.setAddress("Street " + p);
+			pharmacy.setEmail("pharmacy" + p + "@inventory.test");
+			pharmacies.add(entityManager.persist(pharmacy));
+		}
+		for (int m = 0; m < 8; m++) {
+			medicines.add(entityManager.persist(Medicine.builder().name("Medicine " + m).genericName("Generic " + m).build()));
+		}
+		for (Pharmacy pharmacy : pharmacies) {
+			for (Medicine medicine : medicines) {
+				entityManager.persist(PharmacyInventory.builder().pharmacy(pharmacy).medicine(medicine).stock(3).build());
+			}
+		}
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	private <T> List<T> statements(long expected, Supplier<List<T>> query) {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		List<T> rows = query.get();
+		assertEquals(expected, statistics.getPrepareStatementCount());
+		return rows;
+	}
+
+	@Test
+	void eachInventoryQueryIsOneStatement() {
+		List<InventoryRow> byPharmacy = statements(1, () -> inventoryRepo.findRowsByPharmacyEmail("PHARMACY2@inventory.test"));
+		assertEquals(8, byPharmacy.size());
+		assertEquals("Pharmacy 2", byPharmacy.get(0).pharmacyName());
+		assertEquals("Medicine 0", byPharmacy.get(0).medicineName());
+
+		assertEquals(5, statements(1, () -> inventoryRepo.findRowsByMedicineId(medicines.get(3).getId())).size());
+		assertEquals(15, statements(1, () -> inventoryRepo.findRowsByMedicineIds(
+				List.of(medicines.get(0).getId(), medicines.get(1).getId(), medicines.get(2).getId()))).size());
+		assertEquals(40, statements(1, () -> inventoryRepo.findRowsByPharmacyName("pharmacy")).size());
+		assertEquals(2, statements(1, () -> inventoryRepo.findInStockRows(medicines.get(5).getId(),
+				List.of(pharmacies.get(0).getId(), pharmacies.get(4).getId()))).size());
+	}
+}
@@ -0,0 +1,94 @@
+package com.shrihari.axios.Pharma.service;
+
+import com.google.gson.Gson;
+import com.shrihari.axios.Pharma.model.Medicine;
+import com.shrihari.axios.config.GsonConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class CatalogueCacheTest {
+
+	private final Gson gson = new GsonConfig().gson();
+	private final AtomicInteger loads = new AtomicInteger();
+	private final List<Long> remoteChanges = new ArrayList<>();
+	private StringRedisTemplate redisTemplate;
+	private CatalogueCache cache;
+
+	@BeforeEach
+	void setUp() {
+		redisTemplate = mock(StringRedisTemplate.class);
+		cache = new CatalogueCache(100, Duration.ofMinutes(10));
+		ReflectionTestUtils.setField(cache, "redisTemplate", redisTemplate);
+		ReflectionTestUtils.setField(cache, "gson", gson);
+		cache.onRemoteMedicineChange(remoteChanges::add);
+	}
+
+	private void lookUp() {
+		cache.medicine(1L, id -> {
+			loads.incrementAndGet();
+			return Optional.of(Medicine.builder().id(id).name("Dolo 650").build());
+		});
+	}
+
+	private void receive(String payload) {
+		cache.receive(payload.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void anotherNodesInvalidationEvictsTheEntryAndRunsTheListeners() {
+		lookUp();
+		lookUp();
+		assertEquals(1, loads.get());
+
+		receive(gson.toJson(new CatalogueCache.Invalidation("another-node", CatalogueCache.Kind.MEDICINE, 1L)));
+
+		assertEquals(List.of(1L), remoteChanges);
+		lookUp();
+		assertEquals(2, loads.get());
+		assertEquals(1, cache.stats().received());
+	}
+
+	@Test
+	void theNodesOwnMessageIsIgnored() {
+		cache.medicineChanged(1L);
+		ArgumentCaptor<String> published = ArgumentCaptor.forClass(String.class);
+		verify(redisTemplate).convertAndSend(eq(CatalogueCache.CHANNEL), published.capture());
+		lookUp();
+
+		receive(published.getValue());
+
+		assertEquals(List.of(), remoteChanges);
+		lookUp();
+		assertEquals(1, loads.get());
+		assertEquals(0, cache.stats().received());
+	}
+
+	@Test
+	void aMalformedPayloadIsDropped() {
+		lookUp();
+
+		receive("not json {");
+		receive("{}");
+		receive("{\"origin\":\"another-node\",\"kind\":\"PRESCRIPTION\",\"id\":1}");
+
+		assertEquals(List.of(), remoteChanges);
+		lookUp();
+		assertEquals(1, loads.get());
+		assertEquals(0, cache.stats().received());
+	}
+}
@@ -0,0 +1,180 @@
+package com.shrihari.axios.Pharma.service;
+
+import com.shrihari.axios.Pharma.model.Medicine;
+import com.shrihari.axios.Pharma.model.Pharmacy;
+import com.shrihari.axios.Pharma.model.StockReservation;
+import com.shrihari.axios.Pharma.repo.MedicineRepo;
+import com.shrihari.axios.Pharma.repo.PharmaInventoryRepo;
+import com.shrihari.axios.Pharma.repo.PharmaRepo;
+import com.shrihari.axios.Pharma.repo.StockReservationRepo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * Runs outside a test transaction so concurrent callers commit for real. H2 in MySQL
+ * mode understands the same upserts as production.
+ */
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:stock;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password="})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(InventoryStockService.class)
+class InventoryStockServiceTest {
+
+	@Autowired
+	private InventoryStockService stockService;
+	@Autowired
+	private PharmaRepo pharmacyRepo;
+	@Autowired
+	private MedicineRepo medicineRepo;
+	@Autowired
+	private PharmaInventoryRepo inventoryRepo;
+	@Autowired
+	private StockReservationRepo reservationRepo;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Long pharmacyId;
+	private Long paracetamol;
+	private Long amoxicillin;
+
+	@BeforeEach
+	void catalogue() {
+		Pharmacy pharmacy = new Pharmacy();
+		pharmacy.setPharmaName("Corner Pharmacy");
+		pharmacy.setAddress("Main Street");
+		pharmacy.setEmail("corner@stock.test");
+		pharmacyId = pharmacyRepo.save(pharmacy).getId();
+		paracetamol = medicineRepo.save(Medicine.builder().name("Dolo 650").genericName("Paracetamol").build()).getId();
+		amoxicillin = medicineRepo.save(Medicine.builder().name("Mox 500").genericName("Amoxicillin").build()).getId();
+	}
+
+	@AfterEach
+	void clear() {
+		reservationRepo.deleteAll();
+		inventoryRepo.deleteAll();
+		medicineRepo.deleteAll();
+		pharmacyRepo.deleteAll();
+	}
+
+	private int stock(Long medicineId) {
+		return inventoryRepo.findRow(pharmacyId, medicineId).orElseThrow().stock();
+	}
+
+	private int reserved(Long medicineId) {
+		return jdbcTemplate.queryForObject("select reserved from pharmacy_inventory where pharmacy_id = ? and medicine_id = ?",
+				Integer.class, pharmacyId, medicineId);
+	}
+
+	@Test
+	void repeatedWritesUpdateOneRow() {
+		stockService.setStock(pharmacyId, paracetamol, 10);
+		stockService.setStock(pharmacyId, paracetamol, 7);
+		stockService.adjust(pharmacyId, paracetamol, 5);
+
+		assertEquals(1, inventoryRepo.count());
+		assertEquals(12, stock(paracetamol));
+		assertThrows(IllegalStateException.class, () -> stockService.adjust(pharmacyId, paracetamol, -13));
+		assertEquals(12, stock(paracetamol));
+	}
+
+	@Test
+	void concurrentDeltasAreNeverLostOrOversold() throws Exception {
+		stockService.setStock(pharmacyId, paracetamol, 500);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		AtomicInteger refused = new AtomicInteger();
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			futures.add(executor.submit(() -> {
+				for (int i = 0; i < 100; i++) {
+					stockService.adjust(pharmacyId, paracetamol, 1);
+					try {
+						stockService.adjust(pharmacyId, paracetamol, -2);
+					} catch (IllegalStateException e) {
+						refused.incrementAndGet();
+					}
+				}
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		executor.shutdown();
+
+		// 800 added, every successful take removed 2
+		assertEquals(500 + 800 - 2 * (800 - refused.get()), stock(paracetamol));
+		assertTrue(stock(paracetamol) >= 0);
+	}
+
+	@Test
+	void aBatchAppliesAllDeltasOrNone() {
+		stockService.setStock(pharmacyId, paracetamol, 4);
+
+		assertThrows(IllegalStateException.class, () -> stockService.applyBatch(pharmacyId, List.of(
+				new InventoryStockService.Delta(amoxicillin, 30),
+				new InventoryStockService.Delta(paracetamol, -5))));
+		assertEquals(1, inventoryRepo.count());
+		assertEquals(4, stock(paracetamol));
+
+		assertEquals(2, stockService.applyBatch(pharmacyId, List.of(
+				new InventoryStockService.Delta(paracetamol, -3),
+				new InventoryStockService.Delta(amoxicillin, 30),
+				new InventoryStockService.Delta(paracetamol, 2))));
+		assertEquals(3, stock(paracetamol));
+		assertEquals(30, stock(amoxicillin));
+	}
+
+	@Test
+	void reservationsHoldStockUntilReleasedCommittedOrExpired() {
+		stockService.setStock(pharmacyId, paracetamol, 10);
+
+		StockReservation held = stockService.reserve(pharmacyId, paracetamol, 6, null);
+		assertThrows(IllegalStateException.class, () -> stockService.adjust(pharmacyId, paracetamol, -5));
+		assertThrows(IllegalStateException.class, () -> stockService.reserve(pharmacyId, paracetamol, 5, null));
+
+		// another pharmacy cannot give it back
+		assertFalse(stockService.release(held.getId(), pharmacyId + 1));
+		assertEquals(6, reserved(paracetamol));
+		assertTrue(stockService.release(held.getId(), pharmacyId));
+		assertFalse(stockService.release(held.getId(), pharmacyId));
+		assertEquals(0, reserved(paracetamol));
+
+		StockReservation sold = stockService.reserve(pharmacyId, paracetamol, 4, null);
+		assertFalse(stockService.commit(sold.getId(), pharmacyId + 1));
+		assertTrue(stockService.commit(sold.getId(), pharmacyId));
+		assertEquals(6, stock(paracetamol));
+		assertEquals(0, reserved(paracetamol));
+
+		StockReservation lapsed = stockService.reserve(pharmacyId, paracetamol, 6, Duration.ofSeconds(1));
+		jdbcTemplate.update("update stock_reservation set expires_at = ? where id = ?",
+				java.sql.Timestamp.valueOf(lapsed.getExpiresAt().minusHours(1)), lapsed.getId());
+		stockService.releaseExpired();
+		assertEquals(0, reserved(paracetamol));
+		assertFalse(stockService.commit(lapsed.getId(), pharmacyId));
+		assertEquals(6, stock(paracetamol));
+	}
+}
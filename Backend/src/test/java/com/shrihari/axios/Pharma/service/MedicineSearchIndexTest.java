@@ -0,0 +1,74 @@
+package com.shrihari.axios.Pharma.service;
+
+import com.shrihari.axios.Pharma.model.Medicine;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MedicineSearchIndexTest {
+
+	private static Medicine medicine(long id, String name, String genericName) {
+		Medicine medicine = new Medicine();
+		medicine.setId(id);
+		medicine.setName(name);
+		medicine.setGenericName(genericName);
+		return medicine;
+	}
+
+	private static MedicineSearchIndex index() {
+		MedicineSearchIndex index = new MedicineSearchIndex();
+		index.put(medicine(1, "Crocin Advance", "Paracetamol"));
+		index.put(medicine(2, "Dolo 650", "Paracetamol"));
+		index.put(medicine(3, "Mox 500", "Amoxicillin"));
+		index.put(medicine(4, "Augmentin", "Co-Amoxiclav"));
+		index.put(medicine(5, "Paracip", null));
+		return index;
+	}
+
+	private static List<Long> ids(List<MedicineSearchIndex.Suggestion> suggestions) {
+		return suggestions.stream().map(MedicineSearchIndex.Suggestion::id).toList();
+	}
+
+	@Test
+	void prefixMatchesComeFirstShortestNameFirst() {
+		assertEquals(List.of(5L, 2L, 1L), ids(index().suggest("para", 10)));
+		assertEquals(List.of(2L), ids(index().suggest("dolo 6", 10)));
+	}
+
+	@Test
+	void typosAreRankedByEditDistance() {
+		MedicineSearchIndex index = index();
+
+		List<MedicineSearchIndex.Suggestion> suggestions = index.suggest("amoxcillin", 10);
+		assertEquals(List.of(3L), ids(suggestions));
+		assertEquals(1, suggestions.get(0).distance());
+
+		// a typo while still typing the word
+		assertEquals(List.of(2L, 1L), ids(index.suggest("paracetmo", 10)));
+		assertEquals(List.of(), ids(index.suggest("xyz", 10)));
+	}
+
+	@Test
+	void searchMatchesSubstringsOfEitherName() {
+		MedicineSearchIndex index = index();
+
+		assertEquals(List.of(3L, 4L), index.search("amox").stream().map(Medicine::getId).toList());
+		assertEquals(List.of(4L), index.search("co-amox").stream().map(Medicine::getId).toList());
+		assertEquals(List.of(3L, 4L), index.search("moxi").stream().map(Medicine::getId).toList());
+	}
+
+	@Test
+	void updatesAndDeletesAreVisibleImmediately() {
+		MedicineSearchIndex index = index();
+
+		index.put(medicine(3, "Novamox", "Amoxicillin"));
+		assertEquals(List.of(), ids(index.suggest("mox 5", 10)));
+		assertEquals(List.of(3L), ids(index.suggest("novam", 10)));
+
+		index.remove(3L);
+		assertEquals(List.of(4L), index.search("amox").stream().map(Medicine::getId).toList());
+		assertEquals(4, index.size());
+	}
+}
@@ -0,0 +1,63 @@
+package com.shrihari.axios.Pharma.service;
+
+import com.shrihari.axios.Pharma.model.Pharmacy;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PharmacyGeoIndexTest {
+
+	private static Pharmacy pharmacy(long id, double lat, double lon) {
+		Pharmacy pharmacy = new Pharmacy();
+		pharmacy.setId(id);
+		pharmacy.setLatitude(lat);
+		pharmacy.setLongitude(lon);
+		return pharmacy;
+	}
+
+	@Test
+	void radiusQueryMatchesLinearScan() {
+		PharmacyGeoIndex index = new PharmacyGeoIndex();
+		Random random = new Random(42);
+		double[][] points = new double[2000][];
+		for (int i = 0; i < points.length; i++) {
+			points[i] = new double[]{12.5 + random.nextDouble() * 2, 77 + random.nextDouble() * 2};
+			index.put(pharmacy(i, points[i][0], points[i][1]));
+		}
+
+		double lat = 13.2, lon = 77.6;
+		long expected = 0;
+		for (double[] p : points) {
+			if (PharmacyGeoIndex.haversine(lat, lon, p[0], p[1]) <= 20.0) {
+				expected++;
+			}
+		}
+		List<PharmacyGeoIndex.Hit> hits = index.withinRadius(lat, lon, 20.0);
+		assertEquals(expected, hits.size());
+		for (int i = 1; i < hits.size(); i++) {
+			assertEquals(true, hits.get(i - 1).distanceKm() <= hits.get(i).distanceKm());
+		}
+	}
+
+	@Test
+	void movedPharmacyIsReindexed() {
+		PharmacyGeoIndex index = new PharmacyGeoIndex();
+		index.put(pharmacy(1, 19.07, 72.87));
+		index.put(pharmacy(1, 28.61, 77.20));
+
+		assertEquals(0, index.withinRadius(19.07, 72.87, 20.0).size());
+		assertEquals(1, index.nearest(28.60, 77.21, 5, 20.0).size());
+		assertEquals(1, index.size());
+	}
+
+	@Test
+	void queryWrapsAcrossAntimeridian() {
+		PharmacyGeoIndex index = new PharmacyGeoIndex();
+		index.put(pharmacy(1, -17.0, 179.98));
+
+		assertEquals(1, index.withinRadius(-17.0, -179.98, 20.0).size());
+	}
+}
@@ -0,0 +1,34 @@
+package com.shrihari.axios.files;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ByteRangeTest {
+
+	@Test
+	void parsesSingleRanges() {
+		assertEquals(new ByteRange(0, 499), ByteRange.parse("bytes=0-499", 1000));
+		assertEquals(new ByteRange(500, 999), ByteRange.parse("bytes=500-", 1000));
+		assertEquals(new ByteRange(900, 999), ByteRange.parse("bytes=-100", 1000));
+		assertEquals(new ByteRange(0, 999), ByteRange.parse("bytes=-5000", 1000));
+		assertEquals(new ByteRange(990, 999), ByteRange.parse("bytes=990-2000", 1000));
+	}
+
+	@Test
+	void ignoresHeadersItCannotServeAsOneRange() {
+		assertNull(ByteRange.parse(null, 1000));
+		assertNull(ByteRange.parse("items=0-1", 1000));
+		assertNull(ByteRange.parse("bytes=0-1,5-6", 1000));
+		assertNull(ByteRange.parse("bytes=abc-", 1000));
+		assertNull(ByteRange.parse("bytes=10-5", 1000));
+	}
+
+	@Test
+	void rejectsRangesPastTheEnd() {
+		assertThrows(IllegalArgumentException.class, () -> ByteRange.parse("bytes=1000-", 1000));
+		assertThrows(IllegalArgumentException.class, () -> ByteRange.parse("bytes=-0", 1000));
+	}
+}
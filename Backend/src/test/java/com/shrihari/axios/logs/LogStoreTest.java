@@ -0,0 +1,123 @@
+package com.shrihari.axios.logs;
+
+import com.google.gson.Gson;
+import com.shrihari.axios.config.GsonConfig;
+import com.shrihari.axios.dto.LogEntry;
+import com.shrihari.axios.services.LoggingService;
+import com.shrihari.axios.utils.CursorPage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogStoreTest {
+
+	private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+	private static final String[] ENDPOINTS = {"/healthdesk/auth/check/password", "/healthdesk/auth/send/email", "/healthdesk/auth/check/phone"};
+
+	@TempDir
+	Path directory;
+
+	private final Gson gson = new GsonConfig().gson();
+
+	private void writeEntries(LogStore store, int count) throws Exception {
+		LoggingService service = new LoggingService(gson, store, 1 << 14, DataSize.ofKilobytes(8),
+				Duration.ofHours(1), LoggingService.FsyncPolicy.NEVER, Duration.ofSeconds(1));
+		service.start();
+		for (int i = 0; i < count; i++) {
+			LogEntry entry = new LogEntry("failure number " + i, ENDPOINTS[i % ENDPOINTS.length]);
+			entry.setTime(START.plusMinutes(i));
+			service.log(entry);
+		}
+		service.stop();
+	}
+
+	private static List<LogStore.LogRecord> all(LogStore store, LocalDateTime from, LocalDateTime to, String endpoint, String q) throws Exception {
+		List<LogStore.LogRecord> rows = new ArrayList<>();
+		String after = null;
+		do {
+			CursorPage<List<LogStore.LogRecord>> page = store.query(from, to, endpoint, q, after, 37);
+			rows.addAll(page.data());
+			after = page.nextCursor();
+		} while (after != null);
+		return rows;
+	}
+
+	@Test
+	void pagesThroughFilteredEntriesNewestFirst() throws Exception {
+		LogStore store = new LogStore(gson, directory.toString(), Duration.ofDays(30), DataSize.ofGigabytes(1));
+		writeEntries(store, 900);
+
+		List<LogStore.LogRecord> rows = all(store, START.plusMinutes(100), START.plusMinutes(699), ENDPOINTS[1], null);
+		assertEquals(200, rows.size());
+		Set<String> seen = new HashSet<>();
+		for (int i = 0; i < rows.size(); i++) {
+			assertEquals(ENDPOINTS[1], rows.get(i).endpoint());
+			assertTrue(seen.add(rows.get(i).error()));
+			if (i > 0) {
+				assertTrue(rows.get(i - 1).time().isAfter(rows.get(i).time()));
+			}
+		}
+		assertEquals(START.plusMinutes(697), rows.get(0).time());
+
+		assertEquals(11, all(store, null, null, null, "NUMBER 42").size());
+		assertEquals(0, all(store, null, null, "/healthdesk/unknown", null).size());
+	}
+
+	@Test
+	void reopenedStoreServesSealedAndRebuiltIndexes() throws Exception {
+		writeEntries(new LogStore(gson, directory.toString(), Duration.ofDays(30), DataSize.ofGigabytes(1)), 300);
+		try (Stream<Path> files = Files.list(directory)) {
+			Path index = files.filter(path -> path.toString().endsWith(".idx")).findFirst().orElseThrow();
+			Files.delete(index);
+		}
+
+		LogStore reopened = new LogStore(gson, directory.toString(), Duration.ofDays(30), DataSize.ofGigabytes(1));
+		reopened.load();
+		assertEquals(300, all(reopened, null, null, null, null).size());
+		assertEquals(100, all(reopened, null, null, ENDPOINTS[2], null).size());
+		assertNull(reopened.query(START.plusDays(1), null, null, null, null, 10).nextCursor());
+	}
+
+	private List<Path> files(String suffix) throws Exception {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(path -> path.toString().endsWith(suffix)).toList();
+		}
+	}
+
+	@Test
+	void retentionDeletesOldSegmentsWithTheirIndexes() throws Exception {
+		writeEntries(new LogStore(gson, directory.toString(), Duration.ofDays(30), DataSize.ofGigabytes(1)), 900);
+		int written = files(".jsonl").size();
+		assertTrue(written > 3);
+
+		LogStore store = new LogStore(gson, directory.toString(), Duration.ofDays(30), DataSize.ofKilobytes(20));
+		store.load();
+		long total = 0;
+		for (Path path : files("")) {
+			total += Files.size(path);
+		}
+		assertTrue(total <= DataSize.ofKilobytes(20).toBytes());
+		assertTrue(files(".jsonl").size() < written);
+		assertEquals(files(".jsonl").size(), files(".idx").size());
+		assertEquals(START.plusMinutes(899), all(store, null, null, null, null).get(0).time());
+
+		store.prune(System.currentTimeMillis() + Duration.ofDays(31).toMillis());
+		assertEquals(1, files(".jsonl").size());
+		assertEquals(1, files(".idx").size());
+		assertEquals(START.plusMinutes(899), all(store, null, null, null, null).get(0).time());
+	}
+}
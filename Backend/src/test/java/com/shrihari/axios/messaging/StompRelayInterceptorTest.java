@@ -0,0 +1,115 @@
+package com.shrihari.axios.messaging;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StompRelayInterceptorTest {
+
+	private record Relayed(String destination, String user) {
+	}
+
+	private final List<Relayed> relayed = new ArrayList<>();
+
+	private StompRelayInterceptor interceptor() {
+		StompRelayInterceptor interceptor = new StompRelayInterceptor();
+		ReflectionTestUtils.setField(interceptor, "relay", (StompRelay) (destination, user, message) -> relayed.add(new Relayed(destination, user)));
+		return interceptor;
+	}
+
+	private static Message<byte[]> message(String destination, String nativeHeader, String originalDestination) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+		accessor.setDestination(destination);
+		if (nativeHeader != null) {
+			accessor.setNativeHeader(nativeHeader, "node-a");
+		}
+		if (originalDestination != null) {
+			accessor.setHeader(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION, originalDestination);
+		}
+		return MessageBuilder.createMessage("{}".getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+	}
+
+	@Test
+	void onlyMessagesThisNodeProducedAreRelayed() {
+		StompRelayInterceptor interceptor = interceptor();
+
+		interceptor.preSend(message("/queue/presence", null, null), null);
+		interceptor.preSend(message("/user/doctor@example.com/queue/notifications", null, null), null);
+		// copies from another node, sends every node makes itself, and user destinations already resolved to a session
+		interceptor.preSend(message("/queue/presence", StompRelay.RELAYED_HEADER, null), null);
+		interceptor.preSend(message("/user/doctor@example.com/queue/notifications", StompRelay.RELAYED_HEADER, null), null);
+		interceptor.preSend(message("/queue/presence", StompRelay.LOCAL_ONLY_HEADER, null), null);
+		interceptor.preSend(message("/queue/notifications-user1a2b", null, "/user/queue/notifications"), null);
+		interceptor.preSend(message("/app/videocall/create", null, null), null);
+
+		assertEquals(List.of(new Relayed("/queue/presence", null),
+				new Relayed("/user/doctor@example.com/queue/notifications", "doctor@example.com")), relayed);
+	}
+
+	@Test
+	void aCopyReceivedFromRedisIsDeliveredButNotRelayedBack() {
+		StompSessionRegistry registry = mock(StompSessionRegistry.class);
+		when(registry.nodeId()).thenReturn("node-b");
+		RedisMessageListenerContainer container = mock(RedisMessageListenerContainer.class);
+		SimpMessagingTemplate template = mock(SimpMessagingTemplate.class);
+		StompRelayInterceptor interceptor = interceptor();
+		List<Message<?>> delivered = new ArrayList<>();
+		doAnswer(invocation -> {
+			Message<?> message = invocation.getArgument(1);
+			delivered.add(message);
+			// the template sends on the broker channel, so the interceptor sees the copy
+			interceptor.preSend(MessageBuilder.createMessage(message.getPayload(), SimpMessageHeaderAccessor.wrap(message).getMessageHeaders()), null);
+			return null;
+		}).when(template).send(anyString(), any(Message.class));
+
+		RedisStompRelay relay = new RedisStompRelay();
+		ReflectionTestUtils.setField(relay, "sessionRegistry", registry);
+		ReflectionTestUtils.setField(relay, "redisTemplate", mock(StringRedisTemplate.class));
+		ReflectionTestUtils.setField(relay, "listenerContainer", container);
+		ReflectionTestUtils.setField(relay, "gson", new Gson());
+		ReflectionTestUtils.setField(relay, "messagingTemplate", template);
+		ReflectionTestUtils.setField(relay, "queueSize", 10);
+		relay.start();
+		ArgumentCaptor<MessageListener> listener = ArgumentCaptor.forClass(MessageListener.class);
+		verify(container).addMessageListener(listener.capture(), anyCollection());
+
+		String payload = Base64.getEncoder().encodeToString("{}".getBytes(StandardCharsets.UTF_8));
+		listener.getValue().onMessage(envelope(new RedisStompRelay.Envelope("node-a", "/queue/presence", null, payload)), null);
+		// this node's own broadcast coming back from Redis
+		listener.getValue().onMessage(envelope(new RedisStompRelay.Envelope("node-b", "/queue/presence", null, payload)), null);
+
+		assertEquals(1, delivered.size());
+		assertEquals("node-a", SimpMessageHeaderAccessor.wrap(delivered.get(0)).getFirstNativeHeader(StompRelay.RELAYED_HEADER));
+		assertTrue(relayed.isEmpty());
+		assertEquals(1, relay.stats().received());
+	}
+
+	private static org.springframework.data.redis.connection.Message envelope(RedisStompRelay.Envelope envelope) {
+		return new DefaultMessage(RedisStompRelay.BROADCAST_CHANNEL.getBytes(StandardCharsets.UTF_8), new Gson().toJson(envelope).getBytes(StandardCharsets.UTF_8));
+	}
+}
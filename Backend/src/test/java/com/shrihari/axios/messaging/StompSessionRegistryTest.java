@@ -0,0 +1,44 @@
+package com.shrihari.axios.messaging;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StompSessionRegistryTest {
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void aNodeThatMissedItsHeartbeatIsSkippedButKeepsItsSessions() {
+		StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+		HashOperations<String, Object, Object> hashes = mock(HashOperations.class);
+		ValueOperations<String, String> values = mock(ValueOperations.class);
+		when(redisTemplate.<Object, Object>opsForHash()).thenReturn(hashes);
+		when(redisTemplate.opsForValue()).thenReturn(values);
+		StompSessionRegistry registry = new StompSessionRegistry();
+		ReflectionTestUtils.setField(registry, "redisTemplate", redisTemplate);
+
+		when(hashes.entries(StompSessionRegistry.USER_PREFIX + "doctor@example.com"))
+				.thenReturn(Map.of("s1", "node-a", "s2", "node-late", "s3", registry.nodeId()));
+		when(values.multiGet(any())).thenAnswer(invocation -> {
+			List<String> keys = invocation.getArgument(0);
+			return keys.stream().map(key -> key.endsWith("node-a") ? "1" : null).toList();
+		});
+
+		assertEquals(Set.of("node-a"), registry.remoteNodesFor("doctor@example.com"));
+		verify(hashes, never()).delete(anyString(), any(Object[].class));
+	}
+}
@@ -0,0 +1,56 @@
+package com.shrihari.axios.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PinningMonitorTest {
+
+	private final Object driverLock = new Object();
+
+	private void blockInsideMonitor() {
+		synchronized (driverLock) {
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	@Test
+	void blockingInsideSynchronizedIsReportedBySite() throws Exception {
+		PinningMonitor monitor = new PinningMonitor(Duration.ofMillis(10), 50);
+		monitor.start();
+		try {
+			for (int i = 0; i < 3; i++) {
+				Thread.ofVirtual().start(this::blockInsideMonitor).join();
+			}
+			// unpinned: the virtual thread unmounts while it sleeps
+			Thread.ofVirtual().start(() -> {
+				try {
+					Thread.sleep(50);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}).join();
+
+			long deadline = System.currentTimeMillis() + 10_000;
+			while (monitor.stats().pinned() < 3 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(100);
+			}
+			PinningMonitor.Stats stats = monitor.stats();
+			assertEquals(3, stats.pinned());
+			assertEquals(1, stats.sites().size());
+			assertTrue(stats.sites().get(0).frame().startsWith(PinningMonitorTest.class.getName() + ".blockInsideMonitor:"), stats.sites().get(0).frame());
+			assertTrue(stats.sites().get(0).maxMillis() >= 40);
+			assertEquals(stats.sites().get(0).frame(), stats.sites().get(0).stack().stream()
+					.filter(frame -> frame.startsWith(PinningMonitorTest.class.getName())).findFirst().orElseThrow());
+		} finally {
+			monitor.stop();
+		}
+	}
+}
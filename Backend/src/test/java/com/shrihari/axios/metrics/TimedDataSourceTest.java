@@ -0,0 +1,65 @@
+package com.shrihari.axios.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TimedDataSourceTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private Timer timer(String operation, String outcome) {
+		return registry.find(TimedDataSource.TIMER).tag("operation", operation).tag("outcome", outcome).timer();
+	}
+
+	@Test
+	void statementsAreTimedBySqlVerbAndOutcome() throws SQLException {
+		DataSource pool = mock(DataSource.class);
+		Connection connection = mock(Connection.class);
+		PreparedStatement select = mock(PreparedStatement.class);
+		Statement statement = mock(Statement.class);
+		when(pool.getConnection()).thenReturn(connection);
+		when(connection.prepareStatement("  SELECT id from medicines where id = ?")).thenReturn(select);
+		when(connection.createStatement()).thenReturn(statement);
+		when(statement.executeUpdate(anyString())).thenThrow(new SQLException("deadlock"));
+
+		DataSource timed = new TimedDataSource(pool, () -> registry);
+		try (Connection wrapped = timed.getConnection()) {
+			PreparedStatement prepared = wrapped.prepareStatement("  SELECT id from medicines where id = ?");
+			prepared.setLong(1, 7);
+			prepared.executeQuery();
+			prepared.executeQuery();
+			assertThrows(SQLException.class, () -> wrapped.createStatement().executeUpdate("update medicines set price = 1"));
+		}
+
+		assertEquals(2, timer("select", "success").count());
+		assertEquals(1, timer("update", "error").count());
+		assertNull(timer("select", "error"));
+	}
+
+	@Test
+	void unwrapReachesThePool() throws SQLException {
+		// stands in for the HikariDataSource the pool metrics look for
+		AutoCloseable hikari = mock(AutoCloseable.class);
+		DataSource pool = mock(DataSource.class);
+		when(pool.unwrap(AutoCloseable.class)).thenReturn(hikari);
+
+		assertSame(hikari, new TimedDataSource(pool, () -> registry).unwrap(AutoCloseable.class));
+		assertEquals("other", TimedDataSource.operation("with recent as (select 1) select * from recent"));
+		assertEquals("insert", TimedDataSource.operation("insert into notification values (?)"));
+	}
+}
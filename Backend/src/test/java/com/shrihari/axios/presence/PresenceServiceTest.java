@@ -0,0 +1,109 @@
+package com.shrihari.axios.presence;
+
+import com.shrihari.axios.config.GsonConfig;
+import com.shrihari.axios.messaging.StompRelay;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/*
+ * Runs against the local Redis the application uses (localhost:6379) and is skipped
+ * when none is running.
+ */
+class PresenceServiceTest {
+
+	private LettuceConnectionFactory connectionFactory;
+	private StringRedisTemplate redisTemplate;
+	private SimpMessagingTemplate messagingTemplate;
+	private PresenceService presenceService;
+	private final String speciality = "Test Speciality " + UUID.randomUUID();
+	private final String doctor = UUID.randomUUID() + "@presence.test";
+
+	@BeforeEach
+	void connect() {
+		connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", 6379));
+		connectionFactory.afterPropertiesSet();
+		redisTemplate = new StringRedisTemplate(connectionFactory);
+		boolean reachable;
+		try {
+			reachable = "PONG".equals(redisTemplate.execute(connection -> connection.ping(), true));
+		} catch (Exception e) {
+			reachable = false;
+		}
+		assumeTrue(reachable, "no local Redis");
+
+		messagingTemplate = mock(SimpMessagingTemplate.class);
+		presenceService = new PresenceService();
+		ReflectionTestUtils.setField(presenceService, "redisTemplate", redisTemplate);
+		ReflectionTestUtils.setField(presenceService, "messagingTemplate", messagingTemplate);
+		ReflectionTestUtils.setField(presenceService, "gson", new GsonConfig().gson());
+	}
+
+	@AfterEach
+	void cleanUp() {
+		if (presenceService != null) {
+			redisTemplate.delete(List.of(doctor, PresenceService.ONLINE_PREFIX + speciality));
+			redisTemplate.opsForHash().delete(PresenceService.SPECIALITY_HASH, doctor);
+			redisTemplate.opsForSet().remove(PresenceService.ONLINE_SET, doctor);
+		}
+		connectionFactory.destroy();
+	}
+
+	@Test
+	void bulkLookupAndSpecialitySetsFollowSetAndUnset() {
+		String absent = UUID.randomUUID() + "@presence.test";
+		presenceService.setAvailable(doctor, speciality);
+
+		assertEquals(Map.of(doctor, true, absent, false), presenceService.availability(List.of(doctor, absent)));
+		assertEquals(List.of(doctor), presenceService.online(speciality));
+
+		presenceService.setUnavailable(doctor);
+		assertEquals(Map.of(doctor, false), presenceService.availability(List.of(doctor)));
+		assertEquals(List.of(), presenceService.online(speciality));
+	}
+
+	@Test
+	void expiredDoctorKeyIsPushedToSpecialityTopic() {
+		presenceService.setAvailable(doctor, speciality);
+		redisTemplate.delete(doctor);
+
+		presenceService.expired(doctor);
+
+		verify(messagingTemplate).convertAndSend(eq(PresenceService.destination(speciality)),
+				argThat((PresenceService.PresenceEvent event) -> event.doctor().equals(doctor)
+						&& event.status() == PresenceService.Status.OFFLINE
+						&& event.reason() == PresenceService.Reason.EXPIRED),
+				eq(Map.<String, Object>of(StompRelay.LOCAL_ONLY_HEADER, "true")));
+		assertEquals(List.of(), presenceService.online(speciality));
+	}
+
+	@Test
+	void anExpiryHandledAfterTheDoctorCameBackIsIgnored() {
+		presenceService.setAvailable(doctor, speciality);
+
+		presenceService.expired(doctor);
+
+		verify(messagingTemplate, never()).convertAndSend(eq(PresenceService.destination(speciality)),
+				any(Object.class), anyMap());
+		assertEquals(List.of(doctor), presenceService.online(speciality));
+	}
+}
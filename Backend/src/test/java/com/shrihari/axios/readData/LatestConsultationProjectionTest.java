@@ -0,0 +1,52 @@
+package com.shrihari.axios.readData;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/* Runs the projection's own SQL against H2 in MySQL mode. */
+class LatestConsultationProjectionTest {
+
+	private static final String DOCTOR = "doctor@example.com";
+
+	private JdbcTemplate jdbcTemplate;
+	private LatestConsultationProjection projection;
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+				"jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", ""));
+		jdbcTemplate.execute("create table patients (phone varchar(32) primary key, name varchar(255))");
+		jdbcTemplate.execute("create table patient_latest_consultation (doctor_email_id varchar(255) not null, " +
+				"patient_phonenumber varchar(32) not null, diagnosis text, datetime datetime not null, " +
+				"primary key (doctor_email_id, patient_phonenumber))");
+		projection = new LatestConsultationProjection();
+		ReflectionTestUtils.setField(projection, "jdbcTemplate", jdbcTemplate);
+		ReflectionTestUtils.setField(projection, "gson", new Gson());
+	}
+
+	@Test
+	void anOlderConsultationArrivingLateDoesNotReplaceANewerOne() {
+		projection.record(DOCTOR, "9000000001", List.of("Migraine"), "2024-05-01 10:00:00");
+		projection.record(DOCTOR, "9000000001", List.of("Flu"), "2024-03-01 10:00:00");
+
+		LatestConsultationProjection.Row row = projection.forDoctor(DOCTOR).get(0);
+		assertEquals(List.of("Migraine"), row.diagnosis());
+		assertEquals("2024-05-01 10:00:00", row.datetime());
+
+		projection.record(DOCTOR, "9000000001", List.of("Sprain"), "2024-06-01 10:00:00");
+
+		row = projection.forDoctor(DOCTOR).get(0);
+		assertEquals(List.of("Sprain"), row.diagnosis());
+		assertEquals("2024-06-01 10:00:00", row.datetime());
+		assertEquals(1, projection.forDoctor(DOCTOR).size());
+	}
+}
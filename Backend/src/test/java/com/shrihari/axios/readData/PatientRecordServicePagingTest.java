@@ -0,0 +1,68 @@
+package com.shrihari.axios.readData;
+
+import com.google.gson.Gson;
+import com.shrihari.axios.utils.CursorPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PatientRecordServicePagingTest {
+
+	private static final String PHONE = "9000000001";
+
+	private JdbcTemplate jdbcTemplate;
+	private PatientRecordService service;
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+				"jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", ""));
+		jdbcTemplate.execute("create table patient_videos (patient_phone varchar(32), video_transcribed_text text, transcribed_text_summary text, " +
+				"severity varchar(32), doctor_speciality varchar(64), has_video varchar(1), uuid varchar(64) primary key, " +
+				"doctor_assigned varchar(255), doctor_remarks text, datetime datetime(6) not null)");
+		service = new PatientRecordService();
+		ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+		ReflectionTestUtils.setField(service, "gson", new Gson());
+	}
+
+	private void video(String uuid, String datetime) {
+		jdbcTemplate.update("insert into patient_videos (patient_phone, transcribed_text_summary, severity, doctor_speciality, uuid, datetime) values (?,?,?,?,?,?)",
+				PHONE, "summary " + uuid, "low", "Cardiology", uuid, datetime);
+	}
+
+	@Test
+	void videoPagesFollowTheTimeTheyWereAddedAcrossTies() {
+		// uuids are hashes, so their order says nothing about when the video was added
+		video("f3", "2024-01-01 09:00:00");
+		video("a7", "2024-01-02 09:00:00");
+		video("c1", "2024-01-02 09:00:00");
+		video("0b", "2024-01-03 09:00:00");
+		video("9e", "2024-01-04 09:00:00");
+
+		List<String> seen = new ArrayList<>();
+		String after = null;
+		do {
+			CursorPage<videoSummaryData> page = service.videoDataPage(PHONE, after, 2);
+			seen.addAll(page.data().uuid());
+			after = page.nextCursor();
+		} while (after != null);
+		assertEquals(List.of("f3", "a7", "c1", "0b", "9e"), seen);
+
+		seen.clear();
+		after = null;
+		do {
+			CursorPage<videoSummaryData> page = service.videoSummaryListViewPage("Cardiology", after, 3);
+			seen.addAll(page.data().uuid());
+			after = page.nextCursor();
+		} while (after != null);
+		assertEquals(List.of("f3", "a7", "c1", "0b", "9e"), seen);
+	}
+}
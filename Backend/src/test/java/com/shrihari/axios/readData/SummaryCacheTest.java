@@ -0,0 +1,38 @@
+package com.shrihari.axios.readData;
+
+import com.shrihari.axios.getData.summaryStructure;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SummaryCacheTest {
+
+	private static summaryStructure summary(String diagnosis) {
+		summaryStructure summary = new summaryStructure();
+		summary.diagnosis = List.of(diagnosis);
+		return summary;
+	}
+
+	@Test
+	void summariesAreWeighedByTheirJsonAndEvictedLeastRecentlyUsedFirst() {
+		// each 1000-char summary weighs 2 * 1000 + 256 bytes, so three fit in 8 KB
+		SummaryCache cache = new SummaryCache(DataSize.ofKilobytes(8));
+		for (long id = 1; id <= 3; id++) {
+			cache.put(id, summary("d" + id), 1000);
+		}
+		cache.getAll(List.of(1L));
+		cache.put(4, summary("d4"), 1000);
+
+		assertEquals(Set.of(1L, 3L, 4L), cache.getAll(List.of(1L, 2L, 3L, 4L)).keySet());
+		assertEquals(3 * 2256, cache.stats().weight());
+		assertEquals(1, cache.stats().evictions());
+
+		// larger than the whole budget: not cached, and nothing else is pushed out
+		cache.put(5, summary("d5"), 5000);
+		assertEquals(Set.of(1L, 3L, 4L), cache.getAll(List.of(1L, 3L, 4L, 5L)).keySet());
+	}
+}
@@ -0,0 +1,82 @@
+package com.shrihari.axios.readData;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class readDataConcurrencyTest {
+
+	/*
+	 * Answers every query with rows whose columns are "<first bind value>:<column>",
+	 * yielding between rows so requests interleave.
+	 */
+	static class EchoJdbcTemplate extends JdbcTemplate {
+		@Override
+		public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+			String key = String.valueOf(args[0]);
+			List<T> rows = new ArrayList<>();
+			try {
+				for (int i = 0; i < 3; i++) {
+					ResultSet rs = mock(ResultSet.class);
+					when(rs.getString(anyInt())).thenAnswer(inv -> key + ":" + inv.getArgument(0));
+					rows.add(rowMapper.mapRow(rs, i));
+					Thread.yield();
+				}
+			} catch (SQLException e) {
+				throw new IllegalStateException(e);
+			}
+			return rows;
+		}
+	}
+
+	@Test
+	void concurrentRequestsNeverSeeEachOthersRows() throws Exception {
+		PatientRecordService service = new PatientRecordService();
+		ReflectionTestUtils.setField(service, "jdbcTemplate", new EchoJdbcTemplate());
+		ReflectionTestUtils.setField(service, "gson", new Gson());
+		readData controller = new readData();
+		ReflectionTestUtils.setField(controller, "patientRecordService", service);
+
+		ExecutorService pool = Executors.newFixedThreadPool(32);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < 32; t++) {
+			int thread = t;
+			futures.add(pool.submit(() -> {
+				for (int i = 0; i < 200; i++) {
+					String phone = "phone-" + thread + "-" + i;
+					patient_details_record details = (patient_details_record) controller.pateintdetails(phone);
+					assertEquals(phone + ":1", details.name());
+					assertEquals(phone + ":5", details.allergies());
+
+					videoSummaryData videos = (videoSummaryData) controller.getpatientvideodata(phone, null, null, false, null);
+					assertEquals(3, videos.uuid().size());
+					videos.patientVideoSummary().forEach(summary -> assertTrue(summary.startsWith(phone + ":")));
+					videos.uuid().forEach(uuid -> assertEquals(phone + ":5", uuid));
+				}
+				return null;
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+	}
+}
@@ -0,0 +1,75 @@
+package com.shrihari.axios.security;
+
+import com.shrihari.axios.utils.LruCache;
+import com.shrihari.axios.utils.roles;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class JwtGeneratorTest {
+
+	private static final byte[] KEY = "a signing key of at least 32 bytes for the tests".getBytes();
+
+	private final JwtGenerator generator = new JwtGenerator(Base64.getEncoder().encodeToString(KEY));
+
+	@SuppressWarnings("unchecked")
+	private LruCache<String, VerifiedClaims> cache() {
+		return (LruCache<String, VerifiedClaims>) ReflectionTestUtils.getField(generator, "verified");
+	}
+
+	private static String hash(String token) {
+		return ReflectionTestUtils.invokeMethod(JwtGenerator.class, "hash", token);
+	}
+
+	@Test
+	void aCachedTokenIsNotParsedAgain() {
+		String token = generator.generate("doctor@example.com", roles.ROLES.Doctor);
+		VerifiedClaims first = generator.verify(token);
+		JwtParser parser = mock(JwtParser.class, delegatesTo(ReflectionTestUtils.getField(generator, "parser")));
+		ReflectionTestUtils.setField(generator, "parser", parser);
+
+		assertSame(first, generator.verify(token));
+		assertEquals("doctor@example.com", generator.getJwtUsername(token));
+		verify(parser, never()).parseSignedClaims(anyString());
+	}
+
+	@Test
+	void anExpiredCachedEntryIsEvictedAndRejected() {
+		Date past = new Date(System.currentTimeMillis() - 60_000);
+		String token = Jwts.builder().subject("doctor@example.com").claim("role", roles.ROLES.Doctor.getRoleValue())
+				.issuedAt(new Date(past.getTime() - 60_000)).expiration(past).signWith(Keys.hmacShaKeyFor(KEY)).compact();
+		cache().put(hash(token), new VerifiedClaims("doctor@example.com", roles.ROLES.Doctor.getRoleValue(), past));
+
+		assertThrows(JwtException.class, () -> generator.verify(token));
+		assertNull(cache().getIfPresent(hash(token)));
+	}
+
+	@Test
+	void forgedOrBlankTokensAreRejected() {
+		String forged = Jwts.builder().subject("doctor@example.com").claim("role", roles.ROLES.Doctor.getRoleValue())
+				.expiration(new Date(System.currentTimeMillis() + 60_000))
+				.signWith(Keys.hmacShaKeyFor("another key that is also at least 32 bytes".getBytes())).compact();
+
+		assertThrows(JwtException.class, () -> generator.verify(forged));
+		assertNull(cache().getIfPresent(hash(forged)));
+		assertThrows(JwtException.class, () -> generator.verify(null));
+		assertThrows(JwtException.class, () -> generator.verify(""));
+		assertThrows(JwtException.class, () -> generator.verify("   "));
+	}
+}
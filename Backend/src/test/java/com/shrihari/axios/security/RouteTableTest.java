@@ -0,0 +1,144 @@
+package com.shrihari.axios.security;
+
+import com.shrihari.axios.utils.roles;
+import org.junit.jupiter.api.Test;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.AnnotationConfigUtils;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RouteTableTest {
+
+	private static final Date LATER = new Date(System.currentTimeMillis() + 3_600_000);
+
+	private static VerifiedClaims claims(String subject, roles.ROLES role) {
+		return new VerifiedClaims(subject, role.getRoleValue(), LATER);
+	}
+
+	@RestController
+	@RequestMapping("/healthdesk/records")
+	@RouteAccess({roles.ROLES.Patient, roles.ROLES.Doctor})
+	static class RecordsController {
+
+		@GetMapping("/{phone}")
+		@RouteAccess(value = {roles.ROLES.Patient, roles.ROLES.Doctor}, owner = "phone", anyOwner = roles.ROLES.Doctor)
+		String record(@PathVariable String phone) {
+			return phone;
+		}
+
+		@GetMapping("/list")
+		@RouteAccess(value = roles.ROLES.Doctor, owner = "doctor_email")
+		String list(@RequestParam String doctor_email) {
+			return doctor_email;
+		}
+
+		@GetMapping("/summary")
+		String summary() {
+			return "";
+		}
+
+		@GetMapping("/public")
+		@RouteAccess(open = true)
+		String open() {
+			return "";
+		}
+	}
+
+	private static RouteTable tableFromAnnotations() {
+		StaticWebApplicationContext context = new StaticWebApplicationContext();
+		context.setServletContext(new MockServletContext());
+		AnnotationConfigUtils.registerAnnotationConfigProcessors(context);
+		context.registerSingleton("requestMappingHandlerMapping", RequestMappingHandlerMapping.class);
+		context.registerSingleton("records", RecordsController.class);
+		context.registerSingleton("routeTable", RouteTable.class);
+		context.refresh();
+		return context.getBean(RouteTable.class);
+	}
+
+	@Test
+	void rulesComeFromTheControllerAnnotations() {
+		RouteTable table = tableFromAnnotations();
+		Map<String, String> none = Map.of();
+
+		RouteTable.Rule record = table.lookup("GET", "/healthdesk/records/9876543210");
+		assertTrue(record.permits(claims("9876543210", roles.ROLES.Patient), none::get, "/healthdesk/records/9876543210"));
+		assertFalse(record.permits(claims("1111111111", roles.ROLES.Patient), none::get, "/healthdesk/records/9876543210"));
+		assertTrue(record.permits(claims("doctor@healthdesk.test", roles.ROLES.Doctor), none::get, "/healthdesk/records/9876543210"));
+		assertFalse(record.permits(claims("9876543210", roles.ROLES.Pharmacist), none::get, "/healthdesk/records/9876543210"));
+
+		// the literal /list wins over /{phone}
+		RouteTable.Rule list = table.lookup("GET", "/healthdesk/records/list");
+		assertTrue(list.permits(claims("doctor@healthdesk.test", roles.ROLES.Doctor), Map.of("doctor_email", "doctor@healthdesk.test")::get, "/healthdesk/records/list"));
+		assertFalse(list.permits(claims("doctor@healthdesk.test", roles.ROLES.Doctor), Map.of("doctor_email", "other@healthdesk.test")::get, "/healthdesk/records/list"));
+
+		// the class annotation covers methods without their own
+		assertFalse(table.lookup("GET", "/healthdesk/records/summary").permits(claims("x", roles.ROLES.Pharmacist), none::get, "/healthdesk/records/summary"));
+		assertTrue(table.lookup("HEAD", "/healthdesk/records/public").open());
+		assertTrue(table.lookup("GET", "/healthdesk-ws").open());
+		assertSame(RouteTable.Rule.AUTHENTICATED, table.lookup("GET", "/healthdesk/unknown/path"));
+		assertSame(RouteTable.Rule.AUTHENTICATED, table.lookup("POST", "/healthdesk/records/public"));
+	}
+
+	@Test
+	void variablesOnlyMatchWhenNoLiteralRouteDoes() {
+		RouteTable table = new RouteTable();
+		RouteTable.Rule doctors = new RouteTable.Rule(false, Set.of(roles.ROLES.Doctor), null, -1, Set.of());
+		table.add("GET", "/healthdesk/read/video/{uuid}", doctors);
+		table.add("GET", "/healthdesk/read/{kind}/part/{index}", RouteTable.Rule.OPEN);
+		table.add("", "/healthdesk/auth/check/phone", RouteTable.Rule.OPEN);
+
+		assertSame(doctors, table.lookup("GET", "/healthdesk/read/video/abc"));
+		assertSame(RouteTable.Rule.OPEN, table.lookup("GET", "/healthdesk/read/audio/part/1"));
+		// video/{uuid} has nothing below it, so the walk falls back to {kind}
+		assertSame(RouteTable.Rule.OPEN, table.lookup("GET", "/healthdesk/read/video/part/1"));
+		assertSame(RouteTable.Rule.OPEN, table.lookup("PUT", "//healthdesk/auth/check/phone/"));
+		assertSame(RouteTable.Rule.AUTHENTICATED, table.lookup("GET", "/healthdesk/read/video/abc/extra"));
+		assertEquals(3, table.size());
+		assertEquals("abc", RouteTable.segment("/healthdesk//read/abc", 2));
+	}
+
+	@Test
+	void pathParametersAndEncodingDoNotDodgeTheOwnerCheck() throws Exception {
+		JwtGenerator jwtGenerator = mock(JwtGenerator.class);
+		when(jwtGenerator.verify("patient-token")).thenReturn(claims("1111111111", roles.ROLES.Patient));
+		FilterClass filter = new FilterClass();
+		filter.setJwtGenerator(jwtGenerator);
+		filter.setRouteTable(tableFromAnnotations());
+
+		// the raw URI of the first one is not in the table at all
+		for (String uri : List.of("/healthdesk/records;x=1/9876543210", "/healthdesk/%72ecords/9876543210", "/healthdesk/records/9876543210;x=1")) {
+			MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+			request.addHeader("token", "patient-token");
+			MockHttpServletResponse response = new MockHttpServletResponse();
+			filter.doFilter(request, response, (req, res) -> fail("let through " + uri));
+			assertEquals(HttpServletResponse.SC_FORBIDDEN, response.getStatus(), uri);
+		}
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/healthdesk/records;x=1/9876543210;y=2");
+		request.setContextPath("/api");
+		assertEquals("/healthdesk/records/9876543210", RouteTable.matchPath(request));
+		assertNull(RouteTable.matchPath(new MockHttpServletRequest("GET", "/healthdesk/records/98%2F76")));
+	}
+}
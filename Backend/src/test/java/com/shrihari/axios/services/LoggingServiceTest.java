@@ -0,0 +1,72 @@
+package com.shrihari.axios.services;
+
+import com.shrihari.axios.config.GsonConfig;
+import com.shrihari.axios.dto.LogEntry;
+import com.shrihari.axios.logs.LogStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoggingServiceTest {
+
+	@TempDir
+	Path directory;
+
+	private LoggingService service(int bufferSize, DataSize maxSegmentSize) {
+		return new LoggingService(new GsonConfig().gson(), new LogStore(new GsonConfig().gson(), directory.toString(), Duration.ofDays(30), DataSize.ofGigabytes(1)), bufferSize, maxSegmentSize,
+				Duration.ofHours(1), LoggingService.FsyncPolicy.BATCH, Duration.ofSeconds(1));
+	}
+
+	@Test
+	void concurrentEntriesAreAllWrittenAcrossRotatedSegments() throws Exception {
+		LoggingService service = service(1 << 16, DataSize.ofKilobytes(4));
+		service.start();
+		Thread[] producers = new Thread[8];
+		for (int t = 0; t < producers.length; t++) {
+			int thread = t;
+			producers[t] = new Thread(() -> {
+				for (int i = 0; i < 2000; i++) {
+					service.log(new LogEntry("error " + thread + "-" + i, "/healthdesk/auth/check/password"));
+				}
+			});
+			producers[t].start();
+		}
+		for (Thread producer : producers) {
+			producer.join();
+		}
+		service.stop();
+
+		long lines = 0;
+		List<Path> segments;
+		try (Stream<Path> files = Files.list(directory)) {
+			segments = files.filter(path -> path.toString().endsWith(".jsonl")).toList();
+		}
+		for (Path segment : segments) {
+			assertTrue(Files.size(segment) <= DataSize.ofKilobytes(4).toBytes());
+			lines += Files.readAllLines(segment).size();
+		}
+		assertEquals(16000, lines);
+		assertEquals(16000, service.stats().written());
+		assertEquals(0, service.stats().dropped());
+		assertEquals(segments.size() - 1, service.stats().rotations());
+	}
+
+	@Test
+	void fullBufferDropsInsteadOfBlocking() {
+		LoggingService service = service(4, DataSize.ofMegabytes(1));
+		for (int i = 0; i < 10; i++) {
+			service.log(new LogEntry("error", "/healthdesk/auth/send/email"));
+		}
+		assertEquals(6, service.stats().dropped());
+		assertEquals(4, service.stats().queued());
+	}
+}
@@ -0,0 +1,153 @@
+package com.shrihari.axios.services;
+
+import com.shrihari.axios.utils.CircuitBreaker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SummarizationServiceTest {
+
+	private static final String TRANSCRIPT = "I have had a fever and chest pain since Monday. Take paracetamol 500 mg twice a day. Follow up in one week.";
+
+	private final Map<String, String> redis = new ConcurrentHashMap<>();
+	private StringRedisTemplate redisTemplate;
+	private SummarizationService service;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void fakeRedis() {
+		ValueOperations<String, String> values = mock(ValueOperations.class);
+		when(values.get(anyString())).thenAnswer(invocation -> redis.get(invocation.<String>getArgument(0)));
+		doAnswer(invocation -> redis.put(invocation.getArgument(0), invocation.getArgument(1)))
+				.when(values).set(anyString(), anyString(), any(Duration.class));
+		redisTemplate = mock(StringRedisTemplate.class);
+		when(redisTemplate.opsForValue()).thenReturn(values);
+	}
+
+	@AfterEach
+	void stop() {
+		if (service != null) {
+			service.stop();
+		}
+	}
+
+	private SummarizationService service(SummaryProvider provider, Duration timeout) {
+		service = new SummarizationService(provider, redisTemplate, 2, 4, timeout, 2, Duration.ofMinutes(1), Duration.ofDays(1));
+		return service;
+	}
+
+	@Test
+	void sameTranscriptIsSummarizedOnce() throws Exception {
+		FakeSummaryProvider provider = new FakeSummaryProvider(Duration.ofMillis(200));
+		SummarizationService service = service(provider, Duration.ofSeconds(10));
+
+		ExecutorService callers = Executors.newFixedThreadPool(8);
+		CountDownLatch start = new CountDownLatch(1);
+		Future<?>[] results = new Future<?>[8];
+		for (int i = 0; i < results.length; i++) {
+			results[i] = callers.submit(() -> {
+				start.await();
+				return service.summarize(TRANSCRIPT);
+			});
+		}
+		start.countDown();
+		String first = (String) results[0].get();
+		for (Future<?> result : results) {
+			assertEquals(first, result.get());
+		}
+		callers.shutdown();
+		assertEquals(first, service.summarize(TRANSCRIPT));
+
+		assertEquals(1, provider.calls());
+		assertTrue(first.contains("500 mg"));
+		assertEquals(9, service.stats().requests());
+		assertEquals(1, service.stats().modelCalls());
+		assertEquals(1, service.stats().cacheHits());
+	}
+
+	@Test
+	void timeoutsOpenTheBreaker() {
+		SummarizationService service = service(new FakeSummaryProvider(Duration.ofSeconds(5)), Duration.ofMillis(50));
+
+		assertThrows(IllegalStateException.class, () -> service.summarize("first"));
+		assertThrows(IllegalStateException.class, () -> service.summarize("second"));
+		assertEquals(CircuitBreaker.State.OPEN, service.stats().breaker());
+
+		assertThrows(IllegalStateException.class, () -> service.summarize("third"));
+		assertEquals(2, service.stats().timeouts());
+		assertEquals(1, service.stats().shortCircuited());
+	}
+
+	@Test
+	void invalidOutputIsNotCached() {
+		AtomicInteger calls = new AtomicInteger();
+		SummarizationService service = service(prompt -> calls.incrementAndGet() == 1 ? "Sorry, I cannot help" : "{\"symptoms\":[]}",
+				Duration.ofSeconds(10));
+
+		assertEquals("Sorry, I cannot help", service.summarize(TRANSCRIPT));
+		assertEquals("{\"symptoms\":[]}", service.summarize(TRANSCRIPT));
+		assertEquals("{\"symptoms\":[]}", service.summarize(TRANSCRIPT));
+		assertEquals(2, calls.get());
+	}
+
+	// the first call hangs until released and then fails; later calls answer at once
+	private static SummaryProvider hangingFirstCall(CountDownLatch release, AtomicInteger calls) {
+		return prompt -> {
+			if (calls.incrementAndGet() == 1) {
+				release.await();
+				throw new IllegalStateException("Model unavailable");
+			}
+			return "{\"symptoms\":[]}";
+		};
+	}
+
+	@Test
+	void aCallerAfterATimeoutStartsAFreshCall() {
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger calls = new AtomicInteger();
+		SummarizationService service = service(hangingFirstCall(release, calls), Duration.ofMillis(100));
+
+		assertThrows(IllegalStateException.class, () -> service.summarize(TRANSCRIPT));
+		assertEquals("{\"symptoms\":[]}", service.summarize(TRANSCRIPT));
+		assertEquals(2, calls.get());
+		assertEquals(0, service.stats().shared());
+		release.countDown();
+	}
+
+	@Test
+	void aCallThatFinishesAfterItsTimeoutIsNotCountedTwice() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		SummarizationService service = service(hangingFirstCall(release, new AtomicInteger()), Duration.ofMillis(100));
+
+		assertThrows(IllegalStateException.class, () -> service.summarize(TRANSCRIPT));
+		release.countDown();
+		for (int i = 0; i < 100 && service.stats().failures() == 0; i++) {
+			Thread.sleep(10);
+		}
+
+		assertEquals(1, service.stats().failures());
+		assertEquals(1, service.stats().timeouts());
+		// two failures open this breaker; the worker's late one is not reported
+		assertEquals(CircuitBreaker.State.CLOSED, service.stats().breaker());
+	}
+}
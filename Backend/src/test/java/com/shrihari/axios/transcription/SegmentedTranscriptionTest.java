@@ -0,0 +1,115 @@
+package com.shrihari.axios.transcription;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentedTranscriptionTest {
+
+	private static final int SAMPLE_RATE = 8000;
+
+	@TempDir
+	Path directory;
+
+	// mono 16-bit tone with 300 ms of silence starting at each of silences (ms)
+	private Path wav(long durationMs, long... silences) throws IOException {
+		int samples = (int) (durationMs * SAMPLE_RATE / 1000);
+		ByteBuffer data = ByteBuffer.allocate(44 + samples * 2).order(ByteOrder.LITTLE_ENDIAN);
+		data.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(36 + samples * 2).put("WAVE".getBytes(StandardCharsets.US_ASCII))
+				.put("fmt ".getBytes(StandardCharsets.US_ASCII)).putInt(16).putShort((short) 1).putShort((short) 1)
+				.putInt(SAMPLE_RATE).putInt(SAMPLE_RATE * 2).putShort((short) 2).putShort((short) 16)
+				.put("data".getBytes(StandardCharsets.US_ASCII)).putInt(samples * 2);
+		for (int i = 0; i < samples; i++) {
+			long ms = (long) i * 1000 / SAMPLE_RATE;
+			boolean silent = false;
+			for (long silence : silences) {
+				silent |= ms >= silence && ms < silence + 300;
+			}
+			data.putShort(silent ? 0 : (short) (8000 * Math.sin(i * 0.3)));
+		}
+		Path path = directory.resolve("recording.wav");
+		Files.write(path, data.array());
+		return path;
+	}
+
+	@Test
+	void cutsLandInSilenceAndSegmentsOverlap() throws IOException {
+		AudioSegmenter segmenter = new AudioSegmenter(Duration.ofMinutes(1), Duration.ofSeconds(2), Duration.ofSeconds(20));
+		Path recording = wav(230_000, 50_000, 101_000, 145_000);
+
+		List<AudioSegmenter.Segment> segments = segmenter.plan(recording);
+
+		assertEquals(4, segments.size());
+		assertEquals(0, segments.get(0).startMs());
+		assertEquals(230_000, segments.get(3).endMs());
+		long[] silences = {50_000, 101_000, 145_000};
+		for (int i = 0; i + 1 < segments.size(); i++) {
+			assertEquals(2_000, segments.get(i).endMs() - segments.get(i + 1).startMs());
+			long cut = (segments.get(i).endMs() + segments.get(i + 1).startMs()) / 2;
+			assertTrue(cut >= silences[i] && cut < silences[i] + 300, "cut at " + cut);
+		}
+
+		Path part = directory.resolve("1.wav");
+		segmenter.write(recording, segments.get(1), part);
+		try (FileChannel channel = FileChannel.open(part)) {
+			AudioSegmenter.WavFormat format = AudioSegmenter.readFormat(channel);
+			assertEquals(segments.get(1).endMs() - segments.get(1).startMs(), format.durationMs());
+		}
+	}
+
+	@Test
+	void shortAndNonWavRecordingsAreNotSplit() throws IOException {
+		AudioSegmenter segmenter = new AudioSegmenter(Duration.ofMinutes(1), Duration.ofSeconds(2), Duration.ofSeconds(20));
+		assertEquals(1, segmenter.plan(wav(80_000)).size());
+
+		Path mp3 = directory.resolve("recording.mp3");
+		Files.write(mp3, new byte[]{'I', 'D', '3', 4, 0, 0, 0, 0, 0, 0, 0, 0, 0});
+		assertEquals(0, segmenter.plan(mp3).size());
+	}
+
+	@Test
+	void overlappingWordsAreKeptOnce() {
+		// a word every 400 ms, segments [0, 11000) and [9000, 20000) cut at 10000
+		List<String> spoken = new ArrayList<>();
+		List<TranscriptStitcher.Word> first = new ArrayList<>();
+		List<TranscriptStitcher.Word> second = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			long start = i * 400L;
+			spoken.add("w" + i);
+			if (start + 300 <= 11_000) {
+				first.add(new TranscriptStitcher.Word("w" + i, start, start + 300));
+			}
+			if (start >= 9_000) {
+				second.add(new TranscriptStitcher.Word("w" + i, start - 9_000, start - 8_700));
+			}
+		}
+
+		String text = TranscriptStitcher.stitch(List.of(
+				new TranscriptStitcher.Part(0, 11_000, null, first),
+				new TranscriptStitcher.Part(9_000, 20_000, null, second)));
+
+		assertEquals(String.join(" ", spoken), text);
+	}
+
+	@Test
+	void withoutTimingsRepeatedTextAtTheSeamIsDroppedOnce() {
+		String text = TranscriptStitcher.stitch(List.of(
+				new TranscriptStitcher.Part(0, 11_000, "The patient reports a mild fever since Monday.", null),
+				new TranscriptStitcher.Part(9_000, 20_000, "fever since Monday. No cough.", null)));
+
+		assertEquals("The patient reports a mild fever since Monday. No cough.", text);
+	}
+}
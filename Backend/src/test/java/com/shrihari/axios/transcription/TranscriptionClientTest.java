@@ -0,0 +1,117 @@
+package com.shrihari.axios.transcription;
+
+import com.google.gson.Gson;
+import com.shrihari.axios.getData.AssemblyAiRequestBody;
+import com.shrihari.axios.getData.AssemblyAiTranscriptResponseBody;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TranscriptionClientTest {
+
+	@TempDir
+	Path directory;
+
+	private HttpServer server;
+	private final AtomicInteger polls = new AtomicInteger();
+	private final List<byte[]> uploads = new CopyOnWriteArrayList<>();
+	private final List<String> submittedUrls = new CopyOnWriteArrayList<>();
+
+	@BeforeEach
+	void startStandIn() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/v2/transcript", exchange -> {
+			if (!"test-key".equals(exchange.getRequestHeaders().getFirst("authorization"))) {
+				respond(exchange, 401, "{}");
+			} else if ("POST".equals(exchange.getRequestMethod())) {
+				submittedUrls.add(new Gson().fromJson(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8),
+						AssemblyAiRequestBody.class).audio_url);
+				respond(exchange, 200, "{\"id\":\"job-1\"}");
+			} else if (polls.incrementAndGet() < 3) {
+				respond(exchange, 200, "{\"status\":\"processing\"}");
+			} else {
+				respond(exchange, 200, "{\"status\":\"completed\",\"text\":\"patient reports fever\"}");
+			}
+		});
+		server.createContext("/v2/upload", exchange -> {
+			if (!"test-key".equals(exchange.getRequestHeaders().getFirst("authorization"))) {
+				respond(exchange, 401, "{}");
+			} else {
+				uploads.add(exchange.getRequestBody().readAllBytes());
+				respond(exchange, 200, "{\"upload_url\":\"https://cdn.example.com/upload/" + uploads.size() + "\"}");
+			}
+		});
+		server.start();
+	}
+
+	@AfterEach
+	void stopStandIn() {
+		server.stop(0);
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	private TranscriptionClient client(String key) {
+		return new TranscriptionClient(new Gson(), "http://127.0.0.1:" + server.getAddress().getPort() + "/", key);
+	}
+
+	private Path recording() throws IOException {
+		return Files.write(directory.resolve("meeting-1.wav"), new byte[]{'R', 'I', 'F', 'F', 1, 2, 3});
+	}
+
+	@Test
+	void submitsAndPollsUntilCompleted() throws Exception {
+		TranscriptionClient client = client("test-key");
+		String id = client.submitFile(recording());
+		assertEquals("job-1", id);
+
+		AssemblyAiTranscriptResponseBody body;
+		do {
+			body = client.fetch(id);
+		} while (!"completed".equals(body.status));
+		assertEquals("patient reports fever", body.text);
+		assertEquals(3, polls.get());
+	}
+
+	@Test
+	void recordingsAreUploadedAndTranscribedFromTheProvidersCopy() throws Exception {
+		Path recording = recording();
+		client("test-key").submitFile(recording);
+
+		assertEquals(1, uploads.size());
+		assertArrayEquals(Files.readAllBytes(recording), uploads.get(0));
+		// the provider fetches its own copy, so no url behind our token checks is handed out
+		assertEquals(List.of("https://cdn.example.com/upload/1"), submittedUrls);
+	}
+
+	@Test
+	void rejectedSubmitThrows() throws Exception {
+		Path recording = recording();
+		assertThrows(IOException.class, () -> client("wrong-key").submitFile(recording));
+		assertTrue(submittedUrls.isEmpty());
+	}
+}
@@ -0,0 +1,112 @@
+package com.shrihari.axios.transcription;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TranscriptionJobServiceTest {
+
+	private final CountDownLatch release = new CountDownLatch(1);
+	private TranscriptionJobRepo jobRepo;
+	private TranscriptionClient transcriptionClient;
+	private TranscriptionJobService service;
+	private TranscriptionJob job;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		job = new TranscriptionJob();
+		job.setId("job-1");
+		job.setMeetingUuid("meeting-1");
+		job.setAudioPath("/tmp/meeting-1.mp3");
+		job.setStatus(TranscriptionJob.Status.PENDING);
+		job.setNextPollAt(LocalDateTime.now().minusSeconds(1));
+
+		jobRepo = mock(TranscriptionJobRepo.class);
+		when(jobRepo.findTop50ByStatusInAndNextPollAtLessThanEqualOrderByNextPollAtAsc(any(), any())).thenReturn(List.of(job));
+		when(jobRepo.claim(eq("job-1"), any(), any())).thenReturn(1);
+		AudioSegmenter audioSegmenter = mock(AudioSegmenter.class);
+		when(audioSegmenter.plan(any())).thenReturn(List.of());
+		transcriptionClient = mock(TranscriptionClient.class);
+		// the upload takes as long as the test wants it to
+		when(transcriptionClient.submitFile(any(Path.class))).thenAnswer(invocation -> {
+			release.await(10, TimeUnit.SECONDS);
+			return "provider-1";
+		});
+
+		service = new TranscriptionJobService();
+		ReflectionTestUtils.setField(service, "jobRepo", jobRepo);
+		ReflectionTestUtils.setField(service, "audioSegmenter", audioSegmenter);
+		ReflectionTestUtils.setField(service, "transcriptionClient", transcriptionClient);
+		ReflectionTestUtils.setField(service, "workerCount", 2);
+		ReflectionTestUtils.setField(service, "lease", Duration.ofMinutes(15));
+		ReflectionTestUtils.setField(service, "initialDelay", Duration.ofSeconds(15));
+		ReflectionTestUtils.setField(service, "maxDelay", Duration.ofMinutes(2));
+		ReflectionTestUtils.setField(service, "maxAttempts", 40);
+		service.startWorkers();
+	}
+
+	@AfterEach
+	void stop() {
+		release.countDown();
+		service.stopWorkers();
+	}
+
+	@Test
+	void theSchedulerOnlyClaimsAndTheWorkerDoesTheCall() throws Exception {
+		assertTimeoutPreemptively(Duration.ofSeconds(2), () -> service.processDueJobs());
+		verify(transcriptionClient, timeout(2000)).submitFile(any(Path.class));
+
+		// still uploading: the next tick neither waits for it nor starts it again
+		assertTimeoutPreemptively(Duration.ofSeconds(2), () -> service.processDueJobs());
+		verify(jobRepo, times(1)).claim(anyString(), any(), any());
+
+		release.countDown();
+		verify(jobRepo, timeout(2000)).save(job);
+		assertEquals(TranscriptionJob.Status.SUBMITTED, job.getStatus());
+		assertEquals("provider-1", job.getProviderJobId());
+		verify(transcriptionClient, times(1)).submitFile(any(Path.class));
+	}
+
+	@Test
+	void passesWaitingForSegmentRoomAreNotCountedAsPolls() throws Exception {
+		TranscriptionSegment segment = new TranscriptionSegment();
+		segment.setJobId("job-1");
+		segment.setStatus(TranscriptionJob.Status.PENDING);
+		TranscriptionSegmentRepo segmentRepo = mock(TranscriptionSegmentRepo.class);
+		when(segmentRepo.findByJobIdOrderBySegmentIndexAsc("job-1")).thenReturn(List.of(segment));
+		when(segmentRepo.countByStatus(TranscriptionJob.Status.SUBMITTED)).thenReturn(16L);
+		ReflectionTestUtils.setField(service, "segmentRepo", segmentRepo);
+		ReflectionTestUtils.setField(service, "maxSegmentsInFlight", 16);
+		ReflectionTestUtils.setField(service, "maxAttempts", 2);
+		job.setStatus(TranscriptionJob.Status.SUBMITTED);
+		job.setSegmentCount(2);
+
+		for (int pass = 0; pass < 5; pass++) {
+			service.advance(job);
+		}
+
+		assertEquals(TranscriptionJob.Status.SUBMITTED, job.getStatus());
+		assertEquals(0, job.getAttempts());
+		verify(transcriptionClient, never()).submitFile(any(Path.class));
+	}
+}
@@ -0,0 +1,142 @@
+package com.shrihari.axios.upload;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UploadServiceTest {
+
+	private static final String OWNER = "doctor@example.com";
+	private static final int CHUNK = 1000;
+
+	@TempDir
+	Path directory;
+
+	private final Map<String, UploadSession> rows = new ConcurrentHashMap<>();
+	private final byte[] file = new byte[2500];
+	private UploadService service;
+
+	@BeforeEach
+	void setUp() {
+		new Random(42).nextBytes(file);
+		UploadSessionRepo repo = mock(UploadSessionRepo.class);
+		// stores a copy, so a session that was not saved keeps its old offset
+		when(repo.save(any(UploadSession.class))).thenAnswer(invocation -> {
+			UploadSession session = invocation.getArgument(0);
+			rows.put(session.getId(), copy(session));
+			return session;
+		});
+		when(repo.findById(anyString())).thenAnswer(invocation -> Optional.ofNullable(rows.get(invocation.<String>getArgument(0))).map(UploadServiceTest::copy));
+		service = new UploadService();
+		ReflectionTestUtils.setField(service, "sessionRepo", repo);
+		ReflectionTestUtils.setField(service, "uploadDir", directory.toString());
+		ReflectionTestUtils.setField(service, "maxChunkSize", DataSize.ofBytes(CHUNK));
+		ReflectionTestUtils.setField(service, "maxFileSize", DataSize.ofMegabytes(1));
+	}
+
+	private static UploadSession copy(UploadSession session) {
+		return new UploadSession(session.getId(), session.getOwner(), session.getKind(), session.getStatus(), session.getFileName(),
+				session.getContentType(), session.getTotalSize(), session.getReceivedBytes(), session.getCreatedAt(), session.getUpdatedAt());
+	}
+
+	private byte[] chunk(long offset) {
+		return Arrays.copyOfRange(file, (int) offset, (int) Math.min(offset + CHUNK, file.length));
+	}
+
+	private static String sha256(byte[] bytes) throws Exception {
+		return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+	}
+
+	private UploadSession append(String uploadId, long offset, byte[] bytes) throws Exception {
+		return service.appendChunk(uploadId, OWNER, offset, sha256(bytes), new ByteArrayInputStream(bytes));
+	}
+
+	// the connection drops after some bytes of the chunk have been written
+	private static InputStream droppedAfter(byte[] bytes, int sent) {
+		return new FilterInputStream(new ByteArrayInputStream(bytes, 0, sent)) {
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				int read = super.read(b, off, len);
+				if (read == -1) {
+					throw new IOException("Connection reset");
+				}
+				return read;
+			}
+		};
+	}
+
+	@Test
+	void uploadResumesFromTheAcknowledgedOffsetAfterADroppedChunk() throws Exception {
+		String uploadId = service.create(OWNER, UploadSession.Kind.AUDIO, "consultation.wav", "audio/wav", file.length).getId();
+		append(uploadId, 0, chunk(0));
+
+		byte[] second = chunk(CHUNK);
+		assertThrows(IOException.class, () -> service.appendChunk(uploadId, OWNER, CHUNK, sha256(second), droppedAfter(second, 400)));
+		UploadStatus status = service.status(service.get(uploadId, OWNER));
+		assertEquals(CHUNK, status.receivedBytes());
+
+		for (long offset = status.receivedBytes(); offset < file.length; offset += CHUNK) {
+			append(uploadId, offset, chunk(offset));
+		}
+
+		Path completed = service.completedFile(service.get(uploadId, OWNER), UploadSession.Kind.AUDIO);
+		assertArrayEquals(file, Files.readAllBytes(completed));
+	}
+
+	@Test
+	void chunkAtTheWrongOffsetIsRefused() throws Exception {
+		String uploadId = service.create(OWNER, UploadSession.Kind.AUDIO, "consultation.wav", "audio/wav", file.length).getId();
+		append(uploadId, 0, chunk(0));
+
+		// a resent first chunk, and a chunk that skips ahead
+		assertThrows(IllegalStateException.class, () -> append(uploadId, 0, chunk(0)));
+		IllegalStateException skipped = assertThrows(IllegalStateException.class, () -> append(uploadId, 2 * CHUNK, chunk(2 * CHUNK)));
+		assertTrue(skipped.getMessage().contains("Expected offset " + CHUNK));
+
+		assertEquals(CHUNK, service.get(uploadId, OWNER).getReceivedBytes());
+		assertEquals(CHUNK, Files.size(service.partPath(uploadId)));
+	}
+
+	@Test
+	void chunkWithAWrongChecksumIsCutOff() throws Exception {
+		String uploadId = service.create(OWNER, UploadSession.Kind.AUDIO, "consultation.wav", "audio/wav", file.length).getId();
+		append(uploadId, 0, chunk(0));
+
+		byte[] corrupted = chunk(CHUNK);
+		String checksum = sha256(corrupted);
+		corrupted[17] ^= 1;
+		assertThrows(IllegalArgumentException.class, () -> service.appendChunk(uploadId, OWNER, CHUNK, checksum, new ByteArrayInputStream(corrupted)));
+
+		assertEquals(CHUNK, service.get(uploadId, OWNER).getReceivedBytes());
+		assertEquals(CHUNK, Files.size(service.partPath(uploadId)));
+		assertThrows(IllegalStateException.class, () -> service.completedFile(service.get(uploadId, OWNER), UploadSession.Kind.AUDIO));
+
+		append(uploadId, CHUNK, chunk(CHUNK));
+		assertEquals(2 * CHUNK, service.get(uploadId, OWNER).getReceivedBytes());
+	}
+}
@@ -0,0 +1,60 @@
+package com.shrihari.axios.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CoalescerTest {
+
+	@Test
+	void aWindowDrainsAsOneEntryPerKey() {
+		Coalescer<String, String> coalescer = new Coalescer<>();
+		coalescer.add("pharmacy-1/dolo", "first");
+		coalescer.add("pharmacy-1/dolo", "second");
+		coalescer.add("pharmacy-2/dolo", "third");
+
+		Map<String, Coalescer.Entry<String, String>> drained = new HashMap<>();
+		coalescer.drain().forEach(entry -> drained.put(entry.key(), entry));
+
+		assertEquals(2, drained.size());
+		assertEquals(2, drained.get("pharmacy-1/dolo").count());
+		assertEquals("first", drained.get("pharmacy-1/dolo").value());
+		assertEquals(1, drained.get("pharmacy-2/dolo").count());
+		assertEquals(0, coalescer.drain().size());
+	}
+
+	@Test
+	void noEventIsLostWhileDraining() throws Exception {
+		Coalescer<Integer, Integer> coalescer = new Coalescer<>();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			futures.add(executor.submit(() -> {
+				for (int i = 0; i < 50_000; i++) {
+					coalescer.add(i % 10, i);
+				}
+			}));
+		}
+		long counted = 0;
+		while (!futures.stream().allMatch(Future::isDone)) {
+			for (Coalescer.Entry<Integer, Integer> entry : coalescer.drain()) {
+				counted += entry.count();
+			}
+		}
+		for (Coalescer.Entry<Integer, Integer> entry : coalescer.drain()) {
+			counted += entry.count();
+		}
+		executor.shutdown();
+
+		assertEquals(200_000, counted);
+		assertEquals(200_000, coalescer.stats().events());
+	}
+}
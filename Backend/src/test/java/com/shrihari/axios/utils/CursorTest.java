@@ -0,0 +1,39 @@
+package com.shrihari.axios.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CursorTest {
+
+	@Test
+	void keyPartsRoundTripAndMalformedCursorsAreRejected() {
+		String cursor = Cursor.encode("2024-05-01 10:00:00", "a/b+c");
+		assertArrayEquals(new String[]{"2024-05-01 10:00:00", "a/b+c"}, Cursor.decode(cursor, 2));
+		assertEquals(42, Cursor.decodeId(Cursor.encode("42")));
+		assertEquals(0, Cursor.decodeId(null));
+
+		assertThrows(IllegalArgumentException.class, () -> Cursor.decode(cursor, 1));
+		assertThrows(IllegalArgumentException.class, () -> Cursor.decode("not base64!", 1));
+		assertThrows(IllegalArgumentException.class, () -> Cursor.decodeId(Cursor.encode("x")));
+	}
+
+	@Test
+	void theExtraRowDecidesWhetherThereIsANextPage() {
+		CursorPage<List<Integer>> page = CursorPage.of(List.of(1, 2, 3), 2, row -> "after-" + row);
+		assertEquals(List.of(1, 2), page.data());
+		assertEquals("after-2", page.nextCursor());
+
+		CursorPage<List<Integer>> last = CursorPage.of(List.of(1, 2), 2, row -> "after-" + row);
+		assertEquals(List.of(1, 2), last.data());
+		assertNull(last.nextCursor());
+
+		assertEquals(1, CursorPage.clamp(0));
+		assertEquals(CursorPage.MAX_LIMIT, CursorPage.clamp(10_000));
+	}
+}
@@ -0,0 +1,87 @@
+package com.shrihari.axios.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LruCacheTest {
+
+	@Test
+	void leastRecentlyUsedIsEvictedAndHitsAreCounted() {
+		AtomicInteger loads = new AtomicInteger();
+		LruCache<Integer, String> cache = new LruCache<>(2, Duration.ofMinutes(1));
+
+		cache.get(1, key -> "one" + loads.incrementAndGet());
+		cache.get(2, key -> "two" + loads.incrementAndGet());
+		assertEquals("one1", cache.get(1, key -> "one" + loads.incrementAndGet()));
+		cache.get(3, key -> "three" + loads.incrementAndGet());
+		assertEquals("one1", cache.get(1, key -> "one" + loads.incrementAndGet()));
+		assertEquals("two4", cache.get(2, key -> "two" + loads.incrementAndGet()));
+
+		LruCache.Stats stats = cache.stats();
+		assertEquals(2, stats.hits());
+		assertEquals(4, stats.misses());
+		assertEquals(2, stats.evictions());
+		assertEquals(2, stats.entries());
+		assertEquals(1.0 / 3, stats.hitRate(), 1e-9);
+	}
+
+	@Test
+	void entriesExpireAndNullsAreNotCached() {
+		AtomicLong now = new AtomicLong();
+		LruCache<String, String> cache = new LruCache<>(10, Duration.ofSeconds(5), value -> 1, now::get);
+
+		cache.get("a", key -> "first");
+		now.addAndGet(Duration.ofSeconds(4).toNanos());
+		assertEquals("first", cache.get("a", key -> "second"));
+		now.addAndGet(Duration.ofSeconds(2).toNanos());
+		assertEquals("second", cache.get("a", key -> "second"));
+
+		assertNull(cache.get("b", key -> null));
+		assertEquals("loaded", cache.get("b", key -> "loaded"));
+	}
+
+	@Test
+	void aLoadThatRacesAnInvalidationIsNotStored() {
+		LruCache<Long, String> cache = new LruCache<>(10, Duration.ofMinutes(1));
+
+		String stale = cache.get(7L, key -> {
+			// the row is written and invalidated while the old version is being read
+			cache.invalidate(key);
+			return "old";
+		});
+
+		assertEquals("old", stale);
+		assertEquals("new", cache.get(7L, key -> "new"));
+		assertEquals("new", cache.get(7L, key -> "newer"));
+	}
+
+	@Test
+	void weightedEntriesAreEvictedUntilTheBudgetFits() {
+		LruCache<String, String> cache = new LruCache<>(10, null, String::length);
+
+		cache.put("a", "aaaa");
+		cache.put("b", "bbbb");
+		assertEquals("aaaa", cache.getIfPresent("a"));
+		cache.put("c", "cccccc");
+
+		// b was least recently used; a alone still fits next to c
+		assertNull(cache.getIfPresent("b"));
+		assertEquals(Map.of("a", "aaaa", "c", "cccccc"), cache.getAll(List.of("a", "b", "c")));
+		assertEquals(10, cache.stats().weight());
+
+		cache.put("a", "a");
+		assertEquals(7, cache.stats().weight());
+		cache.put("d", "d".repeat(11));
+		assertNull(cache.getIfPresent("d"));
+		assertEquals(2, cache.stats().entries());
+		assertEquals(1, cache.stats().evictions());
+	}
+}